@@ -179,10 +179,16 @@ func convertEntityToJob(entity *common.Entity) *jobmodel.Job {
 		},
 	}
 
-	// Decode the data to get job-specific fields
-	if len(entity.Data) > 0 {
+	// Typed payloads carry the job-specific fields directly; JSON in data is the older encoding
+	if jobPayload := entity.GetJob(); jobPayload != nil {
+		job.Status = jobPayload.Status
+		job.Title = jobPayload.Title
+		job.CompanyID = jobPayload.CompanyId
+		job.ContractorID = jobPayload.ContractorId
+		job.Rate = jobPayload.Rate
+	} else if data := entity.GetData(); len(data) > 0 {
 		var jobData map[string]interface{}
-		if err := json.Unmarshal(entity.Data, &jobData); err == nil {
+		if err := json.Unmarshal(data, &jobData); err == nil {
 			// Extract job fields
 			if status, ok := jobData["status"].(string); ok {
 				job.Status = status
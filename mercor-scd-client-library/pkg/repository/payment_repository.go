@@ -156,11 +156,16 @@ func convertEntityToPayment(entity *common.Entity) *paymentmodel.PaymentLineItem
 		},
 	}
 
-	// Decode the data to get payment-specific fields
-	if len(entity.Data) > 0 {
+	// Typed payloads carry the payment-specific fields directly; JSON in data is the older encoding
+	if paymentPayload := entity.GetPaymentLineItem(); paymentPayload != nil {
+		payment.JobUID = paymentPayload.JobUid
+		payment.TimelogUID = paymentPayload.TimelogUid
+		payment.Amount = paymentPayload.Amount
+		payment.Status = paymentPayload.Status
+	} else if data := entity.GetData(); len(data) > 0 {
 		// Parse JSON data
 		var paymentData map[string]interface{}
-		if err := json.Unmarshal(entity.Data, &paymentData); err == nil {
+		if err := json.Unmarshal(data, &paymentData); err == nil {
 			// Extract payment fields
 			if jobUID, ok := paymentData["jobUid"].(string); ok {
 				payment.JobUID = jobUID
@@ -143,11 +143,17 @@ func convertEntityToTimelog(entity *common.Entity) *timelogmodel.Timelog {
 		},
 	}
 
-	// Decode the data to get timelog-specific fields
-	if len(entity.Data) > 0 {
+	// Typed payloads carry the timelog-specific fields directly; JSON in data is the older encoding
+	if timelogPayload := entity.GetTimelog(); timelogPayload != nil {
+		timelog.Duration = timelogPayload.Duration
+		timelog.TimeStart = timelogPayload.TimeStart
+		timelog.TimeEnd = timelogPayload.TimeEnd
+		timelog.Type = timelogPayload.Type
+		timelog.JobUID = timelogPayload.JobUid
+	} else if data := entity.GetData(); len(data) > 0 {
 		// Parse JSON data
 		var timelogData map[string]interface{}
-		if err := json.Unmarshal(entity.Data, &timelogData); err == nil {
+		if err := json.Unmarshal(data, &timelogData); err == nil {
 			// Extract timelog fields
 			if duration, ok := timelogData["duration"].(float64); ok {
 				timelog.Duration = int64(duration)
@@ -0,0 +1,356 @@
+package com.mercor.assignment.scd.common.cache;
+
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Compact binary serializer for cached SCD entities
+ * Jobs, timelogs and payment line items (and lists of them) are written field by field in a fixed schema with
+ * variable-length integers and no type or field names. Payloads larger than the compression threshold, typically
+ * version histories, are LZ4-compressed. Any other value is delegated to the fallback serializer.
+ * <p>
+ * Every binary payload starts with a magic byte that can never start a JSON document, so entries written by the
+ * JSON serializer before a switch are still read back through the fallback until they expire.
+ * <p>
+ * Layout: {@code magic flags [uncompressed length] value}, where a value is a tag byte followed by its body.
+ * Changing the field order of an entity requires a new {@link #MAGIC}.
+ */
+public class BinaryEntityRedisSerializer implements RedisSerializer<Object> {
+
+  static final byte MAGIC = (byte) 0xB1;
+
+  private static final byte FLAG_LZ4 = 0x01;
+
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_JOB = 1;
+  private static final byte TAG_TIMELOG = 2;
+  private static final byte TAG_PAYMENT_LINE_ITEM = 3;
+  private static final byte TAG_LIST = 4;
+  private static final byte TAG_DECIMAL = 5;
+  private static final byte TAG_FALLBACK = 6;
+
+  private final RedisSerializer<Object> fallback;
+  private final int compressionThreshold;
+  private final LZ4Compressor compressor;
+  private final LZ4SafeDecompressor decompressor;
+
+  /**
+   * @param fallback serializer for values outside the binary schema and for entries written before the switch
+   * @param compressionThreshold payloads of at least this many bytes are LZ4-compressed; 0 disables compression
+   */
+  public BinaryEntityRedisSerializer(RedisSerializer<Object> fallback, int compressionThreshold) {
+    this.fallback = fallback;
+    this.compressionThreshold = compressionThreshold;
+
+    final LZ4Factory factory = LZ4Factory.safeInstance();
+    this.compressor = factory.fastCompressor();
+    this.decompressor = factory.safeDecompressor();
+  }
+
+  @Override
+  public byte[] serialize(Object value) throws SerializationException {
+    if (value == null) {
+      return new byte[0];
+    }
+
+    try {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+      writeValue(new DataOutputStream(buffer), value);
+      final byte[] payload = buffer.toByteArray();
+
+      if (compressionThreshold > 0 && payload.length >= compressionThreshold) {
+        final byte[] compressed = new byte[compressor.maxCompressedLength(payload.length)];
+        final int compressedLength = compressor.compress(payload, 0, payload.length, compressed, 0);
+
+        final ByteArrayOutputStream framed = new ByteArrayOutputStream(compressedLength + 8);
+        final DataOutputStream out = new DataOutputStream(framed);
+        out.writeByte(MAGIC);
+        out.writeByte(FLAG_LZ4);
+        writeVarLong(out, payload.length);
+        out.write(compressed, 0, compressedLength);
+        return framed.toByteArray();
+      }
+
+      final byte[] framed = new byte[payload.length + 2];
+      framed[0] = MAGIC;
+      framed[1] = 0;
+      System.arraycopy(payload, 0, framed, 2, payload.length);
+      return framed;
+    } catch (IOException e) {
+      throw new SerializationException("Could not write cache value of type " + value.getClass().getName(), e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) throws SerializationException {
+    if (bytes == null || bytes.length == 0) {
+      return null;
+    }
+    if (bytes[0] != MAGIC) {
+      return fallback.deserialize(bytes);
+    }
+
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2));
+      if ((bytes[1] & FLAG_LZ4) != 0) {
+        final int length = (int) readVarLong(in);
+        final int offset = bytes.length - in.available();
+        final byte[] payload = new byte[length];
+        decompressor.decompress(bytes, offset, bytes.length - offset, payload, 0, length);
+        in = new DataInputStream(new ByteArrayInputStream(payload));
+      }
+      return readValue(in);
+    } catch (IOException | RuntimeException e) {
+      throw new SerializationException("Could not read binary cache value", e);
+    }
+  }
+
+  private void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(TAG_NULL);
+    } else if (value instanceof Job job) {
+      out.writeByte(TAG_JOB);
+      writeJob(out, job);
+    } else if (value instanceof Timelog timelog) {
+      out.writeByte(TAG_TIMELOG);
+      writeTimelog(out, timelog);
+    } else if (value instanceof PaymentLineItem paymentLineItem) {
+      out.writeByte(TAG_PAYMENT_LINE_ITEM);
+      writePaymentLineItem(out, paymentLineItem);
+    } else if (value instanceof List<?> list) {
+      out.writeByte(TAG_LIST);
+      writeVarLong(out, list.size());
+      for (Object item : list) {
+        writeValue(out, item);
+      }
+    } else if (value instanceof BigDecimal decimal) {
+      out.writeByte(TAG_DECIMAL);
+      writeDecimal(out, decimal);
+    } else {
+      out.writeByte(TAG_FALLBACK);
+      final byte[] bytes = fallback.serialize(value);
+      writeVarLong(out, bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private Object readValue(DataInputStream in) throws IOException {
+    final byte tag = in.readByte();
+    switch (tag) {
+      case TAG_NULL:
+        return null;
+      case TAG_JOB:
+        return readJob(in);
+      case TAG_TIMELOG:
+        return readTimelog(in);
+      case TAG_PAYMENT_LINE_ITEM:
+        return readPaymentLineItem(in);
+      case TAG_LIST:
+        final int size = (int) readVarLong(in);
+        final List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(in));
+        }
+        return list;
+      case TAG_DECIMAL:
+        return readDecimal(in);
+      case TAG_FALLBACK:
+        final byte[] bytes = new byte[(int) readVarLong(in)];
+        in.readFully(bytes);
+        return fallback.deserialize(bytes);
+      default:
+        throw new IOException("Unknown value tag " + tag);
+    }
+  }
+
+  private void writeJob(DataOutputStream out, Job job) throws IOException {
+    writeCommon(out, job);
+    writeString(out, job.getStatus());
+    writeDecimal(out, job.getRate());
+    writeString(out, job.getTitle());
+    writeString(out, job.getCompanyId());
+    writeString(out, job.getContractorId());
+  }
+
+  private Job readJob(DataInputStream in) throws IOException {
+    final Job job = new Job();
+    readCommon(in, job);
+    job.setStatus(readString(in));
+    job.setRate(readDecimal(in));
+    job.setTitle(readString(in));
+    job.setCompanyId(readString(in));
+    job.setContractorId(readString(in));
+    return job;
+  }
+
+  private void writeTimelog(DataOutputStream out, Timelog timelog) throws IOException {
+    writeCommon(out, timelog);
+    writeLong(out, timelog.getDuration());
+    writeLong(out, timelog.getTimeStart());
+    writeLong(out, timelog.getTimeEnd());
+    writeString(out, timelog.getType());
+    writeString(out, timelog.getJobUid());
+    writeValue(out, timelog.getJob());
+  }
+
+  private Timelog readTimelog(DataInputStream in) throws IOException {
+    final Timelog timelog = new Timelog();
+    readCommon(in, timelog);
+    timelog.setDuration(readLong(in));
+    timelog.setTimeStart(readLong(in));
+    timelog.setTimeEnd(readLong(in));
+    timelog.setType(readString(in));
+    timelog.setJobUid(readString(in));
+    timelog.setJob((Job) readValue(in));
+    return timelog;
+  }
+
+  private void writePaymentLineItem(DataOutputStream out, PaymentLineItem paymentLineItem) throws IOException {
+    writeCommon(out, paymentLineItem);
+    writeString(out, paymentLineItem.getJobUid());
+    writeString(out, paymentLineItem.getTimelogUid());
+    writeDecimal(out, paymentLineItem.getAmount());
+    writeString(out, paymentLineItem.getStatus());
+    writeValue(out, paymentLineItem.getJob());
+    writeValue(out, paymentLineItem.getTimelog());
+  }
+
+  private PaymentLineItem readPaymentLineItem(DataInputStream in) throws IOException {
+    final PaymentLineItem paymentLineItem = new PaymentLineItem();
+    readCommon(in, paymentLineItem);
+    paymentLineItem.setJobUid(readString(in));
+    paymentLineItem.setTimelogUid(readString(in));
+    paymentLineItem.setAmount(readDecimal(in));
+    paymentLineItem.setStatus(readString(in));
+    paymentLineItem.setJob((Job) readValue(in));
+    paymentLineItem.setTimelog((Timelog) readValue(in));
+    return paymentLineItem;
+  }
+
+  private void writeCommon(DataOutputStream out, SCDEntity entity) throws IOException {
+    writeString(out, entity.getId());
+    writeLong(out, entity.getVersion() == null ? null : entity.getVersion().longValue());
+    writeString(out, entity.getUid());
+    writeLong(out, entity.getCreatedAt() == null ? null : entity.getCreatedAt().getTime());
+    writeLong(out, entity.getUpdatedAt() == null ? null : entity.getUpdatedAt().getTime());
+    out.writeByte(entity.getCurrent() == null ? 2 : entity.getCurrent() ? 1 : 0);
+  }
+
+  private void readCommon(DataInputStream in, SCDEntity entity) throws IOException {
+    entity.setId(readString(in));
+    final Long version = readLong(in);
+    entity.setVersion(version == null ? null : version.intValue());
+    entity.setUid(readString(in));
+    final Long createdAt = readLong(in);
+    entity.setCreatedAt(createdAt == null ? null : new Date(createdAt));
+    final Long updatedAt = readLong(in);
+    entity.setUpdatedAt(updatedAt == null ? null : new Date(updatedAt));
+    final byte current = in.readByte();
+    entity.setCurrent(current == 2 ? null : current == 1);
+  }
+
+  /**
+   * Nullable string: length + 1 as a varint (0 for null), then UTF-8 bytes
+   */
+  private void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      writeVarLong(out, 0);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarLong(out, bytes.length + 1L);
+    out.write(bytes);
+  }
+
+  private String readString(DataInputStream in) throws IOException {
+    final long length = readVarLong(in);
+    if (length == 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[(int) (length - 1)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Nullable long: a presence byte, then a zig-zag varint
+   */
+  private void writeLong(DataOutputStream out, Long value) throws IOException {
+    if (value == null) {
+      out.writeByte(0);
+      return;
+    }
+    out.writeByte(1);
+    writeVarLong(out, (value << 1) ^ (value >> 63));
+  }
+
+  private Long readLong(DataInputStream in) throws IOException {
+    if (in.readByte() == 0) {
+      return null;
+    }
+    final long encoded = readVarLong(in);
+    return (encoded >>> 1) ^ -(encoded & 1);
+  }
+
+  /**
+   * Nullable decimal: the scale as a nullable long, then the unscaled two's-complement bytes
+   */
+  private void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+    if (value == null) {
+      writeLong(out, null);
+      return;
+    }
+    writeLong(out, (long) value.scale());
+    final byte[] unscaled = value.unscaledValue().toByteArray();
+    writeVarLong(out, unscaled.length);
+    out.write(unscaled);
+  }
+
+  private BigDecimal readDecimal(DataInputStream in) throws IOException {
+    final Long scale = readLong(in);
+    if (scale == null) {
+      return null;
+    }
+    final byte[] unscaled = new byte[(int) readVarLong(in)];
+    in.readFully(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale.intValue());
+  }
+
+  private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  private static long readVarLong(DataInputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final byte b = in.readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+}
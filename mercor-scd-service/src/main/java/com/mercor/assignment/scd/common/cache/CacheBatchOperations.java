@@ -0,0 +1,291 @@
+package com.mercor.assignment.scd.common.cache;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Multi-key reads and writes against the caches used by {@code @Cacheable}
+ * Redis caches are served with a single MGET and a pipelined write-back so that a batch costs one round trip
+ * instead of one per key. Two-tier caches answer from their local tier first and only send the local misses to
+ * Redis. Cache failures degrade to misses so that batch reads fall through to the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheBatchOperations {
+
+  private final CacheManager cacheManager;
+  private final RedisConnectionFactory redisConnectionFactory;
+
+  /**
+   * Look up several keys of a cache at once
+   *
+   * @param cacheName the cache name
+   * @param keys the keys to look up
+   * @return the cached values of the keys that were hit
+   */
+  public Map<String, Object> getAll(String cacheName, List<String> keys) {
+    final Cache cache = cacheManager.getCache(cacheName);
+    if (cache == null || keys.isEmpty()) {
+      return Map.of();
+    }
+
+    try {
+      if (cache instanceof TwoTierCache twoTierCache) {
+        return twoTierGetAll(twoTierCache, keys);
+      }
+      if (cache instanceof RedisCache redisCache) {
+        return redisGetAll(redisCache, keys);
+      }
+
+      final Map<String, Object> hits = new HashMap<>();
+      for (String key : keys) {
+        final Cache.ValueWrapper wrapper = cache.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+          hits.put(key, wrapper.get());
+        }
+      }
+      return hits;
+    } catch (DataAccessException | IllegalStateException e) {
+      log.warn("Batch lookup on cache '{}' failed, treating {} keys as misses: {}", cacheName, keys.size(), e.getMessage());
+      return Map.of();
+    }
+  }
+
+  /**
+   * Store several entries in a cache at once
+   *
+   * @param cacheName the cache name
+   * @param entries the entries to store
+   */
+  public void putAll(String cacheName, Map<String, ?> entries) {
+    final Cache cache = cacheManager.getCache(cacheName);
+    if (cache == null || entries.isEmpty()) {
+      return;
+    }
+
+    try {
+      if (cache instanceof TwoTierCache twoTierCache) {
+        redisPutAll(twoTierCache.getRemote(), entries);
+        twoTierCache.putAllLocal(entries);
+      } else if (cache instanceof RedisCache redisCache) {
+        redisPutAll(redisCache, entries);
+      } else {
+        entries.forEach(cache::put);
+      }
+    } catch (DataAccessException | IllegalStateException e) {
+      log.warn("Batch write to cache '{}' failed for {} entries: {}", cacheName, entries.size(), e.getMessage());
+    }
+  }
+
+  /**
+   * Remove several keys from a cache at once
+   *
+   * @param cacheName the cache name
+   * @param keys the keys to remove
+   */
+  public void evictAll(String cacheName, Collection<String> keys) {
+    final Cache cache = cacheManager.getCache(cacheName);
+    if (cache == null || keys.isEmpty()) {
+      return;
+    }
+
+    try {
+      if (cache instanceof TwoTierCache twoTierCache) {
+        redisEvictAll(twoTierCache.getRemote(), keys);
+        twoTierCache.evictAllLocalAndBroadcast(keys);
+      } else if (cache instanceof RedisCache redisCache) {
+        redisEvictAll(redisCache, keys);
+      } else {
+        keys.forEach(cache::evict);
+      }
+    } catch (DataAccessException | IllegalStateException e) {
+      log.warn("Batch eviction from cache '{}' failed for {} keys: {}", cacheName, keys.size(), e.getMessage());
+    }
+  }
+
+  /**
+   * Remove keys from a cache once the current transaction commits
+   * Keys evicted during one transaction are collected per cache and removed with one {@link #evictAll} call each, so
+   * readers cannot re-cache the pre-commit value and a rolled-back write evicts nothing. Outside a transaction the
+   * keys are removed immediately.
+   *
+   * @param cacheName the cache name
+   * @param keys the keys to remove
+   */
+  public void evictAllAfterCommit(String cacheName, Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      evictAll(cacheName, keys);
+      return;
+    }
+    pendingInvalidations().evictions().computeIfAbsent(cacheName, name -> new LinkedHashSet<>()).addAll(keys);
+  }
+
+  /**
+   * Remove every entry of a cache once the current transaction commits
+   * For derived entries whose keys cannot be told from the written rows, e.g. aggregates over a time range. A
+   * rolled-back write clears nothing. Outside a transaction the cache is cleared immediately.
+   *
+   * @param cacheName the cache name
+   */
+  public void clearAfterCommit(String cacheName) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      clear(cacheName);
+      return;
+    }
+    pendingInvalidations().clears().add(cacheName);
+  }
+
+  private void clear(String cacheName) {
+    final Cache cache = cacheManager.getCache(cacheName);
+    if (cache == null) {
+      return;
+    }
+
+    try {
+      cache.clear();
+    } catch (DataAccessException | IllegalStateException e) {
+      log.warn("Clearing cache '{}' failed: {}", cacheName, e.getMessage());
+    }
+  }
+
+  /**
+   * Evictions and clears collected during one transaction
+   */
+  private record PendingInvalidations(Map<String, Set<String>> evictions, Set<String> clears) {
+  }
+
+  private PendingInvalidations pendingInvalidations() {
+    final PendingInvalidations bound = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+    if (bound != null) {
+      return bound;
+    }
+
+    final PendingInvalidations pending = new PendingInvalidations(new LinkedHashMap<>(), new LinkedHashSet<>());
+    TransactionSynchronizationManager.bindResource(this, pending);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        pending.clears().forEach(CacheBatchOperations.this::clear);
+        pending.evictions().forEach((cacheName, keys) -> {
+          if (!pending.clears().contains(cacheName)) {
+            evictAll(cacheName, keys);
+          }
+        });
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(CacheBatchOperations.this);
+      }
+    });
+    return pending;
+  }
+
+  private Map<String, Object> twoTierGetAll(TwoTierCache cache, List<String> keys) {
+    final Map<String, Object> hits = cache.getAllLocal(keys);
+    final List<String> misses = keys.stream()
+        .filter(key -> !hits.containsKey(key))
+        .toList();
+    if (misses.isEmpty()) {
+      return hits;
+    }
+
+    final Map<String, Object> remoteHits = redisGetAll(cache.getRemote(), misses);
+    cache.recordRemoteLookups(remoteHits.size(), misses.size() - remoteHits.size());
+    cache.putAllLocal(remoteHits);
+
+    hits.putAll(remoteHits);
+    return hits;
+  }
+
+  private Map<String, Object> redisGetAll(RedisCache cache, List<String> keys) {
+    final RedisCacheConfiguration config = cache.getCacheConfiguration();
+    final byte[][] rawKeys = keys.stream()
+        .map(key -> serializeKey(cache, key))
+        .toArray(byte[][]::new);
+
+    final List<byte[]> rawValues;
+    try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+      rawValues = connection.stringCommands().mGet(rawKeys);
+    }
+
+    final Map<String, Object> hits = new HashMap<>();
+    if (rawValues == null) {
+      return hits;
+    }
+    for (int i = 0; i < keys.size(); i++) {
+      final byte[] rawValue = rawValues.get(i);
+      if (rawValue == null) {
+        continue;
+      }
+      final Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(rawValue));
+      if (value != null && !(value instanceof NullValue)) {
+        hits.put(keys.get(i), value);
+      }
+    }
+    return hits;
+  }
+
+  private void redisPutAll(RedisCache cache, Map<String, ?> entries) {
+    final RedisCacheConfiguration config = cache.getCacheConfiguration();
+
+    try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+      connection.openPipeline();
+      try {
+        entries.forEach((key, value) -> {
+          final Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+          final Expiration expiration = ttl == null || ttl.isZero() || ttl.isNegative()
+              ? Expiration.persistent()
+              : Expiration.from(ttl);
+          final byte[] rawValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+
+          connection.stringCommands().set(serializeKey(cache, key), rawValue, expiration, SetOption.upsert());
+        });
+      } finally {
+        connection.closePipeline();
+      }
+    }
+  }
+
+  private void redisEvictAll(RedisCache cache, Collection<String> keys) {
+    final byte[][] rawKeys = keys.stream()
+        .map(key -> serializeKey(cache, key))
+        .toArray(byte[][]::new);
+    try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+      connection.keyCommands().del(rawKeys);
+    }
+  }
+
+  private byte[] serializeKey(RedisCache cache, String key) {
+    final RedisCacheConfiguration config = cache.getCacheConfiguration();
+    final String prefixedKey = config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) + key : key;
+    return ByteUtils.getBytes(config.getKeySerializationPair().write(prefixedKey));
+  }
+}
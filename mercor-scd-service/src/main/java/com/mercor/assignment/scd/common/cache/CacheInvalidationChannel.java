@@ -0,0 +1,91 @@
+package com.mercor.assignment.scd.common.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Redis pub/sub channel that keeps the in-process tier of every node consistent
+ * Evictions and clears of a {@link TwoTierCache} are published here and every other node drops its local copies.
+ * Messages have the form {@code <node>|<op>|<cache>|<keys>}, where op is E (evict) or C (clear) and keys are
+ * newline-separated. A lost message leaves a stale local entry until the local tier's write expiry.
+ */
+@Slf4j
+public class CacheInvalidationChannel implements MessageListener {
+
+  private static final String EVICT = "E";
+  private static final String CLEAR = "C";
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final StringRedisTemplate redisTemplate;
+  private final String channel;
+  private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+  public CacheInvalidationChannel(StringRedisTemplate redisTemplate, String channel) {
+    this.redisTemplate = redisTemplate;
+    this.channel = channel;
+  }
+
+  public String getChannel() {
+    return channel;
+  }
+
+  /**
+   * Route invalidations of the cache's name to it
+   */
+  void register(TwoTierCache cache) {
+    caches.put(cache.getName(), cache);
+  }
+
+  /**
+   * Tell the other nodes to drop the given keys from their local tier
+   */
+  void publishEvict(String cacheName, Collection<String> keys) {
+    if (!keys.isEmpty()) {
+      publish(EVICT, cacheName, String.join("\n", keys));
+    }
+  }
+
+  /**
+   * Tell the other nodes to drop every entry of the cache from their local tier
+   */
+  void publishClear(String cacheName) {
+    publish(CLEAR, cacheName, "");
+  }
+
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    final String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+    if (parts.length != 4 || nodeId.equals(parts[0])) {
+      return;
+    }
+
+    final TwoTierCache cache = caches.get(parts[2]);
+    if (cache == null) {
+      return;
+    }
+
+    if (CLEAR.equals(parts[1])) {
+      cache.clearLocal();
+    } else if (EVICT.equals(parts[1])) {
+      cache.evictAllLocal(List.of(parts[3].split("\n")));
+    }
+  }
+
+  private void publish(String op, String cacheName, String keys) {
+    try {
+      redisTemplate.convertAndSend(channel, nodeId + "|" + op + "|" + cacheName + "|" + keys);
+    } catch (DataAccessException e) {
+      log.warn("Failed to publish invalidation of cache '{}', other nodes keep local copies until expiry: {}",
+          cacheName, e.getMessage());
+    }
+  }
+}
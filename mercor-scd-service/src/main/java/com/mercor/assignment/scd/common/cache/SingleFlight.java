@@ -0,0 +1,105 @@
+package com.mercor.assignment.scd.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces concurrent loads of the same key into one
+ * The first caller for a key runs the loader; callers arriving while it is in flight wait for its result instead of
+ * repeating the query. A follower waits at most {@code scd.cache.single-flight.max-wait-ms} and then loads on its own,
+ * so a stuck leader degrades to uncoalesced loading rather than stalling every reader of the key.
+ */
+@Slf4j
+@Component
+public class SingleFlight {
+
+  private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final long maxWaitMillis;
+
+  public SingleFlight(MeterRegistry meterRegistry,
+      @Value("${scd.cache.single-flight.max-wait-ms:2000}") long maxWaitMillis) {
+    this.meterRegistry = meterRegistry;
+    this.maxWaitMillis = maxWaitMillis;
+  }
+
+  /**
+   * Load a value, sharing the result with concurrent callers for the same name and key
+   *
+   * @param name the kind of load, e.g. the cache it fills; used as a metric tag
+   * @param key the key being loaded
+   * @param loader the load to run if none is in flight
+   * @return the loaded value
+   */
+  @SuppressWarnings("unchecked")
+  public <V> V load(String name, String key, Supplier<V> loader) {
+    final String flightKey = name + '\u0000' + key;
+    final CompletableFuture<Object> own = new CompletableFuture<>();
+    final CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, own);
+
+    if (leader == null) {
+      counter(name, "leader").increment();
+      try {
+        final V value = loader.get();
+        own.complete(value);
+        return value;
+      } catch (RuntimeException | Error e) {
+        own.completeExceptionally(e);
+        throw e;
+      } finally {
+        inFlight.remove(flightKey, own);
+      }
+    }
+
+    counter(name, "coalesced").increment();
+    final long start = System.nanoTime();
+    try {
+      return (V) leader.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      counter(name, "timeout").increment();
+      log.debug("In-flight load of {} '{}' did not finish within {} ms, loading independently", name, key, maxWaitMillis);
+      return loader.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for in-flight load of " + name, e);
+    } finally {
+      waitTimer(name).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private Counter counter(String name, String outcome) {
+    return counters.computeIfAbsent(name + '\u0000' + outcome, ignored -> Counter.builder("scd.singleflight.requests")
+        .tag("name", name)
+        .tag("outcome", outcome)
+        .description("Loads by outcome: leader ran the load, coalesced waited for one, timeout gave up waiting")
+        .register(meterRegistry));
+  }
+
+  private Timer waitTimer(String name) {
+    return waitTimers.computeIfAbsent(name, ignored -> Timer.builder("scd.singleflight.wait")
+        .tag("name", name)
+        .description("Time coalesced callers spent waiting for the in-flight load")
+        .register(meterRegistry));
+  }
+}
@@ -0,0 +1,205 @@
+package com.mercor.assignment.scd.common.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+
+/**
+ * A Redis cache fronted by a size-bounded in-process Caffeine tier
+ * Reads try the local tier first and fill it from Redis on a local miss. Evictions and clears go to both tiers and
+ * are broadcast over {@link CacheInvalidationChannel} so other nodes drop their local copies too. Puts are not
+ * broadcast: they only happen on read misses, where every node would load the same current value.
+ * <p>
+ * The local tier hands out the cached instances themselves, so cached entities must be treated as read-only.
+ */
+public class TwoTierCache implements Cache {
+
+  private final RedisCache remote;
+  private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+  private final CacheInvalidationChannel invalidationChannel;
+
+  private final Counter localHits;
+  private final Counter localMisses;
+  private final Counter remoteHits;
+  private final Counter remoteMisses;
+
+  public TwoTierCache(RedisCache remote, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+      CacheInvalidationChannel invalidationChannel, MeterRegistry meterRegistry) {
+    this.remote = remote;
+    this.local = local;
+    this.invalidationChannel = invalidationChannel;
+
+    this.localHits = lookupCounter(meterRegistry, "local", "hit");
+    this.localMisses = lookupCounter(meterRegistry, "local", "miss");
+    this.remoteHits = lookupCounter(meterRegistry, "remote", "hit");
+    this.remoteMisses = lookupCounter(meterRegistry, "remote", "miss");
+  }
+
+  @Override
+  public String getName() {
+    return remote.getName();
+  }
+
+  @Override
+  public Object getNativeCache() {
+    return remote.getNativeCache();
+  }
+
+  public RedisCache getRemote() {
+    return remote;
+  }
+
+  @Override
+  public ValueWrapper get(Object key) {
+    final String localKey = localKey(key);
+    final Object value = local.getIfPresent(localKey);
+    if (value != null) {
+      localHits.increment();
+      return new SimpleValueWrapper(value);
+    }
+    localMisses.increment();
+
+    final ValueWrapper wrapper = remote.get(key);
+    if (wrapper == null || wrapper.get() == null) {
+      remoteMisses.increment();
+      return wrapper;
+    }
+    remoteHits.increment();
+    local.put(localKey, wrapper.get());
+    return wrapper;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Class<T> type) {
+    final ValueWrapper wrapper = get(key);
+    final Object value = wrapper != null ? wrapper.get() : null;
+    if (value != null && type != null && !type.isInstance(value)) {
+      throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+    }
+    return (T) value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    final ValueWrapper wrapper = get(key);
+    if (wrapper != null && wrapper.get() != null) {
+      return (T) wrapper.get();
+    }
+
+    final T value;
+    try {
+      value = valueLoader.call();
+    } catch (Exception e) {
+      throw new ValueRetrievalException(key, valueLoader, e);
+    }
+    put(key, value);
+    return value;
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    remote.put(key, value);
+    if (value != null) {
+      local.put(localKey(key), value);
+    }
+  }
+
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    final ValueWrapper existing = remote.putIfAbsent(key, value);
+    final Object current = existing != null ? existing.get() : value;
+    if (current != null) {
+      local.put(localKey(key), current);
+    }
+    return existing;
+  }
+
+  @Override
+  public void evict(Object key) {
+    remote.evict(key);
+    local.invalidate(localKey(key));
+    invalidationChannel.publishEvict(getName(), List.of(localKey(key)));
+  }
+
+  @Override
+  public boolean evictIfPresent(Object key) {
+    final boolean evicted = remote.evictIfPresent(key);
+    local.invalidate(localKey(key));
+    invalidationChannel.publishEvict(getName(), List.of(localKey(key)));
+    return evicted;
+  }
+
+  @Override
+  public void clear() {
+    remote.clear();
+    local.invalidateAll();
+    invalidationChannel.publishClear(getName());
+  }
+
+  /**
+   * Look up several keys in the local tier only
+   *
+   * @param keys the keys to look up
+   * @return the locally cached values of the keys that were hit
+   */
+  public Map<String, Object> getAllLocal(Collection<String> keys) {
+    final Map<String, Object> hits = new HashMap<>(local.getAllPresent(keys));
+    localHits.increment(hits.size());
+    localMisses.increment(keys.size() - hits.size());
+    return hits;
+  }
+
+  /**
+   * Store entries loaded from Redis or the database in the local tier only
+   */
+  public void putAllLocal(Map<String, ?> entries) {
+    local.putAll(entries);
+  }
+
+  /**
+   * Record the outcome of a batch lookup that bypassed {@link #get(Object)} on the Redis tier
+   */
+  public void recordRemoteLookups(int hits, int misses) {
+    remoteHits.increment(hits);
+    remoteMisses.increment(misses);
+  }
+
+  /**
+   * Drop keys from the local tier and tell the other nodes to do the same
+   * The caller is responsible for removing the keys from Redis
+   */
+  public void evictAllLocalAndBroadcast(Collection<String> keys) {
+    evictAllLocal(keys);
+    invalidationChannel.publishEvict(getName(), keys);
+  }
+
+  void evictAllLocal(Collection<String> keys) {
+    local.invalidateAll(keys);
+  }
+
+  void clearLocal() {
+    local.invalidateAll();
+  }
+
+  private String localKey(Object key) {
+    return String.valueOf(key);
+  }
+
+  private Counter lookupCounter(MeterRegistry meterRegistry, String tier, String result) {
+    return Counter.builder("cache.tier.gets")
+        .tag("cache", remote.getName())
+        .tag("tier", tier)
+        .tag("result", result)
+        .description("Lookups per cache tier; the hit ratio of a tier is hit / (hit + miss)")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,65 @@
+package com.mercor.assignment.scd.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+
+/**
+ * Cache manager that puts an in-process tier in front of selected Redis caches
+ * Caches named in {@code localCacheNames} are served as {@link TwoTierCache}; all others are the plain Redis caches.
+ * The local tier is a Caffeine cache, whose W-TinyLFU admission keeps the hottest keys under the size bound.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+  private final RedisCacheManager redisCacheManager;
+  private final Set<String> localCacheNames;
+  private final long localMaximumSize;
+  private final Duration localExpireAfterWrite;
+  private final CacheInvalidationChannel invalidationChannel;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+  public TwoTierCacheManager(RedisCacheManager redisCacheManager, Set<String> localCacheNames, long localMaximumSize,
+      Duration localExpireAfterWrite, CacheInvalidationChannel invalidationChannel, MeterRegistry meterRegistry) {
+    this.redisCacheManager = redisCacheManager;
+    this.localCacheNames = Set.copyOf(localCacheNames);
+    this.localMaximumSize = localMaximumSize;
+    this.localExpireAfterWrite = localExpireAfterWrite;
+    this.invalidationChannel = invalidationChannel;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public Cache getCache(String name) {
+    return caches.computeIfAbsent(name, this::createCache);
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return redisCacheManager.getCacheNames();
+  }
+
+  private Cache createCache(String name) {
+    final Cache remote = redisCacheManager.getCache(name);
+    if (!localCacheNames.contains(name) || !(remote instanceof RedisCache redisCache)) {
+      return remote;
+    }
+
+    final com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+        .maximumSize(localMaximumSize)
+        .expireAfterWrite(localExpireAfterWrite)
+        .build();
+
+    final TwoTierCache cache = new TwoTierCache(redisCache, local, invalidationChannel, meterRegistry);
+    invalidationChannel.register(cache);
+    return cache;
+  }
+}
@@ -5,15 +5,24 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mercor.assignment.scd.common.cache.BinaryEntityRedisSerializer;
+import com.mercor.assignment.scd.common.cache.CacheInvalidationChannel;
+import com.mercor.assignment.scd.common.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
@@ -23,15 +32,67 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @EnableCaching
 public class CacheConfiguration {
 
-  @Bean
-  RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+  @Value("${scd.cache.local.caches:job:latest,timelog:latest,payment_line_item:latest}")
+  private Set<String> localCacheNames;
+
+  @Value("${scd.cache.local.maximum-size:10000}")
+  private long localMaximumSize;
+
+  @Value("${scd.cache.local.expire-after-write-ms:60000}")
+  private long localExpireAfterWriteMs;
+
+  @Value("${scd.cache.invalidation-channel:scd:cache:invalidation}")
+  private String invalidationChannel;
+
+  @Value("${scd.cache.serialization.format:binary}")
+  private String serializationFormat;
+
+  @Value("${scd.cache.serialization.compression-threshold-bytes:1024}")
+  private int compressionThresholdBytes;
+
+  /**
+   * The default-typed JSON serializer; also the fallback of the binary serializer for values outside its schema
+   */
+  public static RedisSerializer<Object> jsonRedisSerializer() {
     final ObjectMapper objectMapper = new ObjectMapper();
     objectMapper.registerModule(new JavaTimeModule());
     objectMapper.enable(JsonGenerator.Feature.IGNORE_UNKNOWN);
     objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     objectMapper.activateDefaultTyping(objectMapper.getPolymorphicTypeValidator(), ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
 
-    final RedisSerializer<Object> serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    return new GenericJackson2JsonRedisSerializer(objectMapper);
+  }
+
+  @Bean
+  CacheInvalidationChannel cacheInvalidationChannel(StringRedisTemplate redisTemplate) {
+    return new CacheInvalidationChannel(redisTemplate, invalidationChannel);
+  }
+
+  @Bean
+  RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+      CacheInvalidationChannel cacheInvalidationChannel) {
+    final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(cacheInvalidationChannel, new ChannelTopic(cacheInvalidationChannel.getChannel()));
+    return container;
+  }
+
+  @Bean
+  TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+      CacheInvalidationChannel cacheInvalidationChannel, MeterRegistry meterRegistry) {
+    final RedisCacheManager redisCacheManager = redisCacheManager(connectionFactory);
+    redisCacheManager.afterPropertiesSet();
+
+    // Hot latest-version lookups are answered in-process; Redis stays the shared tier
+    return new TwoTierCacheManager(redisCacheManager, localCacheNames, localMaximumSize,
+        Duration.ofMillis(localExpireAfterWriteMs), cacheInvalidationChannel, meterRegistry);
+  }
+
+  private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    // "binary" still reads entries written as JSON, so the format can be switched without flushing Redis
+    final RedisSerializer<Object> serializer = "json".equalsIgnoreCase(serializationFormat)
+        ? jsonRedisSerializer()
+        : new BinaryEntityRedisSerializer(jsonRedisSerializer(), compressionThresholdBytes);
 
     final RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
         .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
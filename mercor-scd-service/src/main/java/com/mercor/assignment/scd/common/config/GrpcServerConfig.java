@@ -1,5 +1,6 @@
 package com.mercor.assignment.scd.common.config;
 
+import com.mercor.assignment.scd.common.grpc.GrpcServerMetrics;
 import com.mercor.assignment.scd.domain.TestServiceImpl;
 import com.mercor.assignment.scd.domain.core.service.grpc.SCDGrpcServiceImpl;
 import com.mercor.assignment.scd.domain.job.service.grpc.JobGrpcServiceImpl;
@@ -10,6 +11,8 @@ import io.grpc.ServerBuilder;
 import io.grpc.ServerInterceptor;
 import io.grpc.protobuf.services.ProtoReflectionServiceV1;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +32,9 @@ public class GrpcServerConfig {
   @Value("${grpc.server.port:50051}")
   private int grpcServerPort;
 
+  @Value("${grpc.server.executor-mode:VIRTUAL}")
+  private ExecutorMode executorMode;
+
   private final TestServiceImpl testService;
   private final SCDGrpcServiceImpl scdGrpcService;
   private final JobGrpcServiceImpl jobGrpcService;
@@ -36,6 +42,25 @@ public class GrpcServerConfig {
   private final PaymentLineItemGrpcServiceImpl paymentLineItemGrpcService;
   private final ServerInterceptor grpcExceptionInterceptor;
   private final ServerInterceptor grpcRateLimiterInterceptor;
+  private final ServerInterceptor grpcBulkheadInterceptor;
+  private final ServerInterceptor payloadFormatInterceptor;
+  private final ServerInterceptor idempotencyInterceptor;
+  private final ServerInterceptor grpcAdaptiveConcurrencyInterceptor;
+  private final GrpcServerMetrics grpcServerMetrics;
+
+  /**
+   * How gRPC handlers are executed
+   */
+  public enum ExecutorMode {
+    /**
+     * grpc-java's shared cached thread pool: one platform thread per concurrently running call
+     */
+    DEFAULT,
+    /**
+     * A new virtual thread per task, so calls blocked on JDBC or Redis do not hold a platform thread
+     */
+    VIRTUAL
+  }
 
   /**
    * Create a lifecycle-managed gRPC server bean
@@ -44,9 +69,10 @@ public class GrpcServerConfig {
    */
   @Bean
   public GrpcServerLifecycle grpcServerLifecycle() {
-    return new GrpcServerLifecycle(grpcServerPort,
+    return new GrpcServerLifecycle(grpcServerPort, executorMode,
         testService, scdGrpcService, jobGrpcService, timelogGrpcService, paymentLineItemGrpcService, grpcExceptionInterceptor,
-        grpcRateLimiterInterceptor);
+        grpcRateLimiterInterceptor, grpcBulkheadInterceptor, payloadFormatInterceptor, idempotencyInterceptor,
+        grpcAdaptiveConcurrencyInterceptor, grpcServerMetrics);
   }
 
   /**
@@ -55,6 +81,7 @@ public class GrpcServerConfig {
   public static class GrpcServerLifecycle implements SmartLifecycle {
 
     private final int port;
+    private final ExecutorMode executorMode;
     private final TestServiceImpl testService;
     private final SCDGrpcServiceImpl scdGrpcService;
     private final JobGrpcServiceImpl jobGrpcService;
@@ -62,21 +89,34 @@ public class GrpcServerConfig {
     private final PaymentLineItemGrpcServiceImpl paymentLineItemGrpcService;
     private final ServerInterceptor grpcExceptionInterceptor;
     private final ServerInterceptor grpcRateLimiterInterceptor;
+    private final ServerInterceptor grpcBulkheadInterceptor;
+    private final ServerInterceptor payloadFormatInterceptor;
+    private final ServerInterceptor idempotencyInterceptor;
+    private final ServerInterceptor grpcAdaptiveConcurrencyInterceptor;
+    private final GrpcServerMetrics grpcServerMetrics;
 
     private Server server;
+    private ExecutorService executor;
     private boolean running = false;
 
     public GrpcServerLifecycle(
         int port,
+        ExecutorMode executorMode,
         TestServiceImpl testService,
         SCDGrpcServiceImpl scdGrpcService,
         JobGrpcServiceImpl jobGrpcService,
         TimelogGrpcServiceImpl timelogGrpcService,
         PaymentLineItemGrpcServiceImpl paymentLineItemGrpcService,
         ServerInterceptor grpcExceptionInterceptor,
-        ServerInterceptor grpcRateLimiterInterceptor
+        ServerInterceptor grpcRateLimiterInterceptor,
+        ServerInterceptor grpcBulkheadInterceptor,
+        ServerInterceptor payloadFormatInterceptor,
+        ServerInterceptor idempotencyInterceptor,
+        ServerInterceptor grpcAdaptiveConcurrencyInterceptor,
+        GrpcServerMetrics grpcServerMetrics
     ) {
       this.port = port;
+      this.executorMode = executorMode;
       this.testService = testService;
       this.scdGrpcService = scdGrpcService;
       this.jobGrpcService = jobGrpcService;
@@ -84,19 +124,38 @@ public class GrpcServerConfig {
       this.paymentLineItemGrpcService = paymentLineItemGrpcService;
       this.grpcExceptionInterceptor = grpcExceptionInterceptor;
       this.grpcRateLimiterInterceptor = grpcRateLimiterInterceptor;
+      this.grpcBulkheadInterceptor = grpcBulkheadInterceptor;
+      this.payloadFormatInterceptor = payloadFormatInterceptor;
+      this.idempotencyInterceptor = idempotencyInterceptor;
+      this.grpcAdaptiveConcurrencyInterceptor = grpcAdaptiveConcurrencyInterceptor;
+      this.grpcServerMetrics = grpcServerMetrics;
     }
 
     @Override
     public void start() {
       try {
-        server = ServerBuilder.forPort(port)
+        ServerBuilder<?> builder = ServerBuilder.forPort(port);
+        if (executorMode == ExecutorMode.VIRTUAL) {
+          executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("grpc-vt-", 0).factory());
+          builder.executor(executor);
+        }
+
+        server = builder
+            // Latency, sizes and active calls are measured for every call, including ones rejected by interceptors
+            .addStreamTracerFactory(grpcServerMetrics)
             .addService(testService)
             .addService(scdGrpcService)
             .addService(jobGrpcService)
             .addService(timelogGrpcService)
             .addService(paymentLineItemGrpcService)
             .addService(ProtoReflectionServiceV1.newInstance())
-            // Order of interceptors is important - rate limiting should be first
+            // Order of interceptors is important - the last one added runs first, so rate limiting
+            // rejects calls before they wait on the bulkhead, replayed idempotent calls never take a permit,
+            // and the adaptive limit sheds load before the bulkhead queues it
+            .intercept(payloadFormatInterceptor)
+            .intercept(grpcBulkheadInterceptor)
+            .intercept(grpcAdaptiveConcurrencyInterceptor)
+            .intercept(idempotencyInterceptor)
             .intercept(grpcRateLimiterInterceptor)
             .intercept(grpcExceptionInterceptor)
             .build()
@@ -104,7 +163,8 @@ public class GrpcServerConfig {
 
         running = true;
 
-        log.info("gRPC Server started with rate limiting and exception handling, listening on port {}", port);
+        log.info("gRPC Server started with rate limiting, bulkhead and exception handling on {} executor, listening on port {}",
+            executorMode, port);
       } catch (IOException e) {
         throw new RuntimeException("Failed to start gRPC server", e);
       }
@@ -120,6 +180,10 @@ public class GrpcServerConfig {
           Thread.currentThread().interrupt();
           log.error("gRPC server shutdown interrupted");
         } finally {
+          if (executor != null) {
+            executor.shutdown();
+            executor = null;
+          }
           server = null;
           running = false;
         }
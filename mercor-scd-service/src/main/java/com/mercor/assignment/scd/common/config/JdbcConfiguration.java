@@ -0,0 +1,39 @@
+package com.mercor.assignment.scd.common.config;
+
+import com.mercor.assignment.scd.common.jdbc.CancellableStatementDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * JDBC settings that depend on the gRPC layer
+ */
+@Slf4j
+@Configuration
+public class JdbcConfiguration {
+
+  /**
+   * Wrap the pooled DataSource so statements follow the deadline and cancellation of the gRPC call they run for
+   * Spring Boot unwraps {@link org.springframework.jdbc.datasource.DelegatingDataSource}, so pool metrics and health
+   * checks still see the Hikari pool.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "scd.jdbc.cancel-with-grpc-call", havingValue = "true", matchIfMissing = true)
+  static BeanPostProcessor cancellableStatementDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof CancellableStatementDataSource)) {
+          log.info("Statements on DataSource '{}' follow gRPC deadlines and cancellation", beanName);
+          return new CancellableStatementDataSource(dataSource, meterRegistry.getObject());
+        }
+        return bean;
+      }
+    };
+  }
+}
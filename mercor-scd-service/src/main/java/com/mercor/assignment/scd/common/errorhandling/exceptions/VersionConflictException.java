@@ -0,0 +1,26 @@
+package com.mercor.assignment.scd.common.errorhandling.exceptions;
+
+/**
+ * Exception thrown when an update is based on a version that is no longer the latest one.
+ */
+public class VersionConflictException extends SCDException {
+
+  private static final String DEFAULT_ERROR_CODE = "VERSION_CONFLICT";
+
+  public VersionConflictException(String message) {
+    super(message, DEFAULT_ERROR_CODE);
+  }
+
+  /**
+   * Create a VersionConflictException for an update that expected another latest version
+   *
+   * @param id              The ID of the entity being updated
+   * @param expectedVersion The version the caller based its update on
+   * @param latestVersion   The version that is actually the latest
+   * @return A new VersionConflictException
+   */
+  public static VersionConflictException forVersion(String id, int expectedVersion, int latestVersion) {
+    return new VersionConflictException(String.format(
+        "Entity with ID '%s' is at version %d, not the expected version %d", id, latestVersion, expectedVersion));
+  }
+}
@@ -3,7 +3,9 @@ package com.mercor.assignment.scd.common.errorhandling.interceptor;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.SCDException;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
 import com.mercor.assignment.scd.common.errorhandling.metrics.GrpcErrorMetrics;
+import io.grpc.Context;
 import io.grpc.ForwardingServerCallListener;
 import io.grpc.Metadata;
 import io.grpc.ServerCall;
@@ -11,8 +13,8 @@ import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
-import io.micrometer.core.instrument.Timer;
 import java.util.UUID;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,13 +71,10 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
         // Add correlation ID to MDC for logging
         MDC.put("correlation_id", finalCorrelationId);
 
-        // Start timing the method call
-        Timer.Sample timerSample = metrics.startTimer(call.getMethodDescriptor().getFullMethodName());
-
         ServerCall.Listener<ReqT> listener = next.startCall(call, headers);
 
         return new ExceptionHandlingServerCallListener<>(
-                listener, call, finalCorrelationId, timerSample);
+                listener, call, finalCorrelationId);
     }
 
     private class ExceptionHandlingServerCallListener<ReqT, RespT>
@@ -83,17 +82,14 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
 
         private final ServerCall<ReqT, RespT> serverCall;
         private final String correlationId;
-        private final Timer.Sample timerSample;
 
         ExceptionHandlingServerCallListener(
                 ServerCall.Listener<ReqT> listener,
                 ServerCall<ReqT, RespT> serverCall,
-                String correlationId,
-                Timer.Sample timerSample) {
+                String correlationId) {
             super(listener);
             this.serverCall = serverCall;
             this.correlationId = correlationId;
-            this.timerSample = timerSample;
         }
 
         @Override
@@ -110,6 +106,10 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
                     message = formatValidationErrors(e);
                 }
                 handleException(e, Status.INVALID_ARGUMENT, message, e.getErrorCode());
+            } catch (VersionConflictException e) {
+                // Not a server error: the caller reads the latest version again and retries
+                logger.debug("Version conflict: {}", e.getMessage());
+                handleException(e, Status.ABORTED, e.getMessage(), e.getErrorCode());
             } catch (SCDException e) {
                 logError("Business logic exception", e);
                 handleException(e, Status.INVALID_ARGUMENT, "Invalid request: " + e.getMessage(), e.getErrorCode());
@@ -118,16 +118,22 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
                 logError("gRPC status error", e);
                 metrics.recordError(e.getStatus().getCode(), "STATUS_RUNTIME_EXCEPTION",
                         serverCall.getMethodDescriptor().getFullMethodName());
-                metrics.stopTimer(timerSample, serverCall.getMethodDescriptor().getFullMethodName(),
-                        e.getStatus().getCode());
                 serverCall.close(e.getStatus(), e.getTrailers() != null ? e.getTrailers() : new Metadata());
             } catch (IllegalArgumentException e) {
                 logError("Invalid argument", e);
                 handleException(e, Status.INVALID_ARGUMENT, "Invalid argument: " + e.getMessage(), "INVALID_ARGUMENT");
             } catch (Exception e) {
-                logError("Unexpected error in gRPC call", e);
-                // For unexpected errors, don't expose internal details
-                handleException(e, Status.INTERNAL, "An internal error occurred", "INTERNAL_ERROR");
+                if (Context.current().isCancelled()) {
+                    // The caller went away or ran out of time, and its running statement was cancelled
+                    Status status = Context.current().cancellationCause() instanceof TimeoutException
+                            ? Status.DEADLINE_EXCEEDED : Status.CANCELLED;
+                    logger.debug("gRPC call ended by the client: {}", e.getMessage());
+                    handleException(e, status, "Call ended before it completed", status.getCode().name());
+                } else {
+                    logError("Unexpected error in gRPC call", e);
+                    // For unexpected errors, don't expose internal details
+                    handleException(e, Status.INTERNAL, "An internal error occurred", "INTERNAL_ERROR");
+                }
             } finally {
                 MDC.remove("correlation_id");
             }
@@ -142,8 +148,6 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
                 logError("gRPC status error in onReady", e);
                 metrics.recordError(e.getStatus().getCode(), "STATUS_RUNTIME_EXCEPTION",
                         serverCall.getMethodDescriptor().getFullMethodName());
-                metrics.stopTimer(timerSample, serverCall.getMethodDescriptor().getFullMethodName(),
-                        e.getStatus().getCode());
                 serverCall.close(e.getStatus(), e.getTrailers() != null ? e.getTrailers() : new Metadata());
             } catch (Exception e) {
                 logError("Error in onReady", e);
@@ -155,8 +159,6 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
         public void onComplete() {
             try {
                 super.onComplete();
-                // Record successful completion
-                metrics.stopTimer(timerSample, serverCall.getMethodDescriptor().getFullMethodName(), Status.Code.OK);
             } catch (Exception e) {
                 logError("Error in onComplete", e);
             }
@@ -185,10 +187,6 @@ public class GrpcExceptionInterceptor implements ServerInterceptor {
             metrics.recordError(status.getCode(), errorCode,
                     serverCall.getMethodDescriptor().getFullMethodName());
 
-            // Record timing
-            metrics.stopTimer(timerSample, serverCall.getMethodDescriptor().getFullMethodName(),
-                    status.getCode());
-
             Metadata trailers = new Metadata();
 
             // Add correlation ID for tracing
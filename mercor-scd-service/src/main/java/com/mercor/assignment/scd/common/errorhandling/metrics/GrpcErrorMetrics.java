@@ -3,20 +3,17 @@ package com.mercor.assignment.scd.common.errorhandling.metrics;
 import io.grpc.Status;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
-import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.stereotype.Component;
 
 /**
- * Metrics collector for gRPC requests and errors.
- * Provides counters and timers for monitoring gRPC service performance and
- * error rates.
+ * Metrics collector for gRPC errors.
+ * Provides counters for monitoring gRPC error rates; latency and message sizes
+ * of every call are recorded by {@link com.mercor.assignment.scd.common.grpc.GrpcServerMetrics}.
  */
 @Component
 public class GrpcErrorMetrics {
 
     private final MeterRegistry meterRegistry;
-    private final ConcurrentHashMap<String, Timer> methodTimers = new ConcurrentHashMap<>();
 
     public GrpcErrorMetrics(MeterRegistry meterRegistry) {
         this.meterRegistry = meterRegistry;
@@ -38,49 +35,4 @@ public class GrpcErrorMetrics {
                 .register(meterRegistry)
                 .increment();
     }
-
-    /**
-     * Start timing a gRPC method call
-     * 
-     * @param fullMethodName The full name of the gRPC method being called
-     * @return A timer sample that can be used to stop the timer
-     */
-    public Timer.Sample startTimer(String fullMethodName) {
-        return Timer.start(meterRegistry);
-    }
-
-    /**
-     * Stop timing a gRPC method call and record the duration
-     * 
-     * @param sample         The timer sample from startTimer
-     * @param fullMethodName The full name of the gRPC method being called
-     * @param statusCode     The status code of the completed call
-     */
-    public void stopTimer(Timer.Sample sample, String fullMethodName, Status.Code statusCode) {
-        String timerKey = fullMethodName + "." + statusCode.name();
-        Timer timer = methodTimers.computeIfAbsent(timerKey, key -> Timer.builder("grpc.server.duration")
-                .tag("method", fullMethodName)
-                .tag("status", statusCode.name())
-                .description("Duration of gRPC method calls")
-                .register(meterRegistry));
-
-        sample.stop(timer);
-    }
-
-    /**
-     * Record the total size of a gRPC request and response
-     * 
-     * @param fullMethodName The full name of the gRPC method
-     * @param requestSize    The size of the request in bytes
-     * @param responseSize   The size of the response in bytes
-     */
-    public void recordMessageSizes(String fullMethodName, long requestSize, long responseSize) {
-        // Record request size
-        meterRegistry.summary("grpc.server.request.size", "method", fullMethodName)
-                .record(requestSize);
-
-        // Record response size
-        meterRegistry.summary("grpc.server.response.size", "method", fullMethodName)
-                .record(responseSize);
-    }
-}
\ No newline at end of file
+}
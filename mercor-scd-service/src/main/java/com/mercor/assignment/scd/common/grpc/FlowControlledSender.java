@@ -0,0 +1,63 @@
+package com.mercor.assignment.scd.common.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends server-streaming responses only while the transport can accept them
+ * The handler thread is parked while {@link ServerCallStreamObserver#isReady()} is false, so a slow reader
+ * applies back-pressure to the producer instead of having responses buffered on the heap.
+ * <p>
+ * Readiness is polled rather than signalled: gRPC delivers {@code onReady} callbacks on the same serialized
+ * executor that is running the (blocking) handler, so the callback cannot fire until the handler returns.
+ *
+ * @param <T> the response message type
+ */
+public class FlowControlledSender<T> {
+
+  private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+  private final ServerCallStreamObserver<T> observer;
+  private final long maxStallNanos;
+
+  public FlowControlledSender(StreamObserver<T> responseObserver, Duration maxStall) {
+    this.observer = (ServerCallStreamObserver<T>) responseObserver;
+    this.maxStallNanos = maxStall.toNanos();
+  }
+
+  /**
+   * Send one message, waiting for the transport to become ready
+   *
+   * @param message the response message
+   * @throws io.grpc.StatusRuntimeException CANCELLED if the client went away, or RESOURCE_EXHAUSTED if the client
+   *     has not consumed anything within the configured stall time
+   */
+  public void send(T message) {
+    awaitReady();
+    observer.onNext(message);
+  }
+
+  private void awaitReady() {
+    if (observer.isReady()) {
+      return;
+    }
+
+    final long deadline = System.nanoTime() + maxStallNanos;
+    long parkNanos = MIN_PARK_NANOS;
+    while (!observer.isReady()) {
+      if (observer.isCancelled()) {
+        throw Status.CANCELLED.withDescription("Client cancelled the stream").asRuntimeException();
+      }
+      if (System.nanoTime() - deadline > 0) {
+        throw Status.RESOURCE_EXHAUSTED.withDescription("Client stopped consuming the stream").asRuntimeException();
+      }
+      LockSupport.parkNanos(parkNanos);
+      parkNanos = Math.min(parkNanos * 2, MAX_PARK_NANOS);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.mercor.assignment.scd.common.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Latency, message size and concurrency metrics for every gRPC call, tagged by service, method and status
+ * Registered as a stream tracer rather than an interceptor: the transport reports the uncompressed size of each
+ * message as it frames or deframes it, so sizes are exact without re-serializing or wrapping marshallers, and calls
+ * rejected by interceptors (rate limiter, bulkhead) are measured too. Meters are resolved once per method and status
+ * and cached, so a call costs a few atomic updates.
+ * <p>
+ * Meters:
+ * <ul>
+ *   <li>{@code grpc.server.duration} - call latency as a percentile histogram with SLO buckets</li>
+ *   <li>{@code grpc.server.request.size} / {@code grpc.server.response.size} - bytes received and sent per call</li>
+ *   <li>{@code grpc.server.messages.received} / {@code grpc.server.messages.sent} - messages of streaming calls</li>
+ *   <li>{@code grpc.server.calls.active} - calls of a method currently running</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class GrpcServerMetrics extends ServerStreamTracer.Factory {
+
+  private static final String UNKNOWN = "unknown";
+
+  private final MeterRegistry meterRegistry;
+  private final Duration[] serviceLevelObjectives;
+  private final Map<String, MethodMeters> methodMeters = new ConcurrentHashMap<>();
+  private final MethodMeters unknownMethodMeters;
+
+  public GrpcServerMetrics(
+      MeterRegistry meterRegistry,
+      @Value("${grpc.server.metrics.slo-ms:5,10,25,50,100,250,500,1000,2500}") long[] sloMillis) {
+    this.meterRegistry = meterRegistry;
+    this.serviceLevelObjectives = Arrays.stream(sloMillis)
+        .sorted()
+        .mapToObj(Duration::ofMillis)
+        .toArray(Duration[]::new);
+    // Calls to methods the server does not have share one set of meters, so unknown names cannot grow the registry
+    this.unknownMethodMeters = new MethodMeters(UNKNOWN, UNKNOWN, false);
+    log.info("gRPC server latency SLO buckets: {} ms", Arrays.toString(sloMillis));
+  }
+
+  @Override
+  public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+    return new CallTracer();
+  }
+
+  private MethodMeters methodMeters(MethodDescriptor<?, ?> method) {
+    return methodMeters.computeIfAbsent(method.getFullMethodName(), name -> new MethodMeters(
+        method.getServiceName(), method.getBareMethodName(), method.getType() != MethodDescriptor.MethodType.UNARY));
+  }
+
+  /**
+   * Follows one call from the arrival of its headers until its stream closes
+   */
+  private final class CallTracer extends ServerStreamTracer {
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicInteger messagesReceived = new AtomicInteger();
+    private final AtomicInteger messagesSent = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile MethodMeters meters;
+
+    @Override
+    public void serverCallStarted(ServerCallInfo<?, ?> callInfo) {
+      final MethodMeters started = methodMeters(callInfo.getMethodDescriptor());
+      started.active.incrementAndGet();
+      meters = started;
+    }
+
+    @Override
+    public void inboundMessage(int seqNo) {
+      messagesReceived.incrementAndGet();
+    }
+
+    @Override
+    public void outboundMessage(int seqNo) {
+      messagesSent.incrementAndGet();
+    }
+
+    @Override
+    public void inboundUncompressedSize(long bytes) {
+      requestBytes.addAndGet(bytes);
+    }
+
+    @Override
+    public void outboundUncompressedSize(long bytes) {
+      responseBytes.addAndGet(bytes);
+    }
+
+    @Override
+    public void streamClosed(Status status) {
+      if (!closed.compareAndSet(false, true)) {
+        return;
+      }
+
+      final MethodMeters started = meters;
+      if (started != null) {
+        started.active.decrementAndGet();
+      }
+      final MethodMeters target = started != null ? started : unknownMethodMeters;
+      final StatusMeters statusMeters = target.forStatus(status.getCode());
+
+      statusMeters.duration.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+      statusMeters.requestSize.record(requestBytes.get());
+      statusMeters.responseSize.record(responseBytes.get());
+      if (target.streaming) {
+        statusMeters.messagesReceived.increment(messagesReceived.get());
+        statusMeters.messagesSent.increment(messagesSent.get());
+      }
+    }
+  }
+
+  /**
+   * The meters of one method
+   */
+  private final class MethodMeters {
+
+    private final String service;
+    private final String method;
+    private final boolean streaming;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<Status.Code, StatusMeters> byStatus = new ConcurrentHashMap<>();
+
+    MethodMeters(String service, String method, boolean streaming) {
+      this.service = service;
+      this.method = method;
+      this.streaming = streaming;
+
+      Gauge.builder("grpc.server.calls.active", active, AtomicInteger::get)
+          .description("gRPC calls of a method currently running")
+          .tag("service", service)
+          .tag("method", method)
+          .register(meterRegistry);
+    }
+
+    StatusMeters forStatus(Status.Code code) {
+      final StatusMeters cached = byStatus.get(code);
+      return cached != null ? cached : byStatus.computeIfAbsent(code, this::register);
+    }
+
+    private StatusMeters register(Status.Code code) {
+      final String status = code.name();
+      final Timer duration = Timer.builder("grpc.server.duration")
+          .description("Duration of gRPC calls")
+          .tag("service", service)
+          .tag("method", method)
+          .tag("status", status)
+          .publishPercentileHistogram()
+          .serviceLevelObjectives(serviceLevelObjectives)
+          .register(meterRegistry);
+      final DistributionSummary requestSize = DistributionSummary.builder("grpc.server.request.size")
+          .description("Uncompressed bytes received per gRPC call")
+          .baseUnit("bytes")
+          .tag("service", service)
+          .tag("method", method)
+          .tag("status", status)
+          .register(meterRegistry);
+      final DistributionSummary responseSize = DistributionSummary.builder("grpc.server.response.size")
+          .description("Uncompressed bytes sent per gRPC call")
+          .baseUnit("bytes")
+          .tag("service", service)
+          .tag("method", method)
+          .tag("status", status)
+          .register(meterRegistry);
+
+      Counter messagesReceived = null;
+      Counter messagesSent = null;
+      if (streaming) {
+        messagesReceived = Counter.builder("grpc.server.messages.received")
+            .description("Messages received by streaming gRPC calls")
+            .tag("service", service)
+            .tag("method", method)
+            .tag("status", status)
+            .register(meterRegistry);
+        messagesSent = Counter.builder("grpc.server.messages.sent")
+            .description("Messages sent by streaming gRPC calls")
+            .tag("service", service)
+            .tag("method", method)
+            .tag("status", status)
+            .register(meterRegistry);
+      }
+      return new StatusMeters(duration, requestSize, responseSize, messagesReceived, messagesSent);
+    }
+  }
+
+  /**
+   * The meters of one method and status; message counters only exist for streaming methods
+   */
+  private record StatusMeters(Timer duration, DistributionSummary requestSize, DistributionSummary responseSize,
+      Counter messagesReceived, Counter messagesSent) {
+  }
+}
@@ -0,0 +1,52 @@
+package com.mercor.assignment.scd.common.grpc;
+
+import io.grpc.Context;
+import io.grpc.Metadata;
+import java.util.Locale;
+
+/**
+ * How the entity-specific fields of a {@code common.Entity} are encoded in responses
+ * The format of the current call is carried in the gRPC {@link Context}, set by {@link PayloadFormatInterceptor} from
+ * the {@value #HEADER_NAME} request header or the server default.
+ */
+public enum PayloadFormat {
+  /**
+   * The typed {@code job}, {@code timelog} or {@code payment_line_item} field of the payload oneof
+   */
+  TYPED,
+  /**
+   * JSON in the {@code data} bytes field, as sent before typed payloads existed
+   */
+  JSON;
+
+  public static final String HEADER_NAME = "scd-payload-format";
+
+  public static final Metadata.Key<String> HEADER = Metadata.Key.of(HEADER_NAME, Metadata.ASCII_STRING_MARSHALLER);
+
+  public static final Context.Key<PayloadFormat> CONTEXT_KEY = Context.keyWithDefault(HEADER_NAME, TYPED);
+
+  /**
+   * @return the payload format requested for the call being handled, {@link #TYPED} outside a call
+   */
+  public static PayloadFormat current() {
+    return CONTEXT_KEY.get();
+  }
+
+  /**
+   * Parse a header or configuration value
+   *
+   * @param value "typed" or "json", case-insensitive
+   * @param fallback returned when the value is missing or not recognised
+   * @return the parsed format
+   */
+  public static PayloadFormat parse(String value, PayloadFormat fallback) {
+    if (value == null) {
+      return fallback;
+    }
+    return switch (value.trim().toLowerCase(Locale.ROOT)) {
+      case "typed" -> TYPED;
+      case "json" -> JSON;
+      default -> fallback;
+    };
+  }
+}
@@ -0,0 +1,43 @@
+package com.mercor.assignment.scd.common.grpc;
+
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the {@link PayloadFormat} of each call and exposes it through the gRPC {@link Context}
+ * Callers choose with the {@value PayloadFormat#HEADER_NAME} header; calls without it get
+ * {@code scd.grpc.payload-format}, which can be set to {@code json} while clients that only read {@code data} are
+ * still deployed.
+ */
+@Slf4j
+@Component
+public class PayloadFormatInterceptor implements ServerInterceptor {
+
+  private final PayloadFormat defaultFormat;
+
+  public PayloadFormatInterceptor(@Value("${scd.grpc.payload-format:typed}") String defaultFormat) {
+    this.defaultFormat = PayloadFormat.parse(defaultFormat, PayloadFormat.TYPED);
+    log.info("Default entity payload format is {}", this.defaultFormat);
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      ServerCall<ReqT, RespT> call,
+      Metadata headers,
+      ServerCallHandler<ReqT, RespT> next) {
+
+    final PayloadFormat format = PayloadFormat.parse(headers.get(PayloadFormat.HEADER), defaultFormat);
+    if (format == PayloadFormat.TYPED) {
+      // TYPED is the context key's default, so the common case needs no forked context
+      return next.startCall(call, headers);
+    }
+    return Contexts.interceptCall(Context.current().withValue(PayloadFormat.CONTEXT_KEY, format), call, headers, next);
+  }
+}
@@ -0,0 +1,264 @@
+package com.mercor.assignment.scd.common.idempotency;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.mercor.assignment.scd.domain.core.SCDServiceGrpc;
+import com.mercor.assignment.scd.domain.job.JobServiceGrpc;
+import com.mercor.assignment.scd.domain.paymentlineitems.PaymentLineItemServiceGrpc;
+import com.mercor.assignment.scd.domain.timelog.TimelogServiceGrpc;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes retried write calls safe by replaying the response of the first successful attempt
+ * Callers opt in per call with the {@value #HEADER_NAME} header on the unary methods that create SCD versions. The
+ * first call with a key runs normally and its response is kept in the {@link IdempotencyStore}; a retry with the same
+ * key and request gets that response back without reaching the service, the database or the caches, and carries
+ * the {@value #REPLAYED_HEADER_NAME} response header. A retry that arrives while the first call is still running is
+ * rejected with ABORTED, and a key reused for a different request with FAILED_PRECONDITION.
+ */
+@Slf4j
+@Component
+public class IdempotencyInterceptor implements ServerInterceptor {
+
+  public static final String HEADER_NAME = "idempotency-key";
+  public static final String REPLAYED_HEADER_NAME = "idempotent-replayed";
+
+  public static final Metadata.Key<String> HEADER = Metadata.Key.of(HEADER_NAME, Metadata.ASCII_STRING_MARSHALLER);
+  public static final Metadata.Key<String> REPLAYED_HEADER =
+      Metadata.Key.of(REPLAYED_HEADER_NAME, Metadata.ASCII_STRING_MARSHALLER);
+
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private static final Set<String> IDEMPOTENT_METHODS = Set.of(
+      SCDServiceGrpc.getUpdateMethod().getFullMethodName(),
+      SCDServiceGrpc.getBatchUpdateMethod().getFullMethodName(),
+      JobServiceGrpc.getUpdateStatusMethod().getFullMethodName(),
+      JobServiceGrpc.getUpdateRateMethod().getFullMethodName(),
+      TimelogServiceGrpc.getAdjustTimelogMethod().getFullMethodName(),
+      PaymentLineItemServiceGrpc.getMarkAsPaidMethod().getFullMethodName());
+
+  private final IdempotencyStore store;
+  private final Map<IdempotencyStore.Outcome, Counter> outcomeCounters = new EnumMap<>(IdempotencyStore.Outcome.class);
+
+  public IdempotencyInterceptor(IdempotencyStore store, MeterRegistry meterRegistry) {
+    this.store = store;
+    for (IdempotencyStore.Outcome outcome : IdempotencyStore.Outcome.values()) {
+      outcomeCounters.put(outcome, Counter.builder("scd.idempotency.requests")
+          .description("Calls carrying an idempotency key, by what was done with the key")
+          .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry));
+    }
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+      ServerCall<ReqT, RespT> call,
+      Metadata headers,
+      ServerCallHandler<ReqT, RespT> next) {
+
+    final String idempotencyKey = headers.get(HEADER);
+    final MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+    if (idempotencyKey == null || !IDEMPOTENT_METHODS.contains(method.getFullMethodName())) {
+      return next.startCall(call, headers);
+    }
+
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      call.close(Status.INVALID_ARGUMENT
+              .withDescription(HEADER_NAME + " must be between 1 and " + MAX_KEY_LENGTH + " characters"),
+          new Metadata());
+      return new ServerCall.Listener<>() {};
+    }
+
+    // The handler is only started once the request has been checked against the store, so ask for it here
+    call.request(1);
+    return new IdempotentCallListener<>(call, headers, next, method.getFullMethodName() + "|" + idempotencyKey);
+  }
+
+  /**
+   * Holds the call back until its request is known, then replays, rejects or runs it
+   */
+  private final class IdempotentCallListener<ReqT, RespT> extends ServerCall.Listener<ReqT> {
+
+    private final ServerCall<ReqT, RespT> call;
+    private final Metadata headers;
+    private final ServerCallHandler<ReqT, RespT> next;
+    private final String key;
+
+    private ServerCall.Listener<ReqT> delegate;
+    private RecordingCall<ReqT, RespT> recordingCall;
+
+    IdempotentCallListener(ServerCall<ReqT, RespT> call, Metadata headers, ServerCallHandler<ReqT, RespT> next,
+        String key) {
+      this.call = call;
+      this.headers = headers;
+      this.next = next;
+      this.key = key;
+    }
+
+    @Override
+    public void onMessage(ReqT request) {
+      if (delegate != null) {
+        delegate.onMessage(request);
+        return;
+      }
+
+      final MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+      final byte[] fingerprint = IdempotencyStore.fingerprint(serializeRequest(method, request));
+      final IdempotencyStore.Claim claim = store.claim(key, fingerprint);
+      outcomeCounters.get(claim.outcome()).increment();
+
+      switch (claim.outcome()) {
+        case ACQUIRED -> {
+          recordingCall = new RecordingCall<>(call, key, fingerprint);
+          delegate = next.startCall(recordingCall, headers);
+          delegate.onMessage(request);
+        }
+        case REPLAY -> replay(method, claim.response());
+        case IN_PROGRESS -> call.close(Status.ABORTED
+                .withDescription("A call with this " + HEADER_NAME + " is still in progress, retry later"),
+            new Metadata());
+        case CONFLICT -> call.close(Status.FAILED_PRECONDITION
+                .withDescription(HEADER_NAME + " was already used for a different request"),
+            new Metadata());
+      }
+    }
+
+    @Override
+    public void onHalfClose() {
+      if (delegate != null) {
+        delegate.onHalfClose();
+      }
+    }
+
+    @Override
+    public void onCancel() {
+      if (delegate != null) {
+        try {
+          delegate.onCancel();
+        } finally {
+          recordingCall.releaseIfUnfinished();
+        }
+      }
+    }
+
+    @Override
+    public void onComplete() {
+      if (delegate != null) {
+        try {
+          delegate.onComplete();
+        } finally {
+          // Covers calls closed by an outer interceptor, e.g. after the handler threw
+          recordingCall.releaseIfUnfinished();
+        }
+      }
+    }
+
+    @Override
+    public void onReady() {
+      if (delegate != null) {
+        delegate.onReady();
+      }
+    }
+
+    private void replay(MethodDescriptor<ReqT, RespT> method, byte[] response) {
+      log.debug("Replaying response of {} for a retried idempotency key", method.getFullMethodName());
+      final Metadata responseHeaders = new Metadata();
+      responseHeaders.put(REPLAYED_HEADER, "true");
+      call.sendHeaders(responseHeaders);
+      call.sendMessage(method.parseResponse(new ByteArrayInputStream(response)));
+      call.close(Status.OK, new Metadata());
+    }
+  }
+
+  /**
+   * Captures the response of a call that holds a key, and stores or releases the key when the call closes
+   */
+  private final class RecordingCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+    private final String key;
+    private final byte[] fingerprint;
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private RespT response;
+
+    RecordingCall(ServerCall<ReqT, RespT> delegate, String key, byte[] fingerprint) {
+      super(delegate);
+      this.key = key;
+      this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public void sendMessage(RespT message) {
+      response = message;
+      super.sendMessage(message);
+    }
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      if (finished.compareAndSet(false, true)) {
+        if (status.isOk() && response != null) {
+          store.complete(key, fingerprint, serialize(getMethodDescriptor().streamResponse(response)));
+        } else {
+          store.release(key);
+        }
+      }
+      super.close(status, trailers);
+    }
+
+    void releaseIfUnfinished() {
+      if (finished.compareAndSet(false, true)) {
+        store.release(key);
+      }
+    }
+  }
+
+  /**
+   * Serialize a request for fingerprinting
+   * Protobuf messages are written deterministically, with map entries sorted, since clients such as Go marshal maps
+   * in random order and a retry must still match.
+   */
+  private static <ReqT> byte[] serializeRequest(MethodDescriptor<ReqT, ?> method, ReqT request) {
+    if (!(request instanceof MessageLite message)) {
+      return serialize(method.streamRequest(request));
+    }
+
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream(message.getSerializedSize());
+      final CodedOutputStream coded = CodedOutputStream.newInstance(out);
+      coded.useDeterministicSerialization();
+      message.writeTo(coded);
+      coded.flush();
+      return out.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error serializing request for idempotency check", e);
+    }
+  }
+
+  private static byte[] serialize(InputStream stream) {
+    try (stream) {
+      return stream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error serializing message for idempotency check", e);
+    }
+  }
+}
@@ -0,0 +1,233 @@
+package com.mercor.assignment.scd.common.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the outcome of write calls by idempotency key, in a size-bounded Caffeine tier in front of Redis
+ * A call first claims its key with a short-lived in-progress marker (SET NX in Redis, so only one node can win it).
+ * When the call succeeds the marker is replaced by the serialized response, which retries carrying the same key get
+ * back until the entry expires. A failed call releases its claim so the retry can run for real.
+ * <p>
+ * Every entry also holds a SHA-256 fingerprint of the request, so a key reused for a different request is reported
+ * as a conflict instead of replaying an unrelated response. Redis values are {@code <state><fingerprint><response>},
+ * with state 0 for in progress and 1 for completed. If Redis is unavailable the local tier alone deduplicates
+ * retries that reach the same node.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+  private static final String KEY_PREFIX = "scd:idempotency:";
+  private static final byte IN_PROGRESS = 0;
+  private static final byte COMPLETED = 1;
+  private static final int FINGERPRINT_LENGTH = 32;
+
+  /**
+   * What a call should do with its idempotency key
+   */
+  public enum Outcome {
+    /**
+     * The key is now held by this call, which must run and then {@link #complete} or {@link #release} it
+     */
+    ACQUIRED,
+    /**
+     * An earlier call with the same key and request succeeded; its response is in {@link Claim#response()}
+     */
+    REPLAY,
+    /**
+     * An earlier call with the same key has not finished yet
+     */
+    IN_PROGRESS,
+    /**
+     * The key was already used for a different request
+     */
+    CONFLICT
+  }
+
+  public record Claim(Outcome outcome, byte[] response) {
+
+    static final Claim ACQUIRED = new Claim(Outcome.ACQUIRED, null);
+    static final Claim IN_PROGRESS = new Claim(Outcome.IN_PROGRESS, null);
+    static final Claim CONFLICT = new Claim(Outcome.CONFLICT, null);
+  }
+
+  /**
+   * @param response the serialized response, null while the call is in progress
+   */
+  private record Entry(byte[] fingerprint, byte[] response) {
+
+    boolean completed() {
+      return response != null;
+    }
+  }
+
+  private final RedisConnectionFactory redisConnectionFactory;
+  private final Duration ttl;
+  private final Duration inProgressTtl;
+  private final Cache<String, Entry> local;
+
+  public IdempotencyStore(
+      RedisConnectionFactory redisConnectionFactory,
+      @Value("${scd.idempotency.ttl-ms:86400000}") long ttlMillis,
+      @Value("${scd.idempotency.in-progress-ttl-ms:60000}") long inProgressTtlMillis,
+      @Value("${scd.idempotency.local.maximum-size:10000}") long localMaximumSize) {
+    this.redisConnectionFactory = redisConnectionFactory;
+    this.ttl = Duration.ofMillis(ttlMillis);
+    this.inProgressTtl = Duration.ofMillis(inProgressTtlMillis);
+
+    // In-progress markers expire quickly so a crashed call does not block its key for the whole TTL
+    this.local = Caffeine.newBuilder()
+        .maximumSize(localMaximumSize)
+        .expireAfter(new Expiry<String, Entry>() {
+          @Override
+          public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return lifetime(entry).toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return lifetime(entry).toNanos();
+          }
+
+          @Override
+          public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+  }
+
+  /**
+   * SHA-256 of a serialized request, used to tell a retry from a different request under the same key
+   */
+  public static byte[] fingerprint(byte[] request) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(request);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Claim a key for a call, or find out how an earlier call with the same key went
+   *
+   * @param key the idempotency key, scoped to the called method
+   * @param fingerprint the {@link #fingerprint} of the request
+   * @return the claim; only {@link Outcome#ACQUIRED} lets the call run
+   */
+  public Claim claim(String key, byte[] fingerprint) {
+    final Entry pending = new Entry(fingerprint, null);
+    final Entry existing = local.asMap().putIfAbsent(key, pending);
+    if (existing != null) {
+      return resolve(existing, fingerprint);
+    }
+
+    try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+      final byte[] redisKey = redisKey(key);
+      // A second attempt covers the entry expiring between the failed SET NX and the GET
+      for (int attempt = 0; attempt < 2; attempt++) {
+        final Boolean set = connection.stringCommands()
+            .set(redisKey, encode(pending), Expiration.from(inProgressTtl), SetOption.SET_IF_ABSENT);
+        if (Boolean.TRUE.equals(set)) {
+          return Claim.ACQUIRED;
+        }
+
+        final byte[] raw = connection.stringCommands().get(redisKey);
+        if (raw != null) {
+          final Entry stored = decode(raw);
+          if (stored.completed()) {
+            local.put(key, stored);
+          } else {
+            local.asMap().remove(key, pending);
+          }
+          return resolve(stored, fingerprint);
+        }
+      }
+      local.asMap().remove(key, pending);
+      return Claim.IN_PROGRESS;
+    } catch (DataAccessException e) {
+      log.warn("Idempotency key lookup in Redis failed, deduplicating on this node only: {}", e.getMessage());
+      return Claim.ACQUIRED;
+    }
+  }
+
+  /**
+   * Record the response of a call that succeeded, for retries to replay
+   */
+  public void complete(String key, byte[] fingerprint, byte[] response) {
+    final Entry entry = new Entry(fingerprint, response);
+    local.put(key, entry);
+
+    try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+      connection.stringCommands().set(redisKey(key), encode(entry), Expiration.from(ttl), SetOption.UPSERT);
+    } catch (DataAccessException e) {
+      log.warn("Failed to store idempotent response in Redis, retries on other nodes will run again: {}",
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Give up a claim after the call failed, so a retry runs again
+   */
+  public void release(String key) {
+    local.invalidate(key);
+
+    try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+      connection.keyCommands().del(redisKey(key));
+    } catch (DataAccessException e) {
+      log.warn("Failed to release idempotency key in Redis, it stays claimed until it expires: {}", e.getMessage());
+    }
+  }
+
+  private static Claim resolve(Entry entry, byte[] fingerprint) {
+    if (!MessageDigest.isEqual(entry.fingerprint(), fingerprint)) {
+      return Claim.CONFLICT;
+    }
+    return entry.completed() ? new Claim(Outcome.REPLAY, entry.response()) : Claim.IN_PROGRESS;
+  }
+
+  private Duration lifetime(Entry entry) {
+    return entry.completed() ? ttl : inProgressTtl;
+  }
+
+  private static byte[] redisKey(String key) {
+    return (KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] encode(Entry entry) {
+    final byte[] response = entry.completed() ? entry.response() : new byte[0];
+    return ByteBuffer.allocate(1 + FINGERPRINT_LENGTH + response.length)
+        .put(entry.completed() ? COMPLETED : IN_PROGRESS)
+        .put(entry.fingerprint())
+        .put(response)
+        .array();
+  }
+
+  private static Entry decode(byte[] raw) {
+    final ByteBuffer buffer = ByteBuffer.wrap(raw);
+    final byte state = buffer.get();
+    final byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+    buffer.get(fingerprint);
+    if (state != COMPLETED) {
+      return new Entry(fingerprint, null);
+    }
+    final byte[] response = new byte[buffer.remaining()];
+    buffer.get(response);
+    return new Entry(fingerprint, response);
+  }
+}
@@ -0,0 +1,196 @@
+package com.mercor.assignment.scd.common.jdbc;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Ties every JDBC statement executed on behalf of a gRPC call to that call's deadline and cancellation
+ * Before a statement runs, the time left until the gRPC {@link Context} deadline becomes its query timeout, and a
+ * cancellation listener is registered that calls {@link Statement#cancel()}. When the client cancels or its deadline
+ * expires the running query is aborted in the database and the pooled connection is freed straight away, instead of
+ * after the query completes for nobody.
+ * <p>
+ * Cancelling a statement is a network call of its own, so it runs on a virtual thread rather than on the thread that
+ * cancels the call, which for expired deadlines is the shared gRPC deadline timer.
+ * <p>
+ * Statements executed outside a gRPC call (Liquibase, scheduled work) run on {@link Context#ROOT} and are not touched.
+ */
+@Slf4j
+public class CancellableStatementDataSource extends DelegatingDataSource {
+
+  private static final Set<String> EXECUTE_METHODS = Set.of(
+      "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+  private final Counter cancelledCounter;
+  private final Counter expiredCounter;
+  private final Executor cancelExecutor =
+      Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scd-jdbc-cancel-", 0).factory());
+
+  public CancellableStatementDataSource(DataSource targetDataSource, MeterRegistry meterRegistry) {
+    super(targetDataSource);
+    this.cancelledCounter = Counter.builder("scd.jdbc.statements.cancelled")
+        .description("Running statements cancelled because their gRPC call was cancelled or timed out")
+        .register(meterRegistry);
+    this.expiredCounter = Counter.builder("scd.jdbc.statements.expired")
+        .description("Statements not executed because their gRPC call's deadline had already passed")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(super.getConnection(username, password));
+  }
+
+  private Connection wrap(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(CancellableStatementDataSource.class.getClassLoader(),
+        new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+  }
+
+  /**
+   * Wraps the statements a connection creates
+   */
+  private class ConnectionHandler implements InvocationHandler {
+
+    private final Connection target;
+
+    ConnectionHandler(Connection target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (isIdentityMethod(method)) {
+        return invokeIdentity(proxy, method, args);
+      }
+      final Object result = invokeTarget(target, method, args);
+      if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+        return Proxy.newProxyInstance(CancellableStatementDataSource.class.getClassLoader(),
+            new Class<?>[]{method.getReturnType()}, new StatementHandler(statement));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Applies the call's deadline and cancellation around each execute method
+   */
+  private class StatementHandler implements InvocationHandler {
+
+    private final Statement target;
+
+    StatementHandler(Statement target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (isIdentityMethod(method)) {
+        return invokeIdentity(proxy, method, args);
+      }
+      final Context context = Context.current();
+      if (context == Context.ROOT || !EXECUTE_METHODS.contains(method.getName())) {
+        return invokeTarget(target, method, args);
+      }
+
+      final int previousTimeout = applyDeadline(context.getDeadline());
+      if (context.isCancelled()) {
+        throw new SQLException("gRPC call was cancelled before the statement was executed", "57014");
+      }
+
+      // A cancel that only gets to run after the statement finished must not hit the connection's next statement
+      final AtomicBoolean executing = new AtomicBoolean(true);
+      final Context.CancellationListener listener = cancelled -> {
+        if (executing.get()) {
+          cancel();
+        }
+      };
+      context.addListener(listener, cancelExecutor);
+      try {
+        return invokeTarget(target, method, args);
+      } finally {
+        executing.set(false);
+        context.removeListener(listener);
+        if (previousTimeout >= 0) {
+          target.setQueryTimeout(previousTimeout);
+        }
+      }
+    }
+
+    /**
+     * Lower the statement's query timeout to the time left before the deadline
+     *
+     * @return the timeout to restore afterwards, or -1 if it was left unchanged
+     */
+    private int applyDeadline(Deadline deadline) throws SQLException {
+      if (deadline == null) {
+        return -1;
+      }
+
+      final long remainingMillis = deadline.timeRemaining(TimeUnit.MILLISECONDS);
+      if (remainingMillis <= 0) {
+        expiredCounter.increment();
+        throw new SQLTimeoutException("gRPC deadline expired before the statement was executed", "57014");
+      }
+
+      // JDBC timeouts are whole seconds; the cancellation listener fires at the exact deadline anyway
+      final int seconds = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (remainingMillis + 999) / 1000));
+      final int previousTimeout = target.getQueryTimeout();
+      if (previousTimeout > 0 && previousTimeout <= seconds) {
+        return -1;
+      }
+      target.setQueryTimeout(seconds);
+      return previousTimeout;
+    }
+
+    private void cancel() {
+      try {
+        target.cancel();
+        cancelledCounter.increment();
+        log.debug("Cancelled running statement of a cancelled or expired gRPC call");
+      } catch (SQLException e) {
+        log.debug("Could not cancel running statement: {}", e.getMessage());
+      }
+    }
+  }
+
+  private static boolean isIdentityMethod(Method method) {
+    return method.getDeclaringClass() == Object.class
+        && ("equals".equals(method.getName()) || "hashCode".equals(method.getName()));
+  }
+
+  private static Object invokeIdentity(Object proxy, Method method, Object[] args) {
+    // Proxies are compared by identity, like the pooled objects they wrap
+    return "equals".equals(method.getName()) ? proxy == args[0] : System.identityHashCode(proxy);
+  }
+
+  private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
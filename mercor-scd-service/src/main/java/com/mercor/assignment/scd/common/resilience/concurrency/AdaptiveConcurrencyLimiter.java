@@ -0,0 +1,146 @@
+package com.mercor.assignment.scd.common.resilience.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * A concurrency limit that follows the service's measured latency instead of a fixed number
+ * The limit is adjusted with a gradient algorithm in the style of TCP Vegas: a slow-moving average of call latency
+ * is the no-load baseline, and each completed call compares its latency with it. While calls are as fast as the
+ * baseline the limit grows by a small queue allowance; when they slow down, i.e. requests are queueing somewhere, it
+ * shrinks in proportion. Connection pool waiters are a direct queueing signal, so while any thread waits for a
+ * database connection the limit backs off regardless of latency.
+ * <p>
+ * Reads may only use part of the limit, so as the limit shrinks reads are shed before writes.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /**
+   * How important a call is when the limit is tight
+   */
+  public enum Priority {
+    /**
+     * Admitted up to the read share of the limit, so shed first
+     */
+    READ,
+    /**
+     * Admitted up to the whole limit
+     */
+    WRITE
+  }
+
+  private static final double LONG_RTT_SMOOTHING = 1.0 / 600;
+  private static final int LONG_RTT_WARMUP_SAMPLES = 10;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double readShare;
+  private final double tolerance;
+  private final double smoothing;
+  private final double backoffRatio;
+  private final IntSupplier pendingConnections;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private volatile double limit;
+
+  // Guarded by this
+  private double longRttNanos;
+  private int samples;
+
+  /**
+   * @param initialLimit the limit before any latency has been measured
+   * @param minLimit the limit never drops below this
+   * @param maxLimit the limit never grows above this
+   * @param readShare fraction of the limit reads may use, e.g. 0.8
+   * @param tolerance how much slower than the baseline calls may get before the limit shrinks, e.g. 1.5
+   * @param pendingConnections threads currently waiting for a database connection
+   */
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double readShare, double tolerance,
+      IntSupplier pendingConnections) {
+    if (minLimit < 1 || maxLimit < minLimit || readShare <= 0 || readShare > 1 || tolerance < 1) {
+      throw new IllegalArgumentException("Invalid adaptive concurrency limit settings");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.readShare = readShare;
+    this.tolerance = tolerance;
+    this.smoothing = 0.2;
+    this.backoffRatio = 0.9;
+    this.pendingConnections = pendingConnections;
+    this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+  }
+
+  /**
+   * Start a call if it fits under the limit for its priority
+   * Every successful acquire must be followed by exactly one {@link #onSuccess} or {@link #onIgnore}.
+   *
+   * @return whether the call may run
+   */
+  public boolean tryAcquire(Priority priority) {
+    final int allowed = Math.max(1, (int) (priority == Priority.WRITE ? limit : limit * readShare));
+    while (true) {
+      final int current = inFlight.get();
+      if (current >= allowed) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * End a call that completed normally and learn from its latency
+   */
+  public void onSuccess(long rttNanos) {
+    final int inFlightAtCompletion = inFlight.getAndDecrement();
+    update(rttNanos, inFlightAtCompletion);
+  }
+
+  /**
+   * End a call whose latency says nothing about load, e.g. a stream or a failed call
+   */
+  public void onIgnore() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  private synchronized void update(long rttNanos, int inFlightAtCompletion) {
+    if (rttNanos <= 0) {
+      return;
+    }
+
+    // The baseline is a plain average during warm-up, then a slow exponential average
+    samples++;
+    if (samples <= LONG_RTT_WARMUP_SAMPLES) {
+      longRttNanos += (rttNanos - longRttNanos) / samples;
+    } else {
+      longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_SMOOTHING;
+    }
+    // After a lasting drop in latency the baseline would otherwise keep the limit low for a long time
+    if (longRttNanos > 2.0 * rttNanos) {
+      longRttNanos *= 0.95;
+    }
+
+    final double current = limit;
+    final double target;
+    if (pendingConnections.getAsInt() > 0) {
+      // Requests are already queueing for the pool: back off whatever the latency says
+      target = current * backoffRatio;
+    } else if (inFlightAtCompletion < current / 2) {
+      // Far below the limit, so latency says nothing about whether the limit is too high
+      return;
+    } else {
+      final double gradient = Math.clamp(tolerance * longRttNanos / rttNanos, 0.5, 1.0);
+      target = current * gradient + Math.sqrt(current);
+    }
+    limit = Math.clamp(current * (1 - smoothing) + target * smoothing, minLimit, maxLimit);
+  }
+}
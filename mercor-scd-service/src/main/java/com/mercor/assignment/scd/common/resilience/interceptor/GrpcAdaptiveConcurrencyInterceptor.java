@@ -0,0 +1,193 @@
+package com.mercor.assignment.scd.common.resilience.interceptor;
+
+import com.mercor.assignment.scd.common.resilience.concurrency.AdaptiveConcurrencyLimiter;
+import com.mercor.assignment.scd.common.resilience.concurrency.AdaptiveConcurrencyLimiter.Priority;
+import com.mercor.assignment.scd.domain.core.SCDServiceGrpc;
+import com.mercor.assignment.scd.domain.job.JobServiceGrpc;
+import com.mercor.assignment.scd.domain.paymentlineitems.PaymentLineItemServiceGrpc;
+import com.mercor.assignment.scd.domain.timelog.TimelogServiceGrpc;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sheds load with RESOURCE_EXHAUSTED before the database pool saturates, using an {@link AdaptiveConcurrencyLimiter}
+ * The limiter learns from the latency of completed unary calls and from the number of threads waiting for a Hikari
+ * connection. Calls that create SCD versions are writes and may use the whole limit; everything else is a read and
+ * is shed first. Rejected calls fail fast instead of waiting on the bulkhead, which stays as a hard upper bound.
+ */
+@Slf4j
+@Component
+public class GrpcAdaptiveConcurrencyInterceptor implements ServerInterceptor {
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+        SCDServiceGrpc.getUpdateMethod().getFullMethodName(),
+        SCDServiceGrpc.getBatchUpdateMethod().getFullMethodName(),
+        JobServiceGrpc.getCreateNewJobMethod().getFullMethodName(),
+        JobServiceGrpc.getUpdateStatusMethod().getFullMethodName(),
+        JobServiceGrpc.getUpdateRateMethod().getFullMethodName(),
+        TimelogServiceGrpc.getCreateNewTimelogForJobMethod().getFullMethodName(),
+        TimelogServiceGrpc.getAdjustTimelogMethod().getFullMethodName(),
+        PaymentLineItemServiceGrpc.getCreateNewPaymentLineItemMethod().getFullMethodName(),
+        PaymentLineItemServiceGrpc.getMarkAsPaidMethod().getFullMethodName());
+
+    // Watch calls stay open while idle and hold no connection, so they say nothing about load
+    private static final Set<String> UNBOUNDED_METHODS = Set.of(SCDServiceGrpc.getWatchMethod().getFullMethodName());
+
+    private final boolean enabled;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+
+    public GrpcAdaptiveConcurrencyInterceptor(
+        @Value("${grpc.server.adaptive-limit.enabled:true}") boolean enabled,
+        @Value("${grpc.server.adaptive-limit.initial-limit:20}") int initialLimit,
+        @Value("${grpc.server.adaptive-limit.min-limit:4}") int minLimit,
+        @Value("${grpc.server.adaptive-limit.max-limit:200}") int maxLimit,
+        @Value("${grpc.server.adaptive-limit.read-share:0.8}") double readShare,
+        @Value("${grpc.server.adaptive-limit.latency-tolerance:1.5}") double latencyTolerance,
+        DataSource dataSource,
+        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, readShare, latencyTolerance,
+            pendingConnections(dataSource));
+
+        Gauge.builder("grpc.server.adaptive_limit.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive concurrency limit")
+            .register(meterRegistry);
+        Gauge.builder("grpc.server.adaptive_limit.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("gRPC calls counted against the adaptive concurrency limit")
+            .register(meterRegistry);
+        this.readsRejected = rejectedCounter(meterRegistry, Priority.READ);
+        this.writesRejected = rejectedCounter(meterRegistry, Priority.WRITE);
+
+        log.info("Adaptive concurrency limit {} (initial {}, range {}-{}, reads up to {} of it)",
+            enabled ? "enabled" : "disabled", initialLimit, minLimit, maxLimit, readShare);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call,
+        Metadata headers,
+        ServerCallHandler<ReqT, RespT> next) {
+
+        final MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        if (!enabled || UNBOUNDED_METHODS.contains(method.getFullMethodName())) {
+            return next.startCall(call, headers);
+        }
+
+        final Priority priority = WRITE_METHODS.contains(method.getFullMethodName()) ? Priority.WRITE : Priority.READ;
+        if (!limiter.tryAcquire(priority)) {
+            (priority == Priority.WRITE ? writesRejected : readsRejected).increment();
+            call.close(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Server is overloaded, retry later"),
+                new Metadata());
+            return new ServerCall.Listener<>() {};
+        }
+
+        // Only successful unary calls say how loaded the server is; streams last as long as the client keeps reading
+        final boolean sampled = method.getType() == MethodDescriptor.MethodType.UNARY;
+        final long startNanos = System.nanoTime();
+        final StatusRecordingCall<ReqT, RespT> recordingCall = new StatusRecordingCall<>(call);
+        final AtomicBoolean released = new AtomicBoolean();
+        final Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                if (sampled && recordingCall.succeeded) {
+                    limiter.onSuccess(System.nanoTime() - startNanos);
+                } else {
+                    limiter.onIgnore();
+                }
+            }
+        };
+
+        final ServerCall.Listener<ReqT> delegate;
+        try {
+            delegate = next.startCall(recordingCall, headers);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+
+        // Exactly one of onComplete / onCancel ends every started call
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    release.run();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, Priority priority) {
+        return Counter.builder("grpc.server.adaptive_limit.rejected")
+            .description("gRPC calls shed by the adaptive concurrency limit")
+            .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry);
+    }
+
+    private static IntSupplier pendingConnections(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                final HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+                return () -> {
+                    // The pool bean only exists once the pool has started
+                    final HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                    return pool != null ? pool.getThreadsAwaitingConnection() : 0;
+                };
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool, the adaptive limit follows latency only: {}", e.getMessage());
+        }
+        return () -> 0;
+    }
+
+    /**
+     * Remembers whether the handler closed the call successfully
+     */
+    private static final class StatusRecordingCall<ReqT, RespT>
+        extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private volatile boolean succeeded;
+
+        StatusRecordingCall(ServerCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            succeeded = status.isOk();
+            super.close(status, trailers);
+        }
+    }
+}
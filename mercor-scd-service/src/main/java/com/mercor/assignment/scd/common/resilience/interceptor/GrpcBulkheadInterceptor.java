@@ -0,0 +1,140 @@
+package com.mercor.assignment.scd.common.resilience.interceptor;
+
+import com.mercor.assignment.scd.domain.core.SCDServiceGrpc;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caps the number of gRPC calls executing at once with a semaphore sized to the database connection pool
+ * With handlers on virtual threads the executor no longer limits concurrency, so without a bulkhead thousands of
+ * calls would queue inside Hikari and time out there. Calls wait here instead, for a bounded time, and are rejected
+ * with RESOURCE_EXHAUSTED when no permit frees up.
+ */
+@Slf4j
+@Component
+public class GrpcBulkheadInterceptor implements ServerInterceptor {
+
+    // Watch calls stay open while idle and hold no connection, so they would only pin permits
+    private static final Set<String> UNBOUNDED_METHODS = Set.of(SCDServiceGrpc.getWatchMethod().getFullMethodName());
+
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final long maxWaitMillis;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public GrpcBulkheadInterceptor(
+        @Value("${grpc.server.bulkhead.max-concurrent-calls:${spring.datasource.hikari.maximum-pool-size:20}}") int maxConcurrentCalls,
+        @Value("${grpc.server.bulkhead.max-wait-ms:1000}") long maxWaitMillis,
+        MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWaitMillis = maxWaitMillis;
+
+        // Not grpc.server.calls.active: that counts every running call per method, Watch streams included
+        Gauge.builder("grpc.server.bulkhead.in_use", this, GrpcBulkheadInterceptor::permitsInUse)
+            .description("Bulkhead permits currently held by running gRPC calls")
+            .register(meterRegistry);
+        Gauge.builder("grpc.server.bulkhead.waiting", permits, Semaphore::getQueueLength)
+            .description("gRPC calls waiting for a bulkhead permit")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("grpc.server.bulkhead.wait")
+            .description("Time gRPC calls spent waiting for a bulkhead permit")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("grpc.server.bulkhead.rejected")
+            .description("gRPC calls rejected because no bulkhead permit freed up in time")
+            .register(meterRegistry);
+
+        log.info("gRPC bulkhead initialized with {} permits and {} ms max wait", maxConcurrentCalls, maxWaitMillis);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+        ServerCall<ReqT, RespT> call,
+        Metadata headers,
+        ServerCallHandler<ReqT, RespT> next) {
+
+        if (UNBOUNDED_METHODS.contains(call.getMethodDescriptor().getFullMethodName())) {
+            return next.startCall(call, headers);
+        }
+
+        if (!acquire()) {
+            rejectedCounter.increment();
+            call.close(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Server is at capacity, retry later"),
+                new Metadata());
+            return new ServerCall.Listener<>() {};
+        }
+
+        final AtomicBoolean released = new AtomicBoolean();
+        final Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+
+        final ServerCall.Listener<ReqT> delegate;
+        try {
+            delegate = next.startCall(call, headers);
+        } catch (RuntimeException e) {
+            release.run();
+            throw e;
+        }
+
+        // Exactly one of onComplete / onCancel ends every started call
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+            @Override
+            public void onComplete() {
+                try {
+                    super.onComplete();
+                } finally {
+                    release.run();
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                try {
+                    super.onCancel();
+                } finally {
+                    release.run();
+                }
+            }
+        };
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+
+        final long start = System.nanoTime();
+        try {
+            return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double permitsInUse() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+}
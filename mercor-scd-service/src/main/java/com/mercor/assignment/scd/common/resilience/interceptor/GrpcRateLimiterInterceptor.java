@@ -1,25 +1,77 @@
 package com.mercor.assignment.scd.common.resilience.interceptor;
 
-import io.github.resilience4j.ratelimiter.RateLimiter;
-import io.github.resilience4j.ratelimiter.RateLimiterRegistry;
-import io.grpc.*;
+import com.mercor.assignment.scd.common.resilience.ratelimit.CallerQuota;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Rate limits every caller separately, so one noisy client cannot use up a service's budget for everyone
+ * A caller is the peer IP the call arrived from, further split by the {@code grpc.server.rate-limit.caller-header}
+ * metadata header (a client or company id) when it is present. Each service has a quota of calls per caller per
+ * period, enforced with lock-free striped token buckets. Calls over quota are rejected with RESOURCE_EXHAUSTED.
+ * <p>
+ * The header is supplied by the client and is not authenticated, so it is trusted only to divide a peer's traffic,
+ * e.g. tenants behind a shared gateway: sending another client's id never draws on that client's bucket from a
+ * different address. A client that rotates ids still gets a bucket per id from its own address; set the header
+ * property to an empty value to limit per peer IP only when clients are not trusted that far.
+ */
 @Slf4j
 @Component
 public class GrpcRateLimiterInterceptor implements ServerInterceptor {
 
-    private final RateLimiterRegistry rateLimiterRegistry;
-    private final Map<String, RateLimiter> rateLimiterCache = new ConcurrentHashMap<>();
+    private static final String ANONYMOUS_CALLER = "anonymous";
+    private static final int MAX_CALLER_LENGTH = 128;
 
-    public GrpcRateLimiterInterceptor(RateLimiterRegistry rateLimiterRegistry) {
-        this.rateLimiterRegistry = rateLimiterRegistry;
-        log.info("Rate limiter interceptor initialized with registry: {}",
-            rateLimiterRegistry.getAllRateLimiters().stream()
-                .map(RateLimiter::getName)
+    /**
+     * Header splitting a peer's traffic into callers, or null to limit per peer only
+     */
+    private final Metadata.Key<String> callerHeader;
+    private final Map<String, CallerQuota> quotas;
+    private final Map<String, CallerQuota> quotasByService = new ConcurrentHashMap<>();
+
+    public GrpcRateLimiterInterceptor(
+        @Value("${grpc.server.rate-limit.caller-header:scd-client-id}") String callerHeader,
+        @Value("${grpc.server.rate-limit.refresh-period-ms:1000}") long refreshPeriodMillis,
+        @Value("${grpc.server.rate-limit.stripes:4}") int stripes,
+        @Value("${grpc.server.rate-limit.max-callers:100000}") long maxCallers,
+        @Value("${grpc.server.rate-limit.quotas.default:50}") int defaultLimit,
+        @Value("${grpc.server.rate-limit.quotas.server-reflection:500}") int serverReflectionLimit,
+        @Value("${grpc.server.rate-limit.quotas.scd-service:100}") int scdServiceLimit,
+        @Value("${grpc.server.rate-limit.quotas.job-service:60}") int jobServiceLimit,
+        @Value("${grpc.server.rate-limit.quotas.payment-line-item-service:40}") int paymentLineItemServiceLimit,
+        @Value("${grpc.server.rate-limit.quotas.timelog-service:50}") int timelogServiceLimit,
+        MeterRegistry meterRegistry) {
+        this.callerHeader = callerHeader.isBlank()
+            ? null
+            : Metadata.Key.of(callerHeader, Metadata.ASCII_STRING_MARSHALLER);
+
+        final Duration period = Duration.ofMillis(refreshPeriodMillis);
+        this.quotas = Map.of(
+            "default", new CallerQuota("default", defaultLimit, period, stripes, maxCallers, meterRegistry),
+            "serverReflection", new CallerQuota("serverReflection", serverReflectionLimit, period, stripes, maxCallers, meterRegistry),
+            "scdService", new CallerQuota("scdService", scdServiceLimit, period, stripes, maxCallers, meterRegistry),
+            "jobService", new CallerQuota("jobService", jobServiceLimit, period, stripes, maxCallers, meterRegistry),
+            "paymentLineItemService", new CallerQuota("paymentLineItemService", paymentLineItemServiceLimit, period, stripes, maxCallers, meterRegistry),
+            "timelogService", new CallerQuota("timelogService", timelogServiceLimit, period, stripes, maxCallers, meterRegistry));
+
+        log.info("Rate limiting per peer IP and '{}' header with quotas per {} ms: {}", callerHeader,
+            refreshPeriodMillis,
+            quotas.values().stream()
+                .map(quota -> quota.getName() + "=" + quota.getPermitsPerPeriod())
+                .sorted()
                 .toList());
     }
 
@@ -29,29 +81,42 @@ public class GrpcRateLimiterInterceptor implements ServerInterceptor {
         Metadata headers,
         ServerCallHandler<ReqT, RespT> next) {
 
-        String serviceName = extractServiceName(call.getMethodDescriptor().getServiceName());
-        String methodName = call.getMethodDescriptor().getBareMethodName();
+        final CallerQuota quota = quotasByService.computeIfAbsent(call.getMethodDescriptor().getServiceName(),
+            fullName -> quotas.get(mapServiceToRateLimiterName(extractServiceName(fullName))));
+        final String caller = callerOf(call, headers);
 
-        log.info("RATE LIMITER ACTIVE: Checking call to {}.{}", serviceName, methodName);
-
-        String rateLimiterName = mapServiceToRateLimiterName(serviceName);
-        RateLimiter rateLimiter = getRateLimiter(rateLimiterName);
-
-        boolean permitted = rateLimiter.acquirePermission();
-        log.info("permission granted: {}", permitted);
+        if (quota.tryAcquire(caller)) {
+            return next.startCall(call, headers);
+        }
 
-        log.info("Rate limiter '{}' - permission granted: {}, available permits now: {}",
-            rateLimiterName, permitted, rateLimiter.getMetrics().getAvailablePermissions());
+        if (log.isDebugEnabled()) {
+            log.debug("Rate limit '{}' exceeded by caller '{}' calling {}", quota.getName(), caller,
+                call.getMethodDescriptor().getFullMethodName());
+        }
+        call.close(Status.RESOURCE_EXHAUSTED
+                .withDescription("Rate limit exceeded for service: " + extractServiceName(
+                    call.getMethodDescriptor().getServiceName())),
+            new Metadata());
+        return new ServerCall.Listener<>() {};
+    }
 
-        if (!permitted) {
-            log.warn("DENIED: Rate limit exceeded for {}.{}", serviceName, methodName);
-            call.close(Status.RESOURCE_EXHAUSTED
-                    .withDescription("Rate limit exceeded for service: " + serviceName),
-                new Metadata());
-            return new ServerCall.Listener<>() {};
+    private String callerOf(ServerCall<?, ?> call, Metadata headers) {
+        final String peer = peerOf(call);
+        final String clientId = callerHeader == null ? null : headers.get(callerHeader);
+        if (clientId == null || clientId.isBlank()) {
+            return peer;
         }
+        // The unauthenticated header only narrows the peer's key, it can never stand in for another peer
+        return peer + "|"
+            + (clientId.length() > MAX_CALLER_LENGTH ? clientId.substring(0, MAX_CALLER_LENGTH) : clientId);
+    }
 
-        return next.startCall(call, headers);
+    private String peerOf(ServerCall<?, ?> call) {
+        final SocketAddress remoteAddress = call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+        if (remoteAddress instanceof InetSocketAddress inetAddress && inetAddress.getAddress() != null) {
+            return inetAddress.getAddress().getHostAddress();
+        }
+        return ANONYMOUS_CALLER;
     }
 
     private String extractServiceName(String fullName) {
@@ -71,8 +136,4 @@ public class GrpcRateLimiterInterceptor implements ServerInterceptor {
             default -> "default";
         };
     }
-
-    private RateLimiter getRateLimiter(String name) {
-        return rateLimiterCache.computeIfAbsent(name, rateLimiterRegistry::rateLimiter);
-    }
 }
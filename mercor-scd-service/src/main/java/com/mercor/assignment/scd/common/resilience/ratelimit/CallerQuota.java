@@ -0,0 +1,82 @@
+package com.mercor.assignment.scd.common.resilience.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+
+/**
+ * A rate limit that every caller gets on its own, e.g. 60 calls per second per client for the job service
+ * Each caller has a {@link StripedTokenBucket}. Buckets of callers idle for a whole period are dropped: by then they
+ * would be full again, so recreating one later admits exactly what the old one would have. The number of tracked
+ * callers is also capped, so a flood of distinct caller ids cannot exhaust memory.
+ */
+public class CallerQuota {
+
+  private final String name;
+  private final int permitsPerPeriod;
+  private final Duration period;
+  private final int stripes;
+  private final Cache<String, StripedTokenBucket> buckets;
+  private final Counter permitted;
+  private final Counter rejected;
+
+  public CallerQuota(String name, int permitsPerPeriod, Duration period, int stripes, long maxCallers,
+      MeterRegistry meterRegistry) {
+    this.name = name;
+    this.permitsPerPeriod = permitsPerPeriod;
+    this.period = period;
+    this.stripes = stripes;
+    this.buckets = Caffeine.newBuilder()
+        .maximumSize(maxCallers)
+        .expireAfterAccess(period)
+        .build();
+
+    this.permitted = Counter.builder("grpc.server.rate_limit.calls")
+        .description("Calls checked against a per-caller rate limit quota")
+        .tag("quota", name)
+        .tag("result", "permitted")
+        .register(meterRegistry);
+    this.rejected = Counter.builder("grpc.server.rate_limit.calls")
+        .description("Calls checked against a per-caller rate limit quota")
+        .tag("quota", name)
+        .tag("result", "rejected")
+        .register(meterRegistry);
+    Gauge.builder("grpc.server.rate_limit.callers", buckets, Cache::estimatedSize)
+        .description("Callers with a token bucket in a rate limit quota")
+        .tag("quota", name)
+        .register(meterRegistry);
+    Gauge.builder("grpc.server.rate_limit.limit", this, CallerQuota::getPermitsPerPeriod)
+        .description("Calls each caller may make per rate limit period")
+        .tag("quota", name)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Take one call from the caller's bucket
+   *
+   * @param caller the caller's id
+   * @return whether the call is within the caller's quota
+   */
+  public boolean tryAcquire(String caller) {
+    final long now = System.nanoTime();
+    final StripedTokenBucket bucket = buckets.get(caller,
+        key -> new StripedTokenBucket(permitsPerPeriod, period, stripes, now));
+    if (bucket.tryAcquire(now)) {
+      permitted.increment();
+      return true;
+    }
+    rejected.increment();
+    return false;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getPermitsPerPeriod() {
+    return permitsPerPeriod;
+  }
+}
@@ -0,0 +1,87 @@
+package com.mercor.assignment.scd.common.resilience.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free token bucket split into stripes so that concurrent callers rarely contend on the same word
+ * Each stripe is a GCRA (generic cell rate algorithm) cell: a single "theoretical arrival time" that a successful
+ * acquire pushes forward by one emission interval with a CAS. A request is allowed while that time stays within the
+ * burst window ahead of now, which is equivalent to a bucket holding {@code permitsPerPeriod / stripes} tokens and
+ * refilling continuously. Threads start at their own stripe and fall back to the others, so the bucket as a whole
+ * admits the configured rate; any remainder of {@code permitsPerPeriod / stripes} is dropped from the burst.
+ * <p>
+ * Stripes are padded to separate cache lines. Times are {@link System#nanoTime()} values and only compared by
+ * difference, so wrap-around is harmless.
+ */
+public final class StripedTokenBucket {
+
+  // Longs per 64-byte cache line, so neighbouring stripes do not false-share
+  private static final int PADDING = 8;
+
+  private final AtomicLongArray arrivals;
+  private final int mask;
+  private final long intervalNanos;
+  private final long burstNanos;
+
+  /**
+   * @param permitsPerPeriod tokens the bucket holds when full and earns back per period
+   * @param period the refill period
+   * @param stripes requested stripe count; rounded down to a power of two and to at most {@code permitsPerPeriod}
+   * @param nowNanos the current {@link System#nanoTime()}; the bucket starts full
+   */
+  public StripedTokenBucket(int permitsPerPeriod, Duration period, int stripes, long nowNanos) {
+    if (permitsPerPeriod <= 0 || period.isNegative() || period.isZero() || stripes <= 0) {
+      throw new IllegalArgumentException("Token bucket needs positive permits, period and stripes");
+    }
+
+    final int stripeCount = Integer.highestOneBit(Math.min(stripes, permitsPerPeriod));
+    this.mask = stripeCount - 1;
+    this.intervalNanos = Math.max(1, period.toNanos() * stripeCount / permitsPerPeriod);
+    this.burstNanos = intervalNanos * (permitsPerPeriod / stripeCount);
+
+    this.arrivals = new AtomicLongArray(stripeCount * PADDING);
+    for (int stripe = 0; stripe < stripeCount; stripe++) {
+      arrivals.set(stripe * PADDING, nowNanos);
+    }
+  }
+
+  /**
+   * Take one token if one is available, without blocking
+   *
+   * @param nowNanos the current {@link System#nanoTime()}
+   * @return whether a token was taken
+   */
+  public boolean tryAcquire(long nowNanos) {
+    final int start = stripeOf(Thread.currentThread().threadId());
+    for (int i = 0; i <= mask; i++) {
+      if (tryAcquireStripe(((start + i) & mask) * PADDING, nowNanos)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int getStripes() {
+    return mask + 1;
+  }
+
+  private boolean tryAcquireStripe(int index, long nowNanos) {
+    while (true) {
+      final long arrival = arrivals.get(index);
+      final long next = (arrival - nowNanos > 0 ? arrival : nowNanos) + intervalNanos;
+      if (next - nowNanos > burstNanos) {
+        return false;
+      }
+      if (arrivals.compareAndSet(index, arrival, next)) {
+        return true;
+      }
+    }
+  }
+
+  private int stripeOf(long threadId) {
+    // Thread ids are sequential; mix them so consecutive threads land on different stripes
+    final long mixed = threadId * 0x9E3779B97F4A7C15L;
+    return (int) (mixed >>> 32) & mask;
+  }
+}
@@ -0,0 +1,36 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+
+/**
+ * A committed SCD version as the change feed carries it
+ * The version stays a domain object until a watcher sends it, in the payload format that watcher asked for. The
+ * company and contractor of the version's job are only looked up when a watcher filters on them.
+ *
+ * @param sequence position in this node's feed; 0 until the feed has accepted the change
+ * @param entityType the type of the version
+ * @param version the new version
+ * @param owner company and contractor of the version's job, or null if they have not been looked up
+ */
+public record ChangeEvent(long sequence, EntityType entityType, SCDEntity version, Owner owner) {
+
+    /**
+     * The company and contractor a version belongs to through its job
+     *
+     * @param companyId company of the version's job, or null if unknown
+     * @param contractorId contractor of the version's job, or null if unknown
+     */
+    public record Owner(String companyId, String contractorId) {
+
+        static final Owner UNKNOWN = new Owner(null, null);
+    }
+
+    ChangeEvent withSequence(long sequence) {
+        return new ChangeEvent(sequence, entityType, version, owner);
+    }
+
+    ChangeEvent withOwner(Owner owner) {
+        return new ChangeEvent(sequence, entityType, version, owner);
+    }
+}
@@ -0,0 +1,334 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.common.grpc.PayloadFormat;
+import com.mercor.assignment.scd.domain.core.WatchEvent;
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeEvent.Owner;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-process change feed behind the Watch RPC
+ * Repositories hand every new version to {@link #publishAfterCommit}; once the transaction commits the versions are
+ * queued to the feed's publisher thread, which numbers them, keeps them in a fixed-size replay buffer, offers them to
+ * every watcher and sends them to the other nodes over the {@link ChangeFeedChannel}. The committing thread only
+ * queues, so neither watchers nor Redis add latency to writes. Offering never blocks: each watcher has its own
+ * bounded buffer that a virtual-thread dispatcher drains as fast as the client reads, mapping each version in the
+ * payload format the watcher asked for. Listeners such as the version index see the same events.
+ * <p>
+ * Sequence numbers belong to this node. A watcher that reconnects with a resume token gets the events it missed
+ * while they are still in the replay buffer of the node that issued the token; otherwise the call fails with
+ * OUT_OF_RANGE and the client re-reads the entities it cares about before watching again.
+ */
+@Slf4j
+@Component
+public class ChangeFeed {
+
+    private final long feedId = new SecureRandom().nextLong();
+    private final ChangeFeedChannel channel;
+    private final ChangeEvent[] replay;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final ExecutorService publisher =
+        Executors.newSingleThreadExecutor(Thread.ofPlatform().name("scd-watch-publisher").daemon().factory());
+    private final ExecutorService dispatcher =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scd-watch-", 0).factory());
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<EntityType, Function<SCDEntity, Job>> ownerResolvers = new EnumMap<>(EntityType.class);
+
+    // Guarded by this
+    private final Set<WatchSubscription> subscriptions = new LinkedHashSet<>();
+    private int ownerFilteredSubscriptions;
+    private long lastSequence;
+
+    private final Counter localEvents;
+    private final Counter remoteEvents;
+    private final Counter overflows;
+
+    @Autowired
+    public ChangeFeed(
+        ChangeFeedChannel channel,
+        @Value("${scd.watch.replay-size:10000}") int replaySize,
+        @Value("${scd.watch.subscriber-buffer:1000}") int subscriberBuffer,
+        @Value("${scd.watch.max-subscribers:1000}") int maxSubscribers,
+        MeterRegistry meterRegistry) {
+        if (replaySize < 1 || subscriberBuffer < 1 || maxSubscribers < 1) {
+            throw new IllegalArgumentException("Invalid change feed settings");
+        }
+        this.channel = channel;
+        this.replay = new ChangeEvent[replaySize];
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+
+        this.localEvents = eventCounter(meterRegistry, "local");
+        this.remoteEvents = eventCounter(meterRegistry, "remote");
+        this.overflows = Counter.builder("scd.watch.overflows")
+            .description("Watchers ended because their buffer filled up")
+            .register(meterRegistry);
+        Gauge.builder("scd.watch.subscribers", this, ChangeFeed::subscriberCount)
+            .description("Open Watch calls")
+            .register(meterRegistry);
+
+        if (channel != null) {
+            channel.setListener(changes -> enqueue(changes, this::publishRemote));
+        }
+    }
+
+    /**
+     * A feed for a single node, without fan-out
+     */
+    ChangeFeed(int replaySize, int subscriberBuffer, int maxSubscribers, MeterRegistry meterRegistry) {
+        this(null, replaySize, subscriberBuffer, maxSubscribers, meterRegistry);
+    }
+
+    /**
+     * Tell the feed how to find the job of a version, for watchers that filter on company or contractor
+     * The resolver runs on the publisher thread after commit, and only while such a watcher is open.
+     *
+     * @param entityType the type of the versions
+     * @param resolver returns the job a version belongs to, or null if it cannot be found
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T extends SCDEntity> void registerOwnerResolver(EntityType entityType,
+        Function<? super T, Job> resolver) {
+        ownerResolvers.put(entityType, version -> resolver.apply((T) version));
+    }
+
+    /**
+     * Announce a new version once the current transaction commits; nothing is published if it rolls back
+     * Without an active transaction the version is published immediately. Either way only a reference to the version
+     * is queued here; finding its job and sending it to other nodes happen on the publisher thread, and each watcher
+     * maps it as it is sent.
+     *
+     * @param entityType the type of the version
+     * @param version the new version
+     */
+    public void publishAfterCommit(EntityType entityType, SCDEntity version) {
+        final ChangeEvent change = new ChangeEvent(0, entityType, version, null);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(List.of(change), this::publish);
+            return;
+        }
+        pendingChanges().add(change);
+    }
+
+    /**
+     * Call the listener with every event the feed dispatches, from this node or another, in sequence order
+     * Listeners run on the publisher thread while the feed is locked, so they must be quick and must not block; they
+     * see a version shortly after its transaction commits.
+     */
+    public void addListener(Consumer<ChangeEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Start delivering matching events to a Watch call
+     * Events after the resume token are replayed first; a watcher filtering on company or contractor only gets replayed
+     * events whose job was looked up, i.e. published while another such watcher was open. The call stays open until
+     * the client cancels, falls behind or the server shuts down.
+     *
+     * @param resumeToken the token of the last event the client received, or empty to start from now
+     * @param payloadFormat the payload format the watcher's events are sent in
+     * @throws io.grpc.StatusRuntimeException OUT_OF_RANGE if the token can no longer be resumed, RESOURCE_EXHAUSTED if
+     *     too many calls are watching
+     */
+    public void subscribe(WatchFilter filter, String resumeToken, PayloadFormat payloadFormat,
+        ServerCallStreamObserver<WatchEvent> observer) {
+        final ResumeToken token = resumeToken.isEmpty() ? null : ResumeToken.decode(resumeToken);
+
+        synchronized (this) {
+            if (subscriptions.size() >= maxSubscribers) {
+                throw Status.RESOURCE_EXHAUSTED.withDescription("Too many watchers, retry later").asRuntimeException();
+            }
+
+            long resumeFrom = lastSequence + 1;
+            if (token != null) {
+                if (token.getFeedId() != feedId || token.getSequence() > lastSequence
+                    || token.getSequence() < lastSequence - replay.length) {
+                    throw Status.OUT_OF_RANGE
+                        .withDescription("Resume token is no longer available, re-read the entities and watch from now")
+                        .asRuntimeException();
+                }
+                resumeFrom = token.getSequence() + 1;
+            }
+
+            // Room for the whole backlog on top of the live buffer, so a resume never overflows on its own replay
+            final WatchSubscription subscription = new WatchSubscription(this, feedId, filter, payloadFormat, observer,
+                subscriberBuffer + (int) (lastSequence + 1 - resumeFrom), dispatcher);
+            observer.setOnReadyHandler(subscription::schedule);
+            observer.setOnCancelHandler(subscription::close);
+
+            for (long sequence = resumeFrom; sequence <= lastSequence; sequence++) {
+                subscription.offer(replay[slot(sequence)]);
+            }
+            subscriptions.add(subscription);
+            if (filter.filtersOnOwner()) {
+                ownerFilteredSubscriptions++;
+            }
+        }
+    }
+
+    /**
+     * End every Watch call before the gRPC server starts its graceful shutdown, which would otherwise wait for them
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeWatchers() {
+        final List<WatchSubscription> open;
+        synchronized (this) {
+            open = new ArrayList<>(subscriptions);
+        }
+        open.forEach(subscription -> subscription.end(
+            Status.UNAVAILABLE.withDescription("Server is shutting down, resume from the last resume token")));
+        publisher.shutdown();
+        dispatcher.shutdown();
+    }
+
+    synchronized void unsubscribe(WatchSubscription subscription) {
+        if (subscriptions.remove(subscription) && subscription.filtersOnOwner()) {
+            ownerFilteredSubscriptions--;
+        }
+    }
+
+    private void enqueue(List<ChangeEvent> changes, Consumer<List<ChangeEvent>> publication) {
+        try {
+            publisher.execute(() -> publication.accept(changes));
+        } catch (RejectedExecutionException e) {
+            // The feed is shutting down and its watchers are already ended
+            log.debug("Dropping {} changes published during shutdown", changes.size());
+        }
+    }
+
+    private void publish(List<ChangeEvent> changes) {
+        final List<ChangeEvent> resolved = resolveOwners(changes);
+        localEvents.increment(resolved.size());
+        dispatch(resolved);
+        if (channel != null) {
+            channel.publish(resolved);
+        }
+    }
+
+    private void publishRemote(List<ChangeEvent> changes) {
+        final List<ChangeEvent> resolved = resolveOwners(changes);
+        remoteEvents.increment(resolved.size());
+        dispatch(resolved);
+    }
+
+    /**
+     * Look up the job of every change that does not know it yet, but only while a watcher filters on company or
+     * contractor; done before the feed is locked, as it may query the database
+     */
+    private List<ChangeEvent> resolveOwners(List<ChangeEvent> changes) {
+        synchronized (this) {
+            if (ownerFilteredSubscriptions == 0) {
+                return changes;
+            }
+        }
+
+        final List<ChangeEvent> resolved = new ArrayList<>(changes.size());
+        for (ChangeEvent change : changes) {
+            resolved.add(change.owner() != null ? change : change.withOwner(owner(change)));
+        }
+        return resolved;
+    }
+
+    private Owner owner(ChangeEvent change) {
+        final Function<SCDEntity, Job> resolver;
+        synchronized (this) {
+            resolver = ownerResolvers.get(change.entityType());
+        }
+        if (resolver == null) {
+            return Owner.UNKNOWN;
+        }
+
+        try {
+            final Job job = resolver.apply(change.version());
+            return job != null ? new Owner(job.getCompanyId(), job.getContractorId()) : Owner.UNKNOWN;
+        } catch (RuntimeException e) {
+            log.warn("Could not find the job of {} {}, watchers filtering on company or contractor miss it: {}",
+                change.entityType().getValue(), change.version().getUid(), e.getMessage());
+            return Owner.UNKNOWN;
+        }
+    }
+
+    private synchronized void dispatch(List<ChangeEvent> changes) {
+        for (ChangeEvent change : changes) {
+            final ChangeEvent event = change.withSequence(++lastSequence);
+            replay[slot(event.sequence())] = event;
+            for (Consumer<ChangeEvent> listener : listeners) {
+                listener.accept(event);
+            }
+            for (WatchSubscription subscription : subscriptions) {
+                if (!subscription.offer(event)) {
+                    overflows.increment();
+                }
+            }
+        }
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % replay.length);
+    }
+
+    private synchronized int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ChangeEvent> pendingChanges() {
+        final List<ChangeEvent> bound = (List<ChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (bound != null) {
+            return bound;
+        }
+
+        final List<ChangeEvent> pending = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, pending);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (!pending.isEmpty()) {
+                    enqueue(pending, ChangeFeed.this::publish);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeed.this);
+            }
+        });
+        return pending;
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String origin) {
+        return Counter.builder("scd.watch.events")
+            .description("Committed versions published to the change feed")
+            .tag("origin", origin)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,155 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.common.cache.BinaryEntityRedisSerializer;
+import com.mercor.assignment.scd.common.config.CacheConfiguration;
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeEvent.Owner;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Redis pub/sub channel that carries committed versions between nodes, so a watcher sees writes made on any node
+ * Each message holds the changes of one transaction: the sending node, then per change its entity type, its company
+ * and contractor if the sender looked them up, and the version in the binary cache encoding. Messages from this node
+ * are ignored, as its own feed already has them.
+ * <p>
+ * Messages are sent by a single sender thread from a bounded queue, so a slow or unavailable Redis delays neither
+ * writes nor the local feed. A message dropped because the queue is full, or lost while Redis is unavailable, is not
+ * redelivered; watchers on other nodes miss those versions.
+ */
+@Slf4j
+@Component
+public class ChangeFeedChannel implements MessageListener {
+
+    private static final byte FORMAT_VERSION = 2;
+
+    private final long nodeId = new SecureRandom().nextLong();
+    private final RedisConnectionFactory connectionFactory;
+    private final byte[] channel;
+    private final BinaryEntityRedisSerializer serializer =
+        new BinaryEntityRedisSerializer(CacheConfiguration.jsonRedisSerializer(), 0);
+    private final ExecutorService sender;
+    private volatile Consumer<List<ChangeEvent>> listener = changes -> { };
+
+    public ChangeFeedChannel(
+        RedisConnectionFactory connectionFactory,
+        RedisMessageListenerContainer listenerContainer,
+        @Value("${scd.watch.channel:scd:watch:changes}") String channel,
+        @Value("${scd.watch.channel-queue-size:1000}") int queueSize) {
+        this.connectionFactory = connectionFactory;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        this.sender = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+            Thread.ofPlatform().name("scd-watch-sender").daemon().factory());
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    /**
+     * Deliver changes published by other nodes to the given consumer
+     */
+    void setListener(Consumer<List<ChangeEvent>> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Queue the changes of one transaction for the other nodes; never blocks
+     */
+    void publish(List<ChangeEvent> changes) {
+        try {
+            sender.execute(() -> send(changes));
+        } catch (RejectedExecutionException e) {
+            log.warn("Change feed send queue is full, watchers on other nodes miss {} changes", changes.size());
+        }
+    }
+
+    private void send(List<ChangeEvent> changes) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.publish(channel, encode(changes));
+        } catch (DataAccessException | SerializationException e) {
+            log.warn("Failed to publish {} changes, watchers on other nodes miss them: {}", changes.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(message.getBody()));
+            if (in.readByte() != FORMAT_VERSION || in.readLong() == nodeId) {
+                return;
+            }
+
+            final int count = in.readInt();
+            final List<ChangeEvent> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final EntityType entityType = EntityType.fromValue(in.readUTF());
+                final Owner owner = in.readBoolean() ? new Owner(readOptional(in), readOptional(in)) : null;
+                final byte[] version = new byte[in.readInt()];
+                in.readFully(version);
+                changes.add(new ChangeEvent(0, entityType, (SCDEntity) serializer.deserialize(version), owner));
+            }
+            listener.accept(changes);
+        } catch (IOException | IllegalArgumentException | SerializationException | ClassCastException e) {
+            log.warn("Dropping malformed change feed message: {}", e.getMessage());
+        }
+    }
+
+    private byte[] encode(List<ChangeEvent> changes) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + changes.size() * 256);
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(nodeId);
+            out.writeInt(changes.size());
+            for (ChangeEvent change : changes) {
+                out.writeUTF(change.entityType().getValue());
+                out.writeBoolean(change.owner() != null);
+                if (change.owner() != null) {
+                    writeOptional(out, change.owner().companyId());
+                    writeOptional(out, change.owner().contractorId());
+                }
+                final byte[] version = serializer.serialize(change.version());
+                out.writeInt(version.length);
+                out.write(version);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Error encoding change feed message", e);
+        }
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Opaque change feed position: the sequence number of the last event a watcher received
+ * Sequence numbers are assigned by each node's {@link ChangeFeed}, so the token also names the feed that issued it
+ * and only that feed can resume from it.
+ */
+@Value
+public class ResumeToken {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    long feedId;
+    long sequence;
+
+    /**
+     * Encode this position as a URL-safe string
+     */
+    public String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(17);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(feedId);
+            out.writeLong(sequence);
+            out.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Error encoding resume token", e);
+        }
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     *
+     * @param token the opaque token
+     * @return the decoded position
+     * @throws ValidationException if the token is malformed
+     */
+    public static ResumeToken decode(String token) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+            if (in.readByte() != FORMAT_VERSION) {
+                throw ValidationException.forField("resume_token", "unsupported resume token");
+            }
+            return new ResumeToken(in.readLong(), in.readLong());
+        } catch (IOException | IllegalArgumentException e) {
+            throw ValidationException.forField("resume_token", "malformed resume token");
+        }
+    }
+}
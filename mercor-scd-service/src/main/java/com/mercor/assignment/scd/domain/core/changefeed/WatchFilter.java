@@ -0,0 +1,78 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.domain.core.WatchRequest;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.validation.SCDValidators;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Which change events a watcher receives
+ * Every criterion that is set must match; an empty filter matches every event.
+ */
+public final class WatchFilter {
+
+    private static final int MAX_IDS = 1000;
+
+    private final Set<EntityType> entityTypes;
+    private final Set<String> ids;
+    private final String companyId;
+    private final String contractorId;
+
+    private WatchFilter(Set<EntityType> entityTypes, Set<String> ids, String companyId, String contractorId) {
+        this.entityTypes = entityTypes;
+        this.ids = ids;
+        this.companyId = companyId;
+        this.contractorId = contractorId;
+    }
+
+    /**
+     * Build the filter of a Watch call
+     *
+     * @throws ValidationException if an entity type or ID is invalid, or too many IDs are given
+     */
+    public static WatchFilter of(WatchRequest request) {
+        final Set<EntityType> entityTypes;
+        try {
+            entityTypes = request.getEntityTypesList().stream()
+                .map(EntityType::fromValue)
+                .collect(Collectors.toUnmodifiableSet());
+        } catch (IllegalArgumentException e) {
+            throw ValidationException.forField("entity_types", e.getMessage());
+        }
+
+        if (request.getIdsCount() > MAX_IDS) {
+            throw ValidationException.forField("ids", "at most " + MAX_IDS + " IDs can be watched");
+        }
+        for (String id : request.getIdsList()) {
+            if (!SCDValidators.SCDCommonValidators.validId.isValid(id)) {
+                throw ValidationException.forField("ids", "invalid entity ID " + id);
+            }
+        }
+
+        return new WatchFilter(entityTypes, Set.copyOf(request.getIdsList()),
+            emptyToNull(request.getCompanyId()), emptyToNull(request.getContractorId()));
+    }
+
+    /**
+     * An event whose job has not been looked up never matches a company or contractor criterion
+     */
+    public boolean matches(ChangeEvent event) {
+        return (entityTypes.isEmpty() || entityTypes.contains(event.entityType()))
+            && (ids.isEmpty() || ids.contains(event.version().getId()))
+            && (companyId == null || event.owner() != null && companyId.equals(event.owner().companyId()))
+            && (contractorId == null || event.owner() != null && contractorId.equals(event.owner().contractorId()));
+    }
+
+    /**
+     * @return whether events must carry the company and contractor of their job to be matched
+     */
+    public boolean filtersOnOwner() {
+        return companyId != null || contractorId != null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
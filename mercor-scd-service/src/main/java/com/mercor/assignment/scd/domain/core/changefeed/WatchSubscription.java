@@ -0,0 +1,161 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.common.grpc.PayloadFormat;
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.WatchEvent;
+import com.mercor.assignment.scd.domain.core.mapper.EntityMapper;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One Watch call: a bounded buffer of matching events, drained to the client on the feed's dispatcher
+ * Publishers only ever offer to the buffer, so a slow watcher never blocks a commit. Drains are serialized by the
+ * scheduled flag and pause while the transport is not ready; the call's onReady handler resumes them. A watcher whose
+ * buffer overflows is ended with RESOURCE_EXHAUSTED and can resume from the last token it received.
+ * <p>
+ * Versions are mapped as they are sent, under the payload format the Watch call was made with; the dispatcher runs
+ * outside the call's gRPC context, so the format is captured when the call subscribes.
+ */
+@Slf4j
+final class WatchSubscription implements Runnable {
+
+    private final ChangeFeed feed;
+    private final long feedId;
+    private final WatchFilter filter;
+    private final Context mappingContext;
+    private final ServerCallStreamObserver<WatchEvent> observer;
+    private final Queue<ChangeEvent> buffer;
+    private final Executor dispatcher;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile Status endStatus;
+    private volatile boolean closed;
+
+    WatchSubscription(ChangeFeed feed, long feedId, WatchFilter filter, PayloadFormat payloadFormat,
+        ServerCallStreamObserver<WatchEvent> observer, int capacity, Executor dispatcher) {
+        this.feed = feed;
+        this.feedId = feedId;
+        this.filter = filter;
+        this.mappingContext = Context.ROOT.withValue(PayloadFormat.CONTEXT_KEY, payloadFormat);
+        this.observer = observer;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Queue the event if the watcher wants it; never blocks
+     *
+     * @return false if the buffer was full and the watcher is being ended
+     */
+    boolean offer(ChangeEvent event) {
+        if (closed || endStatus != null || !filter.matches(event)) {
+            return true;
+        }
+        if (!buffer.offer(event)) {
+            end(Status.RESOURCE_EXHAUSTED.withDescription("Watcher fell behind, resume from the last resume token"));
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    boolean filtersOnOwner() {
+        return filter.filtersOnOwner();
+    }
+
+    /**
+     * End the call with the given status once the dispatcher gets to it
+     */
+    void end(Status status) {
+        endStatus = status;
+        schedule();
+    }
+
+    /**
+     * Stop delivering, e.g. because the client cancelled
+     */
+    void close() {
+        if (!closed) {
+            closed = true;
+            buffer.clear();
+            feed.unsubscribe(this);
+        }
+    }
+
+    void schedule() {
+        if (closed || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            dispatcher.execute(this);
+        } catch (RejectedExecutionException e) {
+            // The feed is shutting down
+            scheduled.set(false);
+            close();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // The client went away between the readiness check and the send
+            log.debug("Ending watcher after failed send: {}", e.getMessage());
+            close();
+        } finally {
+            scheduled.set(false);
+        }
+
+        // Anything offered after the last poll, while this drain still held the flag, is picked up here
+        if (!closed && (endStatus != null || (!buffer.isEmpty() && observer.isReady()))) {
+            schedule();
+        }
+    }
+
+    private void drain() {
+        if (closed) {
+            return;
+        }
+        if (endStatus != null) {
+            close();
+            observer.onError(endStatus.asRuntimeException());
+            return;
+        }
+
+        ChangeEvent event;
+        while (observer.isReady() && (event = buffer.poll()) != null) {
+            observer.onNext(WatchEvent.newBuilder()
+                .setEntity(toEntity(event.version()))
+                .setResumeToken(new ResumeToken(feedId, event.sequence()).encode())
+                .build());
+        }
+    }
+
+    private Entity toEntity(SCDEntity version) {
+        final Context previous = mappingContext.attach();
+        try {
+            if (version instanceof Job job) {
+                return EntityMapper.INSTANCE.mapJobToEntityProto(job);
+            } else if (version instanceof Timelog timelog) {
+                return EntityMapper.INSTANCE.mapTimelogToEntityProto(timelog);
+            } else if (version instanceof PaymentLineItem paymentLineItem) {
+                return EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem);
+            }
+            return EntityMapper.INSTANCE.mapToEntityProto(version);
+        } finally {
+            mappingContext.detach(previous);
+        }
+    }
+}
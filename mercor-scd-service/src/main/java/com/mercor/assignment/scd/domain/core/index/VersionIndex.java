@@ -0,0 +1,97 @@
+package com.mercor.assignment.scd.domain.core.index;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeFeed;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compact in-memory map from entity ID to the version and UID of its latest version
+ * It answers "is the version I have still the latest?" without loading the entity. Entries are written when a
+ * latest version is read and advanced by every committed version the {@link ChangeFeed} dispatches, from this node or
+ * another, shortly after it commits; they never move backwards. If a change feed message is lost an entry can be
+ * stale until it expires, the same bound as the local cache tier.
+ */
+@Component
+public class VersionIndex {
+
+    /**
+     * The version and UID of an entity's latest version
+     */
+    public record Stamp(int version, String uid) {
+
+        /**
+         * @param knownVersion the caller's version, or 0 to skip the check
+         * @param knownUid the caller's version UID, or empty to skip the check
+         * @return whether every check the caller asked for matches this version
+         */
+        public boolean matches(int knownVersion, String knownUid) {
+            return (knownVersion > 0 || !knownUid.isEmpty())
+                && (knownVersion <= 0 || knownVersion == version)
+                && (knownUid.isEmpty() || knownUid.equals(uid));
+        }
+    }
+
+    private final Cache<String, Stamp> stamps;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VersionIndex(
+        ChangeFeed changeFeed,
+        @Value("${scd.version-index.maximum-size:1000000}") long maximumSize,
+        @Value("${scd.version-index.expire-after-write-ms:60000}") long expireAfterWriteMs,
+        MeterRegistry meterRegistry) {
+        this.stamps = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+            .build();
+
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("scd.version_index.size", stamps, Cache::estimatedSize)
+            .description("Entities whose latest version is in the version index")
+            .register(meterRegistry);
+
+        changeFeed.addListener(event -> record(event.entityType().getValue(), event.version().getId(),
+            event.version().getVersion(), event.version().getUid()));
+    }
+
+    /**
+     * @return the latest version of the entity as far as the index knows, or null if it does not know
+     */
+    public Stamp get(EntityType entityType, String id) {
+        final Stamp stamp = stamps.getIfPresent(key(entityType.getValue(), id));
+        (stamp != null ? hits : misses).increment();
+        return stamp;
+    }
+
+    /**
+     * Remember a latest version, unless a newer one is already known
+     */
+    public void record(Entity entity) {
+        record(entity.getType(), entity.getId(), entity.getVersion(), entity.getUid());
+    }
+
+    private void record(String entityType, String id, int version, String uid) {
+        stamps.asMap().merge(key(entityType, id), new Stamp(version, uid),
+            (known, candidate) -> candidate.version() > known.version() ? candidate : known);
+    }
+
+    private static String key(String entityType, String id) {
+        return entityType + ':' + id;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("scd.version_index.lookups")
+            .description("Conditional reads checked against the version index")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,136 @@
+package com.mercor.assignment.scd.domain.core.lock;
+
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Serializes writers of the same entity ID until their transaction ends
+ * A writer reads the latest version and inserts {@code version + 1}; without a lock two writers of one ID read the
+ * same version and the slower one fails on the unique (id, version) key only after its work is done. Writers first
+ * take a stripe of an in-process {@link StripedLock}, so writers on one node wait in the JVM, with a timeout, rather
+ * than in Postgres, and then a transaction-scoped Postgres advisory lock on the same IDs, which serializes writers on
+ * different nodes. Both are held until the transaction completes.
+ * <p>
+ * The lock is taken inside the writer's transaction, so a waiting writer already holds a pooled connection: contended
+ * writers of one ID each occupy a connection while they queue. {@code scd.write-lock.timeout-ms} bounds the wait for
+ * the in-process lock; the wait for the advisory lock is bounded only by the statement and call deadlines.
+ */
+@Slf4j
+@Component
+public class EntityWriteLock {
+
+    private final StripedLock stripedLock;
+    private final boolean advisory;
+    private final long timeoutMs;
+    private final MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EntityWriteLock(
+        @Value("${scd.write-lock.stripes:1024}") int stripes,
+        @Value("${scd.write-lock.advisory:true}") boolean advisory,
+        @Value("${scd.write-lock.timeout-ms:5000}") long timeoutMs,
+        MeterRegistry meterRegistry) {
+        this.stripedLock = new StripedLock(stripes);
+        this.advisory = advisory;
+        this.timeoutMs = timeoutMs;
+        this.meterRegistry = meterRegistry;
+        log.info("Entity write lock with {} stripes, advisory locks {}", stripedLock.getStripes(),
+            advisory ? "enabled" : "disabled");
+    }
+
+    /**
+     * Lock the given IDs for writing until the current transaction commits or rolls back
+     * Call it once per transaction, before the latest versions are read, with every ID the transaction will write:
+     * the IDs are locked in a fixed order only within one call.
+     *
+     * @throws io.grpc.StatusRuntimeException ABORTED if the in-process lock is not granted within the timeout
+     * @throws IllegalStateException if no transaction is active
+     */
+    public void lock(EntityType type, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Entity write locks are held until commit and need a transaction");
+        }
+
+        final StripedLock.Held held = lockStripes(type, ids);
+        // Released on the writing thread once the advisory locks are gone as well
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                held.close();
+            }
+        });
+
+        if (advisory) {
+            final long start = System.nanoTime();
+            lockAdvisory(type, ids);
+            waitTimer(type, "advisory").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private StripedLock.Held lockStripes(EntityType type, Collection<String> ids) {
+        final long start = System.nanoTime();
+        try {
+            return stripedLock.lockAll(ids, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            meterRegistry.counter("scd.write_lock.timeouts", "entity_type", type.getValue()).increment();
+            throw Status.ABORTED
+                .withDescription("Timed out waiting for a concurrent update of the same " + type.getValue())
+                .asRuntimeException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withDescription("Interrupted waiting for the write lock").asRuntimeException();
+        } finally {
+            waitTimer(type, "local").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Take the transaction-scoped advisory locks of the IDs in ascending key order, in one statement
+     */
+    private void lockAdvisory(EntityType type, Collection<String> ids) {
+        final Long[] keys = ids.stream()
+            .map(id -> advisoryKey(type, id))
+            .distinct()
+            .sorted()
+            .toArray(Long[]::new);
+
+        // unnest yields the elements in array order, so the locks are taken in the sorted order
+        entityManager.createNativeQuery(
+                "SELECT count(pg_advisory_xact_lock(k)) FROM unnest(CAST(?1 AS bigint[])) AS k")
+            .setParameter(1, keys)
+            .getSingleResult();
+    }
+
+    /**
+     * The advisory lock key of an entity ID: the entity type in the high half, the ID in the low half
+     * String hash codes are specified by the language, so every node derives the same key.
+     */
+    static long advisoryKey(EntityType type, String id) {
+        return ((long) type.getValue().hashCode() << 32) | (id.hashCode() & 0xFFFFFFFFL);
+    }
+
+    private Timer waitTimer(EntityType type, String lock) {
+        return Timer.builder("scd.write_lock.wait")
+            .description("Time writers wait for the write lock of the entities they update")
+            .tag("entity_type", type.getValue())
+            .tag("lock", lock)
+            .register(meterRegistry);
+    }
+}
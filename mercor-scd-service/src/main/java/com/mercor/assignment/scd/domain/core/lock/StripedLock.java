@@ -0,0 +1,97 @@
+package com.mercor.assignment.scd.domain.core.lock;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed array of reentrant locks that keys are hashed onto, so memory stays bounded however many keys are locked
+ * Unrelated keys may share a stripe; that only makes one wait for the other. Several keys are always locked in
+ * ascending stripe order, so two callers locking overlapping key sets cannot deadlock. The locks park rather than
+ * pin, so they are safe to hold on virtual threads.
+ */
+public final class StripedLock {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes requested stripe count; rounded up to a power of two
+     */
+    public StripedLock(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("Striped lock needs at least one stripe");
+        }
+        final int stripeCount = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.mask = stripeCount - 1;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Lock the stripes of all keys, waiting at most {@code timeout} in total
+     *
+     * @param keys the keys to lock; duplicates and keys sharing a stripe lock it once
+     * @return a handle that releases exactly the stripes locked by this call
+     * @throws TimeoutException if a stripe could not be locked in time; nothing stays locked then
+     */
+    public Held lockAll(Collection<?> keys, long timeout, TimeUnit unit)
+        throws InterruptedException, TimeoutException {
+        final int[] order = keys.stream().mapToInt(this::stripeOf).distinct().sorted().toArray();
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        int locked = 0;
+        try {
+            for (; locked < order.length; locked++) {
+                if (!stripes[order[locked]].tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw new TimeoutException("Timed out waiting for " + keys.size() + " key lock(s)");
+                }
+            }
+        } finally {
+            if (locked < order.length) {
+                unlock(order, locked);
+            }
+        }
+        return new Held(order);
+    }
+
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    int stripeOf(Object key) {
+        final int hash = key.hashCode();
+        // Spread the high bits down, as HashMap does, so keys differing only in their tail still spread
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void unlock(int[] order, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[order[i]].unlock();
+        }
+    }
+
+    /**
+     * The stripes locked by one {@link #lockAll} call; must be closed by the thread that locked them
+     */
+    public final class Held implements AutoCloseable {
+
+        private final int[] order;
+        private boolean released;
+
+        private Held(int[] order) {
+            this.order = order;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                unlock(order, order.length);
+            }
+        }
+    }
+}
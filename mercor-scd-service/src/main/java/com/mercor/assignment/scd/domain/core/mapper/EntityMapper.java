@@ -1,25 +1,29 @@
 package com.mercor.assignment.scd.domain.core.mapper;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.ByteString;
+import com.mercor.assignment.scd.common.grpc.PayloadFormat;
 import com.mercor.assignment.scd.domain.common.Entity;
 import com.mercor.assignment.scd.domain.core.EntityListResponse;
 import com.mercor.assignment.scd.domain.core.EntityResponse;
 import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.job.JobProto;
 import com.mercor.assignment.scd.domain.job.model.Job;
 import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.paymentlineitems.PaymentLineItemProto;
+import com.mercor.assignment.scd.domain.timelog.TimelogProto;
 import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import org.mapstruct.AfterMapping;
+import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
 import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 import org.mapstruct.factory.Mappers;
 
-import java.io.IOException;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * MapStruct mapper for converting between SCD entities and Protocol Buffer messages
@@ -39,10 +43,21 @@ public interface EntityMapper {
     @Mapping(target = "updatedAt", source = "updatedAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "type", constant = "generic")
     @Mapping(target = "data", expression = "java(serializeEntityData(entity))")
+    @Mapping(target = "job", ignore = true)
+    @Mapping(target = "timelog", ignore = true)
+    @Mapping(target = "paymentLineItem", ignore = true)
     Entity mapToEntityProto(SCDEntity entity);
 
     /**
-     * Maps a Job entity to the common Entity proto message with Job-specific data
+     * Maps a Job entity to the common Entity proto message with all Job-specific data
+     */
+    default Entity mapJobToEntityProto(Job job) {
+        return mapJobToEntityProto(job, FieldProjection.ALL);
+    }
+
+    /**
+     * Maps a Job entity to the common Entity proto message with the projected Job-specific data
+     * The payload is filled in by {@link #setJobPayload} in the format the caller asked for.
      */
     @Mapping(target = "id", source = "id")
     @Mapping(target = "uid", source = "uid")
@@ -50,11 +65,22 @@ public interface EntityMapper {
     @Mapping(target = "createdAt", source = "createdAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "updatedAt", source = "updatedAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "type", constant = "jobs")
-    @Mapping(target = "data", expression = "java(serializeJobData(job))")
-    Entity mapJobToEntityProto(Job job);
+    @Mapping(target = "data", ignore = true)
+    @Mapping(target = "job", ignore = true)
+    @Mapping(target = "timelog", ignore = true)
+    @Mapping(target = "paymentLineItem", ignore = true)
+    Entity mapJobToEntityProto(Job job, @Context FieldProjection projection);
+
+    /**
+     * Maps a Timelog entity to the common Entity proto message with all Timelog-specific data
+     */
+    default Entity mapTimelogToEntityProto(Timelog timelog) {
+        return mapTimelogToEntityProto(timelog, FieldProjection.ALL);
+    }
 
     /**
-     * Maps a Timelog entity to the common Entity proto message with Timelog-specific data
+     * Maps a Timelog entity to the common Entity proto message with the projected Timelog-specific data
+     * The payload is filled in by {@link #setTimelogPayload} in the format the caller asked for.
      */
     @Mapping(target = "id", source = "id")
     @Mapping(target = "uid", source = "uid")
@@ -62,11 +88,22 @@ public interface EntityMapper {
     @Mapping(target = "createdAt", source = "createdAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "updatedAt", source = "updatedAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "type", constant = "timelog")
-    @Mapping(target = "data", expression = "java(serializeTimelogData(timelog))")
-    Entity mapTimelogToEntityProto(Timelog timelog);
+    @Mapping(target = "data", ignore = true)
+    @Mapping(target = "job", ignore = true)
+    @Mapping(target = "timelog", ignore = true)
+    @Mapping(target = "paymentLineItem", ignore = true)
+    Entity mapTimelogToEntityProto(Timelog timelog, @Context FieldProjection projection);
 
     /**
-     * Maps a PaymentLineItem entity to the common Entity proto message with PaymentLineItem-specific data
+     * Maps a PaymentLineItem entity to the common Entity proto message with all PaymentLineItem-specific data
+     */
+    default Entity mapPaymentLineItemToEntityProto(PaymentLineItem paymentLineItem) {
+        return mapPaymentLineItemToEntityProto(paymentLineItem, FieldProjection.ALL);
+    }
+
+    /**
+     * Maps a PaymentLineItem entity to the common Entity proto message with the projected PaymentLineItem-specific data
+     * The payload is filled in by {@link #setPaymentLineItemPayload} in the format the caller asked for.
      */
     @Mapping(target = "id", source = "id")
     @Mapping(target = "uid", source = "uid")
@@ -74,8 +111,11 @@ public interface EntityMapper {
     @Mapping(target = "createdAt", source = "createdAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "updatedAt", source = "updatedAt", qualifiedByName = "dateToMillis")
     @Mapping(target = "type", constant = "payment_line_items")
-    @Mapping(target = "data", expression = "java(serializePaymentLineItemData(paymentLineItem))")
-    Entity mapPaymentLineItemToEntityProto(PaymentLineItem paymentLineItem);
+    @Mapping(target = "data", ignore = true)
+    @Mapping(target = "job", ignore = true)
+    @Mapping(target = "timelog", ignore = true)
+    @Mapping(target = "paymentLineItem", ignore = true)
+    Entity mapPaymentLineItemToEntityProto(PaymentLineItem paymentLineItem, @Context FieldProjection projection);
 
     /**
      * Wraps an Entity proto in an EntityResponse
@@ -143,86 +183,139 @@ public interface EntityMapper {
     }
 
     /**
-     * Serializes generic entity data to ByteString
+     * Sets the Job payload as a typed JobProto, or as JSON data when the caller asked for it
      */
-    default ByteString serializeEntityData(SCDEntity entity) {
-        try {
-            // Use Jackson to serialize to JSON
-            ObjectMapper mapper = new ObjectMapper();
-            byte[] jsonBytes = mapper.writeValueAsBytes(entity);
+    @AfterMapping
+    default void setJobPayload(Job job, @MappingTarget Entity.Builder entity,
+        @Context FieldProjection projection) {
+        if (PayloadFormat.current() == PayloadFormat.JSON) {
+            entity.setData(EntityPayloadJson.job(job, projection));
+        } else {
+            entity.setJob(toJobPayload(job, projection));
+        }
+    }
 
-            return ByteString.copyFrom(jsonBytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Error serializing entity data", e);
+    /**
+     * Sets the Timelog payload as a typed TimelogProto, or as JSON data when the caller asked for it
+     */
+    @AfterMapping
+    default void setTimelogPayload(Timelog timelog, @MappingTarget Entity.Builder entity,
+        @Context FieldProjection projection) {
+        if (PayloadFormat.current() == PayloadFormat.JSON) {
+            entity.setData(EntityPayloadJson.timelog(timelog, projection));
+        } else {
+            entity.setTimelog(toTimelogPayload(timelog, projection));
         }
     }
 
     /**
-     * Serializes Job-specific data to ByteString
+     * Sets the PaymentLineItem payload as a typed PaymentLineItemProto, or as JSON data when the caller asked for it
      */
-    default ByteString serializeJobData(Job job) {
-        try {
-            // Create a map of job properties to serialize
-            Map<String, Object> jobData = new HashMap<>();
-            jobData.put("status", job.getStatus());
-            jobData.put("rate", job.getRate());
-            jobData.put("title", job.getTitle());
-            jobData.put("companyId", job.getCompanyId());
-            jobData.put("contractorId", job.getContractorId());
+    @AfterMapping
+    default void setPaymentLineItemPayload(PaymentLineItem paymentLineItem, @MappingTarget Entity.Builder entity,
+        @Context FieldProjection projection) {
+        if (PayloadFormat.current() == PayloadFormat.JSON) {
+            entity.setData(EntityPayloadJson.paymentLineItem(paymentLineItem, projection));
+        } else {
+            entity.setPaymentLineItem(toPaymentLineItemPayload(paymentLineItem, projection));
+        }
+    }
+
+    /**
+     * Builds the typed Job payload from the projected fields; fields already on Entity (id, uid, version, timestamps)
+     * are left unset
+     */
+    default JobProto toJobPayload(Job job, FieldProjection projection) {
+        JobProto.Builder builder = JobProto.newBuilder();
+        if (projection.includes("status") && job.getStatus() != null) {
+            builder.setStatus(job.getStatus());
+        }
+        if (projection.includes("rate") && job.getRate() != null) {
+            builder.setRate(job.getRate().doubleValue());
+        }
+        if (projection.includes("title") && job.getTitle() != null) {
+            builder.setTitle(job.getTitle());
+        }
+        if (projection.includes("companyId") && job.getCompanyId() != null) {
+            builder.setCompanyId(job.getCompanyId());
+        }
+        if (projection.includes("contractorId") && job.getContractorId() != null) {
+            builder.setContractorId(job.getContractorId());
+        }
+        return builder.build();
+    }
 
-            // Use Jackson to serialize to JSON
-            ObjectMapper mapper = new ObjectMapper();
-            byte[] jsonBytes = mapper.writeValueAsBytes(jobData);
+    /**
+     * Builds the typed Timelog payload from the projected fields; fields already on Entity (id, uid, version,
+     * timestamps) are left unset
+     */
+    default TimelogProto toTimelogPayload(Timelog timelog, FieldProjection projection) {
+        TimelogProto.Builder builder = TimelogProto.newBuilder();
+        if (projection.includes("duration") && timelog.getDuration() != null) {
+            builder.setDuration(timelog.getDuration());
+        }
+        if (projection.includes("timeStart") && timelog.getTimeStart() != null) {
+            builder.setTimeStart(timelog.getTimeStart());
+        }
+        if (projection.includes("timeEnd") && timelog.getTimeEnd() != null) {
+            builder.setTimeEnd(timelog.getTimeEnd());
+        }
+        if (projection.includes("type") && timelog.getType() != null) {
+            builder.setType(timelog.getType());
+        }
+        if (projection.includes("jobUid") && timelog.getJobUid() != null) {
+            builder.setJobUid(timelog.getJobUid());
+        }
+        return builder.build();
+    }
 
-            return ByteString.copyFrom(jsonBytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Error serializing job data", e);
+    /**
+     * Builds the typed PaymentLineItem payload from the projected fields; fields already on Entity (id, uid, version,
+     * timestamps) are left unset
+     */
+    default PaymentLineItemProto toPaymentLineItemPayload(PaymentLineItem paymentLineItem, FieldProjection projection) {
+        PaymentLineItemProto.Builder builder = PaymentLineItemProto.newBuilder();
+        if (projection.includes("jobUid") && paymentLineItem.getJobUid() != null) {
+            builder.setJobUid(paymentLineItem.getJobUid());
+        }
+        if (projection.includes("timelogUid") && paymentLineItem.getTimelogUid() != null) {
+            builder.setTimelogUid(paymentLineItem.getTimelogUid());
+        }
+        if (projection.includes("amount") && paymentLineItem.getAmount() != null) {
+            builder.setAmount(paymentLineItem.getAmount().doubleValue());
         }
+        if (projection.includes("status") && paymentLineItem.getStatus() != null) {
+            builder.setStatus(paymentLineItem.getStatus());
+        }
+        return builder.build();
     }
 
     /**
-     * Serializes Timelog-specific data to ByteString
+     * Serializes generic entity data to JSON
      */
-    default ByteString serializeTimelogData(Timelog timelog) {
-        try {
-            // Create a map of timelog properties to serialize
-            Map<String, Object> timelogData = new HashMap<>();
-            timelogData.put("duration", timelog.getDuration());
-            timelogData.put("timeStart", timelog.getTimeStart());
-            timelogData.put("timeEnd", timelog.getTimeEnd());
-            timelogData.put("type", timelog.getType());
-            timelogData.put("jobUid", timelog.getJobUid());
+    default ByteString serializeEntityData(SCDEntity entity) {
+        return EntityPayloadJson.entity(entity);
+    }
 
-            // Use Jackson to serialize to JSON
-            ObjectMapper mapper = new ObjectMapper();
-            byte[] jsonBytes = mapper.writeValueAsBytes(timelogData);
+    /**
+     * Serializes Job-specific data to JSON
+     */
+    default ByteString serializeJobData(Job job) {
+        return EntityPayloadJson.job(job, FieldProjection.ALL);
+    }
 
-            return ByteString.copyFrom(jsonBytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Error serializing timelog data", e);
-        }
+    /**
+     * Serializes Timelog-specific data to JSON
+     */
+    default ByteString serializeTimelogData(Timelog timelog) {
+        return EntityPayloadJson.timelog(timelog, FieldProjection.ALL);
     }
 
     /**
-     * Serializes PaymentLineItem-specific data to ByteString
+     * Serializes PaymentLineItem-specific data to JSON
      */
     default ByteString serializePaymentLineItemData(PaymentLineItem paymentLineItem) {
-        try {
-            // Create a map of payment line item properties to serialize
-            Map<String, Object> paymentLineItemData = new HashMap<>();
-            paymentLineItemData.put("jobUid", paymentLineItem.getJobUid());
-            paymentLineItemData.put("timelogUid", paymentLineItem.getTimelogUid());
-            paymentLineItemData.put("amount", paymentLineItem.getAmount());
-            paymentLineItemData.put("status", paymentLineItem.getStatus());
-
-            // Use Jackson to serialize to JSON
-            ObjectMapper mapper = new ObjectMapper();
-            byte[] jsonBytes = mapper.writeValueAsBytes(paymentLineItemData);
-
-            return ByteString.copyFrom(jsonBytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Error serializing payment line item data", e);
-        }
+        return EntityPayloadJson.paymentLineItem(paymentLineItem, FieldProjection.ALL);
     }
 
     /**
@@ -0,0 +1,108 @@
+package com.mercor.assignment.scd.domain.core.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+
+/**
+ * Writes the JSON {@code data} payload of the common Entity message for callers that still ask for it
+ * Fields are streamed straight into a {@link ByteString.Output} with a shared, thread-safe {@link ObjectMapper}, so
+ * there is no intermediate map and no copy of the finished bytes. Field names match the maps the payload used to be
+ * built from; fields outside the requested projection are left out.
+ */
+final class EntityPayloadJson {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int INITIAL_CAPACITY = 128;
+
+    private EntityPayloadJson() {
+    }
+
+    @FunctionalInterface
+    private interface FieldWriter {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    static ByteString entity(SCDEntity entity) {
+        return write(json -> OBJECT_MAPPER.writeValue(json, entity));
+    }
+
+    static ByteString job(Job job, FieldProjection projection) {
+        return write(json -> {
+            json.writeStartObject();
+            writeStringField(json, projection, "status", job.getStatus());
+            writeNumberField(json, projection, "rate", job.getRate());
+            writeStringField(json, projection, "title", job.getTitle());
+            writeStringField(json, projection, "companyId", job.getCompanyId());
+            writeStringField(json, projection, "contractorId", job.getContractorId());
+            json.writeEndObject();
+        });
+    }
+
+    static ByteString timelog(Timelog timelog, FieldProjection projection) {
+        return write(json -> {
+            json.writeStartObject();
+            writeNumberField(json, projection, "duration", timelog.getDuration());
+            writeNumberField(json, projection, "timeStart", timelog.getTimeStart());
+            writeNumberField(json, projection, "timeEnd", timelog.getTimeEnd());
+            writeStringField(json, projection, "type", timelog.getType());
+            writeStringField(json, projection, "jobUid", timelog.getJobUid());
+            json.writeEndObject();
+        });
+    }
+
+    static ByteString paymentLineItem(PaymentLineItem paymentLineItem, FieldProjection projection) {
+        return write(json -> {
+            json.writeStartObject();
+            writeStringField(json, projection, "jobUid", paymentLineItem.getJobUid());
+            writeStringField(json, projection, "timelogUid", paymentLineItem.getTimelogUid());
+            writeNumberField(json, projection, "amount", paymentLineItem.getAmount());
+            writeStringField(json, projection, "status", paymentLineItem.getStatus());
+            json.writeEndObject();
+        });
+    }
+
+    private static void writeStringField(JsonGenerator json, FieldProjection projection, String name, String value)
+        throws IOException {
+        if (projection.includes(name)) {
+            json.writeStringField(name, value);
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator json, FieldProjection projection, String name, BigDecimal value)
+        throws IOException {
+        if (projection.includes(name)) {
+            json.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeNumberField(JsonGenerator json, FieldProjection projection, String name, Long value)
+        throws IOException {
+        if (!projection.includes(name)) {
+            return;
+        }
+        if (value == null) {
+            json.writeNullField(name);
+        } else {
+            json.writeNumberField(name, value.longValue());
+        }
+    }
+
+    private static ByteString write(FieldWriter writer) {
+        final ByteString.Output out = ByteString.newOutput(INITIAL_CAPACITY);
+        try (JsonGenerator json = OBJECT_MAPPER.getFactory().createGenerator(out)) {
+            writer.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error serializing entity data", e);
+        }
+        return out.toByteString();
+    }
+}
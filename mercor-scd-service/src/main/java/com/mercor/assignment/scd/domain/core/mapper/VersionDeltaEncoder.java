@@ -0,0 +1,82 @@
+package com.mercor.assignment.scd.domain.core.mapper;
+
+import com.google.protobuf.FieldMask;
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.model.VersionComparator;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Maps a version history as deltas: the first entry in full, every later one with only the attributes that differ
+ * from the entry before it
+ * The changed attributes are listed in {@code Entity.changed_fields}, so an attribute that became null can be told
+ * apart from one that did not change. Entries are encoded one at a time in the order they are sent, so a streamed
+ * history is never held in memory. An encoder keeps the previous entry and serves a single history.
+ */
+public final class VersionDeltaEncoder {
+
+    private static final Pattern CAMEL_CASE_BOUNDARY = Pattern.compile("([A-Z])");
+
+    private final FieldProjection projection;
+    private SCDEntity previous;
+
+    /**
+     * @param projection the attributes the caller asked for; attributes outside it are never sent
+     */
+    public VersionDeltaEncoder(FieldProjection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Map the next entry of the history
+     */
+    public Entity encode(SCDEntity version) {
+        final SCDEntity base = previous;
+        previous = version;
+
+        if (version instanceof Job job) {
+            return encode((Job) base, job, EntityMapper.INSTANCE::mapJobToEntityProto);
+        } else if (version instanceof Timelog timelog) {
+            return encode((Timelog) base, timelog, EntityMapper.INSTANCE::mapTimelogToEntityProto);
+        } else if (version instanceof PaymentLineItem paymentLineItem) {
+            return encode((PaymentLineItem) base, paymentLineItem,
+                EntityMapper.INSTANCE::mapPaymentLineItemToEntityProto);
+        }
+        throw new IllegalArgumentException("Unsupported entity type: " + version.getClass().getSimpleName());
+    }
+
+    private <T extends SCDEntity> Entity encode(T base, T version, BiFunction<T, FieldProjection, Entity> mapper) {
+        if (base == null) {
+            return mapper.apply(version, projection);
+        }
+
+        final List<String> changed = new ArrayList<>();
+        final FieldMask.Builder changedFields = FieldMask.newBuilder();
+        for (String attribute : VersionComparator.changedAttributes(base, version)) {
+            if (projection.includes(attribute)) {
+                changed.add(attribute);
+                changedFields.addPaths(fieldPath(attribute));
+            }
+        }
+
+        final FieldProjection changedProjection = changed.isEmpty() ? FieldProjection.HEADER : FieldProjection.of(changed);
+        return mapper.apply(version, changedProjection).toBuilder()
+            .setChangedFields(changedFields)
+            .build();
+    }
+
+    /**
+     * The proto field path of an attribute, e.g. company_id for companyId
+     */
+    private static String fieldPath(String attribute) {
+        return CAMEL_CASE_BOUNDARY.matcher(attribute).replaceAll("_$1").toLowerCase(Locale.ROOT);
+    }
+}
@@ -50,4 +50,11 @@ public abstract class AbstractSCDEntity implements SCDEntity {
    */
   @Column(name = "updated_at", nullable = false)
   private Date updatedAt;
+
+  /**
+   * Whether this row is the latest version of the entity. Exactly one row per ID is current; the flag is maintained by
+   * the repository write path and backs the partial "current row" indexes
+   */
+  @Column(name = "is_current", nullable = false)
+  private Boolean current;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.mercor.assignment.scd.domain.core.model;
 
 import java.util.Date;
+import java.util.Map;
 
 /**
  * Base interface for all SCD entities
@@ -27,5 +28,15 @@ public interface SCDEntity {
 
   void setUpdatedAt(Date updatedAt);
 
+  Boolean getCurrent();
+
+  void setCurrent(Boolean current);
+
   SCDEntity cloneForNewVersion(String uid, int version, Date now);
+
+  /**
+   * The attributes that make up this version's payload, by name and in a fixed order
+   * The version header (id, uid, version, timestamps, current flag) and JPA relations are not part of it.
+   */
+  Map<String, Object> payloadAttributes();
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.mercor.assignment.scd.domain.core.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares the payloads of two versions of one entity
+ * Attributes are compared by value, so 10.0 and 10.00 are the same rate. The version header is never compared.
+ */
+public final class VersionComparator {
+
+  private VersionComparator() {
+  }
+
+  /**
+   * Whether two versions carry the same value in every payload attribute
+   */
+  public static boolean samePayload(SCDEntity before, SCDEntity after) {
+    return changedAttributes(before, after).isEmpty();
+  }
+
+  /**
+   * The names of the payload attributes whose value differs between two versions, in the entity's attribute order
+   *
+   * @param before a version of the entity
+   * @param after another version of the same entity
+   */
+  public static List<String> changedAttributes(SCDEntity before, SCDEntity after) {
+    final Map<String, Object> afterAttributes = after.payloadAttributes();
+    final List<String> changed = new ArrayList<>();
+    before.payloadAttributes().forEach((name, value) -> {
+      if (!sameValue(value, afterAttributes.get(name))) {
+        changed.add(name);
+      }
+    });
+    return changed;
+  }
+
+  private static boolean sameValue(Object before, Object after) {
+    if (before instanceof BigDecimal decimalBefore && after instanceof BigDecimal decimalAfter) {
+      return decimalBefore.compareTo(decimalAfter) == 0;
+    }
+    return Objects.equals(before, after);
+  }
+}
@@ -0,0 +1,28 @@
+package com.mercor.assignment.scd.domain.core.pagination;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated query
+ *
+ * @param items the rows of this page, in sort order
+ * @param nextPageToken the token for the following page, or null when this is the last page
+ * @param <T> the item type
+ */
+public record KeysetPage<T>(List<T> items, String nextPageToken) {
+
+  /**
+   * Map the items of this page, keeping the page token
+   *
+   * @param mapper the item mapper
+   * @return a page with mapped items
+   */
+  public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+    return new KeysetPage<>(items.stream().<R>map(mapper).toList(), nextPageToken);
+  }
+
+  public boolean hasNext() {
+    return nextPageToken != null;
+  }
+}
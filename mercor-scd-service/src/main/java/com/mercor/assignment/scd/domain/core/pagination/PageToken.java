@@ -0,0 +1,84 @@
+package com.mercor.assignment.scd.domain.core.pagination;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Opaque keyset cursor: the sort key and UID of the last row of a page
+ * The sort field and direction are embedded so a token cannot be replayed against a differently sorted query. The sort
+ * value is null when the last row had no value in the sort column; tokens of the first format, which could not say so,
+ * are still read.
+ */
+@Value
+public class PageToken {
+
+  private static final byte FORMAT_VERSION = 2;
+  private static final byte FORMAT_VERSION_NON_NULL = 1;
+
+  String sortBy;
+  boolean descending;
+  String sortValue;
+  String uid;
+
+  /**
+   * Encode this cursor as a URL-safe string
+   */
+  public String encode() {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(FORMAT_VERSION);
+      out.writeUTF(sortBy);
+      out.writeBoolean(descending);
+      out.writeBoolean(sortValue != null);
+      if (sortValue != null) {
+        out.writeUTF(sortValue);
+      }
+      out.writeUTF(uid);
+      out.flush();
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    } catch (IOException e) {
+      throw new IllegalStateException("Error encoding page token", e);
+    }
+  }
+
+  /**
+   * Decode a token produced by {@link #encode()}
+   *
+   * @param token the opaque token
+   * @return the decoded cursor
+   * @throws ValidationException if the token is malformed
+   */
+  public static PageToken decode(String token) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)));
+      final byte version = in.readByte();
+      if (version != FORMAT_VERSION && version != FORMAT_VERSION_NON_NULL) {
+        throw ValidationException.forField("page_token", "unsupported page token");
+      }
+      final String sortBy = in.readUTF();
+      final boolean descending = in.readBoolean();
+      final String sortValue = version == FORMAT_VERSION_NON_NULL || in.readBoolean() ? in.readUTF() : null;
+      return new PageToken(sortBy, descending, sortValue, in.readUTF());
+    } catch (IOException | IllegalArgumentException e) {
+      throw ValidationException.forField("page_token", "malformed page token");
+    }
+  }
+
+  /**
+   * Check that this token was issued for the given sort
+   *
+   * @throws ValidationException if the sort field or direction differ
+   */
+  public void verifySort(String expectedSortBy, boolean expectedDescending) {
+    if (!sortBy.equals(expectedSortBy) || descending != expectedDescending) {
+      throw ValidationException.forField("page_token", "page token does not match the requested sort");
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.mercor.assignment.scd.domain.core.pagination;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Paging and sorting options for latest-version queries
+ * A page token, when present, takes precedence over the offset
+ */
+@Value
+@Builder
+public class QueryOptions {
+
+  public static final int DEFAULT_LIMIT = 100;
+  public static final int MAX_LIMIT = 1000;
+  public static final String DEFAULT_SORT_BY = "updatedAt";
+
+  int limit;
+  int offset;
+  String sortBy;
+  boolean descending;
+  String pageToken;
+
+  /**
+   * Build query options from raw request values, applying defaults and bounds
+   *
+   * @param limit the requested page size (0 for {@link #DEFAULT_LIMIT}, not for every match)
+   * @param offset the number of rows to skip when no page token is given
+   * @param sortBy the field to sort by, in snake_case or camelCase (blank for updatedAt)
+   * @param sortDirection "asc" or "desc" (blank for descending)
+   * @param pageToken the opaque token returned with the previous page
+   * @return the normalized query options
+   */
+  public static QueryOptions of(int limit, int offset, String sortBy, String sortDirection, String pageToken) {
+    if (limit < 0) {
+      throw ValidationException.forField("limit", "must not be negative");
+    }
+    if (offset < 0) {
+      throw ValidationException.forField("offset", "must not be negative");
+    }
+
+    return QueryOptions.builder()
+        .limit(limit == 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT))
+        .offset(offset)
+        .sortBy(parseSortBy(sortBy))
+        .descending(parseDescending(sortDirection))
+        .pageToken(pageToken == null || pageToken.isBlank() ? null : pageToken)
+        .build();
+  }
+
+  /**
+   * Build options for a streamed query: the limit only caps the number of rows, there are no pages
+   * The stream starts after the page token, e.g. one returned by Query, or skips the offset when there is none.
+   *
+   * @param limit the maximum number of rows (0 for unbounded)
+   * @param offset the number of rows to skip when no page token is given
+   * @param sortBy the field to sort by, in snake_case or camelCase (blank for updatedAt)
+   * @param sortDirection "asc" or "desc" (blank for descending)
+   * @param pageToken a page token issued for the same sort, to resume after its last row
+   * @return the normalized query options
+   */
+  public static QueryOptions forStream(int limit, int offset, String sortBy, String sortDirection, String pageToken) {
+    if (limit < 0) {
+      throw ValidationException.forField("limit", "must not be negative");
+    }
+    if (offset < 0) {
+      throw ValidationException.forField("offset", "must not be negative");
+    }
+
+    return QueryOptions.builder()
+        .limit(limit)
+        .offset(offset)
+        .sortBy(parseSortBy(sortBy))
+        .descending(parseDescending(sortDirection))
+        .pageToken(pageToken == null || pageToken.isBlank() ? null : pageToken)
+        .build();
+  }
+
+  /**
+   * Default options: first page, newest updates first
+   */
+  public static QueryOptions defaults() {
+    return of(0, 0, null, null, null);
+  }
+
+  private static String parseSortBy(String sortBy) {
+    return sortBy == null || sortBy.isBlank() ? DEFAULT_SORT_BY : FieldProjection.attributeName(sortBy);
+  }
+
+  private static boolean parseDescending(String sortDirection) {
+    if (sortDirection == null || sortDirection.isBlank() || "desc".equalsIgnoreCase(sortDirection)) {
+      return true;
+    }
+    if ("asc".equalsIgnoreCase(sortDirection)) {
+      return false;
+    }
+    throw ValidationException.forField("sort_direction", "must be 'asc' or 'desc'");
+  }
+}
@@ -0,0 +1,101 @@
+package com.mercor.assignment.scd.domain.core.projection;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The entity attributes a read should load and return, built from a request's {@code google.protobuf.FieldMask}
+ * The SCD header (id, version, uid, createdAt, updatedAt) is always part of a projection: it identifies the version
+ * and fills the common Entity message. An empty mask means every attribute.
+ */
+public final class FieldProjection {
+
+  public static final FieldProjection ALL = new FieldProjection(null);
+
+  public static final Set<String> HEADER_FIELDS = Set.of("id", "version", "uid", "createdAt", "updatedAt");
+
+  /**
+   * The SCD header without any entity attribute
+   */
+  public static final FieldProjection HEADER = new FieldProjection(HEADER_FIELDS);
+
+  private final Set<String> fields;
+
+  private FieldProjection(Set<String> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * Build a projection from field mask paths
+   *
+   * @param paths entity attribute names, in proto snake_case or Java camelCase
+   * @return the projection, {@link #ALL} when no paths are given
+   */
+  public static FieldProjection of(Collection<String> paths) {
+    if (paths == null || paths.isEmpty()) {
+      return ALL;
+    }
+
+    final Set<String> fields = new LinkedHashSet<>(HEADER_FIELDS);
+    for (String path : paths) {
+      fields.add(attributeName(path));
+    }
+    return new FieldProjection(Collections.unmodifiableSet(fields));
+  }
+
+  /**
+   * @return true when every attribute is requested
+   */
+  public boolean isAll() {
+    return fields == null;
+  }
+
+  /**
+   * @param attribute the entity attribute name
+   * @return true when the attribute is part of the projection
+   */
+  public boolean includes(String attribute) {
+    return fields == null || fields.contains(attribute);
+  }
+
+  /**
+   * @return the projected attribute names, header first; only meaningful when {@link #isAll()} is false
+   */
+  public Set<String> getFields() {
+    return fields == null ? Set.of() : fields;
+  }
+
+  /**
+   * Resolve a request field name to the entity attribute it names
+   * Requests name fields in proto snake_case, e.g. "updated_at"; Java camelCase names are accepted as they are.
+   *
+   * @param path the field name from a field mask or sort_by
+   * @return the entity attribute name
+   */
+  public static String attributeName(String path) {
+    path = path.trim();
+    if (path.indexOf('_') < 0) {
+      return path;
+    }
+
+    final StringBuilder name = new StringBuilder(path.length());
+    boolean upperNext = false;
+    for (int i = 0; i < path.length(); i++) {
+      final char c = path.charAt(i);
+      if (c == '_') {
+        upperNext = true;
+      } else {
+        name.append(upperNext ? Character.toUpperCase(c) : c);
+        upperNext = false;
+      }
+    }
+    return name.toString();
+  }
+
+  @Override
+  public String toString() {
+    return fields == null ? "FieldProjection[*]" : "FieldProjection" + fields;
+  }
+}
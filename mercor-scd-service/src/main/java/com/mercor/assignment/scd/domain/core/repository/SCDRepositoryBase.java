@@ -1,10 +1,16 @@
 package com.mercor.assignment.scd.domain.core.repository;
 
 import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.pagination.KeysetPage;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * Base interface for all SCD repositories
@@ -22,6 +28,23 @@ public interface SCDRepositoryBase<T extends SCDEntity> {
      */
     Optional<T> findLatestVersionById(String id);
 
+    /**
+     * Find the latest versions of several entities in a single query
+     *
+     * @param ids the entity IDs
+     * @return the latest version of every ID that exists, in no particular order
+     */
+    List<T> findLatestVersionsByIds(Collection<String> ids);
+
+    /**
+     * Serialize writers of the given IDs until the current transaction ends
+     * Call it before reading the latest version that a new version is derived from, with every ID the transaction
+     * will write, so that concurrent writers of an ID never derive the same version number
+     *
+     * @param ids the entity IDs about to be written
+     */
+    void lockForUpdate(Collection<String> ids);
+
     /**
      * Find all versions of an entity by ID
      *
@@ -30,6 +53,16 @@ public interface SCDRepositoryBase<T extends SCDEntity> {
      */
     List<T> findAllVersionsById(String id);
 
+    /**
+     * Find all versions of an entity by ID, reading only the projected columns
+     * The versions are built from a tuple query and are not managed; attributes outside the projection are null
+     *
+     * @param id the entity ID
+     * @param projection the attributes to load
+     * @return List of all versions, ordered by version descending
+     */
+    List<T> findAllVersionsById(String id, FieldProjection projection);
+
     /**
      * Find a specific version of an entity by UID
      *
@@ -40,13 +73,28 @@ public interface SCDRepositoryBase<T extends SCDEntity> {
 
     /**
      * Create a new version of an entity with updated fields
+     * Nothing is written if every field already holds the requested value
      *
      * @param latestVersion the latest version of the entity
      * @param fieldsToUpdate map of field names to new values
-     * @return the newly created version
+     * @return the newly created version, or {@code latestVersion} itself if nothing changed
+     * @throws com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException if latestVersion is no longer current
      */
     T createNewVersion(T latestVersion, Map<String, Object> fieldsToUpdate);
 
+    /**
+     * Create new versions of several entities in one unit of work
+     * IDs are processed in chunks of the JDBC batch size: each chunk costs one SELECT of the latest versions, one
+     * UPDATE retiring them and one batched INSERT of the new versions
+     *
+     * @param fieldsToUpdateById map of entity ID to the fields to change on that entity
+     * @param onNewVersion called with the superseded and the new version of every entity written
+     * @return the new versions keyed by ID; IDs whose fields already hold the requested values map to their current
+     *     version and are not written; IDs without a current version are absent
+     */
+    Map<String, T> createNewVersions(Map<String, Map<String, Object>> fieldsToUpdateById,
+        BiConsumer<? super T, ? super T> onNewVersion);
+
     /**
      * Create a fresh entity with new fields
      *
@@ -62,4 +110,51 @@ public interface SCDRepositoryBase<T extends SCDEntity> {
      * @return List of entities matching the criteria
      */
     List<T> findLatestVersionsByCriteria(Map<String, Object> criteria);
+
+    /**
+     * Find one page of latest versions matching specified criteria
+     * Paging is pushed down to the database as a keyset seek on (sort key, uid)
+     *
+     * @param criteria map of field names to values for filtering
+     * @param options paging and sorting options
+     * @return the page of entities with the token for the next page
+     */
+    KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options);
+
+    /**
+     * Find one page of latest versions matching specified criteria, reading only the projected columns
+     * The sort attribute is always read as well, to build the next page token. The entities are built from a tuple
+     * query and are not managed; attributes outside the projection are null
+     *
+     * @param criteria map of field names to values for filtering
+     * @param options paging and sorting options
+     * @param projection the attributes to load
+     * @return the page of entities with the token for the next page
+     */
+    KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection);
+
+    /**
+     * Stream the latest versions of entities matching specified criteria through a forward-only database cursor
+     * Must be consumed inside a transaction and closed after use; rows are detached as they are read. With a
+     * projection only those columns (plus the header and sort key) are read, as for a page.
+     *
+     * @param criteria map of field names to values for filtering
+     * @param options sorting options; the stream starts after the page token or at the offset, and a positive limit
+     *     caps the number of rows
+     * @param projection the attributes to load
+     * @return a lazily populated stream of entities
+     */
+    Stream<T> streamLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection);
+
+    /**
+     * Stream all versions of an entity through a forward-only database cursor
+     * Must be consumed inside a transaction and closed after use; rows are detached as they are read
+     *
+     * @param id the entity ID
+     * @param projection the attributes to load
+     * @return a lazily populated stream of versions, ordered by version descending
+     */
+    Stream<T> streamAllVersionsById(String id, FieldProjection projection);
 }
@@ -1,23 +1,58 @@
 package com.mercor.assignment.scd.domain.core.repository.impl;
 
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeFeed;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
+import com.mercor.assignment.scd.domain.core.lock.EntityWriteLock;
 import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.model.VersionComparator;
+import com.mercor.assignment.scd.domain.core.pagination.KeysetPage;
+import com.mercor.assignment.scd.domain.core.pagination.PageToken;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
 import com.mercor.assignment.scd.domain.core.repository.SCDRepositoryBase;
 import com.mercor.assignment.scd.domain.core.util.UidGenerator;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Table;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import jakarta.persistence.criteria.Subquery;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Abstract base implementation of the SCDRepositoryBase interface
@@ -27,12 +62,31 @@ import java.util.Optional;
  */
 public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements SCDRepositoryBase<T> {
 
+    private static final Pattern EPOCH_MILLIS = Pattern.compile("-?\\d+");
+
     @PersistenceContext
     protected EntityManager entityManager;
 
+    @Value("${scd.streaming.fetch-size:500}")
+    protected int streamFetchSize;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    protected int jdbcBatchSize;
+
+    @Autowired
+    protected ChangeFeed changeFeed;
+
+    @Autowired
+    protected EntityWriteLock entityWriteLock;
+
+    @Autowired
+    protected MeterRegistry meterRegistry;
+
     protected final UidGenerator uidGenerator;
     protected final Class<T> entityClass;
+    protected final EntityType entityType;
     protected final String entityTypeName;
+    protected final String tableName;
 
     /**
      * Constructor with required dependencies
@@ -44,7 +98,14 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
     protected AbstractSCDRepositoryImpl(UidGenerator uidGenerator, Class<T> entityClass, EntityType entityType) {
         this.uidGenerator = uidGenerator;
         this.entityClass = entityClass;
+        this.entityType = entityType;
         this.entityTypeName = entityType.getPrefix();
+        this.tableName = entityClass.getAnnotation(Table.class).name();
+    }
+
+    @PostConstruct
+    void registerOwnerResolver() {
+        changeFeed.registerOwnerResolver(entityType, this::owningJob);
     }
 
     @Override
@@ -53,20 +114,8 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
         CriteriaQuery<T> query = cb.createQuery(entityClass);
         Root<T> root = query.from(entityClass);
 
-        // Add condition for ID
-        Predicate idPredicate = cb.equal(root.get("id"), id);
-
-        // Create a subquery to get the max version for this ID
-        Subquery<Integer> subquery = query.subquery(Integer.class);
-        Root<T> subRoot = subquery.from(entityClass);
-        subquery.select(cb.max(subRoot.get("version")))
-            .where(cb.equal(subRoot.get("id"), id));
-
-        // Add condition to match the max version
-        Predicate versionPredicate = cb.equal(root.get("version"), subquery);
-
-        // Combine conditions
-        query.where(cb.and(idPredicate, versionPredicate));
+        // The current flag marks the latest version, served by the partial (id) WHERE is_current index
+        query.where(cb.equal(root.get("id"), id), cb.isTrue(root.get("current")));
 
         // Execute query
         List<T> results = entityManager.createQuery(query).getResultList();
@@ -74,6 +123,26 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> findLatestVersionsByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // A single array parameter keeps one statement shape regardless of the number of IDs
+        Query query = entityManager.createNativeQuery(
+            "SELECT * FROM " + tableName + " WHERE id = ANY(?1) AND is_current = TRUE", entityClass);
+        query.setParameter(1, ids.toArray(new String[0]));
+
+        return query.getResultList();
+    }
+
+    @Override
+    public void lockForUpdate(Collection<String> ids) {
+        entityWriteLock.lock(entityType, ids);
+    }
+
     @Override
     public List<T> findAllVersionsById(String id) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
@@ -90,6 +159,24 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
         return entityManager.createQuery(query).getResultList();
     }
 
+    @Override
+    public List<T> findAllVersionsById(String id, FieldProjection projection) {
+        if (projection.isAll()) {
+            return findAllVersionsById(id);
+        }
+        final List<String> attributes = projectedAttributes(projection, null);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+
+        query.select(cb.tuple(selections(root, attributes)));
+        query.where(cb.equal(root.get("id"), id));
+        query.orderBy(cb.desc(root.get("version")));
+
+        return hydrate(entityManager.createQuery(query).getResultList(), attributes);
+    }
+
     @Override
     public Optional<T> findByUid(String uid) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
@@ -116,13 +203,84 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
         // Update fields based on the provided map
         updateEntityFields(newVersion, fieldsToUpdate);
 
+        // Fields that already hold the requested values make no new version, e.g. an idempotent status sync
+        if (VersionComparator.samePayload(latestVersion, newVersion)) {
+            countNoOp();
+            return latestVersion;
+        }
+
+        // Retire the previous current row before inserting the new one so that the
+        // unique (id) WHERE is_current index never sees two current rows. The UPDATE only matches
+        // if that row is still the version the new one is derived from, so a stale update fails
+        // here, before the INSERT, instead of on the (id, version) key
+        if (retireCurrentVersion(latestVersion.getId(), latestVersion.getVersion()) == 0) {
+            throw new VersionConflictException("Entity with ID '" + latestVersion.getId()
+                + "' is no longer at version " + latestVersion.getVersion());
+        }
+        latestVersion.setCurrent(false);
+
         // Merge the new version (instead of persist)
         newVersion = entityManager.merge(newVersion);
         entityManager.flush(); // Force immediate persistence
 
+        changeFeed.publishAfterCommit(entityType, newVersion);
         return newVersion;
     }
 
+    @Override
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public Map<String, T> createNewVersions(Map<String, Map<String, Object>> fieldsToUpdateById,
+        BiConsumer<? super T, ? super T> onNewVersion) {
+        final Map<String, T> created = new LinkedHashMap<>();
+        final List<String> ids = List.copyOf(fieldsToUpdateById.keySet());
+
+        // Every ID is locked up front, in one call, so concurrent batches cannot deadlock chunk by chunk
+        lockForUpdate(ids);
+
+        for (int from = 0; from < ids.size(); from += jdbcBatchSize) {
+            final List<String> chunk = ids.subList(from, Math.min(from + jdbcBatchSize, ids.size()));
+            final List<T> latestVersions = findLatestVersionsByIds(chunk);
+
+            final Date now = new Date();
+            final Map<String, T> supersededById = new LinkedHashMap<>();
+            final List<T> newVersions = new ArrayList<>();
+            for (T latestVersion : latestVersions) {
+                T newVersion = (T) latestVersion.cloneForNewVersion(
+                    uidGenerator.generateUid(entityTypeName), latestVersion.getVersion() + 1, now);
+                updateEntityFields(newVersion, fieldsToUpdateById.get(latestVersion.getId()));
+
+                // An ID whose fields already hold the requested values keeps its current version
+                if (VersionComparator.samePayload(latestVersion, newVersion)) {
+                    countNoOp();
+                    created.put(latestVersion.getId(), latestVersion);
+                } else {
+                    supersededById.put(latestVersion.getId(), latestVersion);
+                    newVersions.add(newVersion);
+                }
+            }
+
+            // Retire the current rows of the whole chunk in one statement before inserting their successors
+            if (!supersededById.isEmpty()) {
+                markPreviousVersionsNotCurrent(supersededById.keySet());
+            }
+
+            for (T newVersion : newVersions) {
+                // persist rather than merge: the UID is new, so no SELECT is needed to tell insert from update
+                entityManager.persist(newVersion);
+                created.put(newVersion.getId(), newVersion);
+                onNewVersion.accept(supersededById.get(newVersion.getId()), newVersion);
+                changeFeed.publishAfterCommit(entityType, newVersion);
+            }
+
+            // Send the chunk as one JDBC batch and release it from the persistence context
+            entityManager.flush();
+            entityManager.clear();
+        }
+
+        return created;
+    }
+
     @Override
     public T createEntity(final T entity) {
         if (entity.getId() == null || entity.getId().isEmpty()) {
@@ -131,6 +289,7 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
 
         // Set initial version
         entity.setVersion(1);
+        entity.setCurrent(true);
 
         // Generate UID for this version
         entity.setUid(uidGenerator.generateUid(entityTypeName));
@@ -142,6 +301,8 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
 
         T instance = entityManager.merge(entity);
         entityManager.flush(); // Force immediate persistence
+
+        changeFeed.publishAfterCommit(entityType, instance);
         return instance;
     }
 
@@ -157,14 +318,8 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
             predicates.add(cb.equal(root.get(field), value));
         });
 
-        // Create a subquery to get the max version for each ID
-        Subquery<Integer> subquery = query.subquery(Integer.class);
-        Root<T> subRoot = subquery.from(entityClass);
-        subquery.select(cb.max(subRoot.get("version")))
-            .where(cb.equal(subRoot.get("id"), root.get("id")));
-
-        // Add condition to match the max version
-        predicates.add(cb.equal(root.get("version"), subquery));
+        // Only the current row of each ID is a latest version
+        predicates.add(cb.isTrue(root.get("current")));
 
         // Combine all predicates
         query.where(cb.and(predicates.toArray(new Predicate[0])));
@@ -176,6 +331,350 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
         return entityManager.createQuery(query).getResultList();
     }
 
+    @Override
+    public KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options) {
+        return findLatestVersionsByCriteria(criteria, options, FieldProjection.ALL);
+    }
+
+    @Override
+    public KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection) {
+        final String sortBy = options.getSortBy();
+        final boolean descending = options.isDescending();
+        final Class<?> sortType = resolveSortType(sortBy);
+
+        final PageToken pageToken = decodePageToken(options);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        List<T> results;
+        // Fetch one extra row to learn whether another page exists
+        if (projection.isAll()) {
+            results = latestVersionsQuery(cb.createQuery(entityClass), root -> root,
+                criteria, options, sortType, pageToken).setMaxResults(options.getLimit() + 1).getResultList();
+        } else {
+            // Only the projected columns (plus the header and sort key) are selected
+            final List<String> attributes = projectedAttributes(projection, sortBy);
+            results = hydrate(latestVersionsQuery(cb.createTupleQuery(), root -> cb.tuple(selections(root, attributes)),
+                criteria, options, sortType, pageToken).setMaxResults(options.getLimit() + 1).getResultList(),
+                attributes);
+        }
+
+        if (results.size() <= options.getLimit()) {
+            return new KeysetPage<>(results, null);
+        }
+
+        List<T> items = results.subList(0, options.getLimit());
+        T last = items.get(items.size() - 1);
+        Object lastSortValue = new BeanWrapperImpl(last).getPropertyValue(sortBy);
+        String nextPageToken = new PageToken(sortBy, descending, formatSortValue(lastSortValue), last.getUid()).encode();
+
+        return new KeysetPage<>(new ArrayList<>(items), nextPageToken);
+    }
+
+    /**
+     * Decode the options' page token and check it was issued for the same sort
+     *
+     * @return the page token, or null to start from the first row
+     */
+    private PageToken decodePageToken(QueryOptions options) {
+        if (options.getPageToken() == null) {
+            return null;
+        }
+        PageToken pageToken = PageToken.decode(options.getPageToken());
+        pageToken.verifySort(options.getSortBy(), options.isDescending());
+        return pageToken;
+    }
+
+    /**
+     * Build the keyset-paged latest-version query, selecting either whole entities or a tuple of columns
+     * The query starts after the page token, or skips the offset when there is none; the caller bounds the rows.
+     */
+    private <R> TypedQuery<R> latestVersionsQuery(CriteriaQuery<R> query,
+        Function<Root<T>, Selection<? extends R>> selection, Map<String, Object> criteria, QueryOptions options,
+        Class<?> sortType, PageToken pageToken) {
+        final String sortBy = options.getSortBy();
+        final boolean descending = options.isDescending();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        Root<T> root = query.from(entityClass);
+        query.select(selection.apply(root));
+
+        List<Predicate> predicates = new ArrayList<>();
+        criteria.forEach((field, value) -> predicates.add(cb.equal(root.get(field), value)));
+        predicates.add(cb.isTrue(root.get("current")));
+
+        // Seek past the last row of the previous page instead of counting rows with OFFSET
+        if (pageToken != null) {
+            predicates.add(keysetPredicate(cb, root, sortBy, descending,
+                parseSortValue(sortType, pageToken.getSortValue()), pageToken.getUid()));
+        }
+
+        query.where(cb.and(predicates.toArray(new Predicate[0])));
+
+        // The uid tie-breaker makes the order total, so the cursor never skips or repeats rows
+        query.orderBy(order(cb, root.get(sortBy), descending), order(cb, root.get("uid"), descending));
+
+        TypedQuery<R> typedQuery = entityManager.createQuery(query);
+        if (pageToken == null && options.getOffset() > 0) {
+            typedQuery.setFirstResult(options.getOffset());
+        }
+        return typedQuery;
+    }
+
+    @Override
+    public Stream<T> streamLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection) {
+        final Class<?> sortType = resolveSortType(options.getSortBy());
+        final PageToken pageToken = decodePageToken(options);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (projection.isAll()) {
+            return stream(limit(latestVersionsQuery(cb.createQuery(entityClass), root -> root,
+                criteria, options, sortType, pageToken), options));
+        }
+        final List<String> attributes = projectedAttributes(projection, options.getSortBy());
+        return stream(limit(latestVersionsQuery(cb.createTupleQuery(), root -> cb.tuple(selections(root, attributes)),
+            criteria, options, sortType, pageToken), options), attributes);
+    }
+
+    @Override
+    public Stream<T> streamAllVersionsById(String id, FieldProjection projection) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (projection.isAll()) {
+            CriteriaQuery<T> query = cb.createQuery(entityClass);
+            Root<T> root = query.from(entityClass);
+            query.where(cb.equal(root.get("id"), id));
+            query.orderBy(cb.desc(root.get("version")));
+            return stream(entityManager.createQuery(query));
+        }
+
+        final List<String> attributes = projectedAttributes(projection, null);
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        query.select(cb.tuple(selections(root, attributes)));
+        query.where(cb.equal(root.get("id"), id));
+        query.orderBy(cb.desc(root.get("version")));
+        return stream(entityManager.createQuery(query), attributes);
+    }
+
+    /**
+     * Cap a streamed query at the options' limit, when one is set
+     */
+    private <R> TypedQuery<R> limit(TypedQuery<R> query, QueryOptions options) {
+        return options.getLimit() > 0 ? query.setMaxResults(options.getLimit()) : query;
+    }
+
+    /**
+     * Open a forward-only cursor for the query
+     * The fetch size bounds how many rows the JDBC driver buffers, and each entity is detached once read so the
+     * persistence context does not grow with the result
+     */
+    private Stream<T> stream(TypedQuery<T> query) {
+        return cursor(query).map(entity -> {
+            entityManager.detach(entity);
+            return entity;
+        });
+    }
+
+    /**
+     * Open a forward-only cursor for a projected query, building an unmanaged entity from each row
+     */
+    private Stream<T> stream(TypedQuery<Tuple> query, List<String> attributes) {
+        return cursor(query).map(row -> hydrate(row, attributes));
+    }
+
+    private <R> Stream<R> cursor(TypedQuery<R> query) {
+        return query
+            .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    /**
+     * List the attributes a projected query must select: the projection itself plus the sort key
+     *
+     * @throws ValidationException if a projected attribute does not exist or is not a basic column
+     */
+    private List<String> projectedAttributes(FieldProjection projection, String sortBy) {
+        final List<String> attributes = new ArrayList<>(projection.getFields());
+        if (sortBy != null && !attributes.contains(sortBy)) {
+            attributes.add(sortBy);
+        }
+        for (String attribute : attributes) {
+            try {
+                Attribute<? super T, ?> metamodel = entityManager.getMetamodel().entity(entityClass).getAttribute(attribute);
+                if (metamodel.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                    throw ValidationException.forField("field_mask", "cannot select " + attribute);
+                }
+            } catch (IllegalArgumentException e) {
+                throw ValidationException.forField("field_mask", "unknown field " + attribute);
+            }
+        }
+        return attributes;
+    }
+
+    private Selection<?>[] selections(Root<T> root, List<String> attributes) {
+        final Selection<?>[] selections = new Selection<?>[attributes.size()];
+        for (int i = 0; i < selections.length; i++) {
+            selections[i] = root.get(attributes.get(i)).alias(attributes.get(i));
+        }
+        return selections;
+    }
+
+    /**
+     * Build detached entities from projected rows; attributes that were not selected stay null
+     */
+    private List<T> hydrate(List<Tuple> rows, List<String> attributes) {
+        final List<T> entities = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            entities.add(hydrate(row, attributes));
+        }
+        return entities;
+    }
+
+    private T hydrate(Tuple row, List<String> attributes) {
+        final T entity = createEmptyEntity();
+        final BeanWrapper wrapper = new BeanWrapperImpl(entity);
+        for (String attribute : attributes) {
+            wrapper.setPropertyValue(attribute, row.get(attribute));
+        }
+        return entity;
+    }
+
+    /**
+     * Resolve the Java type of a sortable basic attribute
+     *
+     * @param sortBy the attribute name
+     * @return the attribute type
+     * @throws ValidationException if the attribute does not exist or is not a basic column
+     */
+    private Class<?> resolveSortType(String sortBy) {
+        try {
+            Attribute<? super T, ?> attribute = entityManager.getMetamodel().entity(entityClass).getAttribute(sortBy);
+            if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+                throw ValidationException.forField("sort_by", "cannot sort by " + sortBy);
+            }
+            return attribute.getJavaType();
+        } catch (IllegalArgumentException e) {
+            throw ValidationException.forField("sort_by", "unknown field " + sortBy);
+        }
+    }
+
+    /**
+     * Rows after the cursor in (sort value, uid) order, following PostgreSQL's default placement of NULL sort values:
+     * last when ascending, first when descending
+     *
+     * @param sortValue the sort value of the cursor row, or null if it had none
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate keysetPredicate(CriteriaBuilder cb, Root<T> root, String sortBy, boolean descending,
+        Comparable sortValue, String uid) {
+        Expression<Comparable> sortPath = root.get(sortBy);
+        Expression<String> uidPath = root.get("uid");
+
+        if (sortValue == null) {
+            // Only NULL rows with a later uid remain ascending; descending, every non-NULL row still follows
+            return descending
+                ? cb.or(cb.and(cb.isNull(sortPath), cb.lessThan(uidPath, uid)), cb.isNotNull(sortPath))
+                : cb.and(cb.isNull(sortPath), cb.greaterThan(uidPath, uid));
+        }
+        if (descending) {
+            return cb.or(
+                cb.lessThan(sortPath, sortValue),
+                cb.and(cb.equal(sortPath, sortValue), cb.lessThan(uidPath, uid)));
+        }
+        return cb.or(
+            cb.greaterThan(sortPath, sortValue),
+            cb.and(cb.equal(sortPath, sortValue), cb.greaterThan(uidPath, uid)),
+            cb.isNull(sortPath));
+    }
+
+    private Order order(CriteriaBuilder cb, Expression<?> expression, boolean descending) {
+        return descending ? cb.desc(expression) : cb.asc(expression);
+    }
+
+    /**
+     * Write a sort key into a page token
+     * Timestamps are written as an ISO instant with every fractional digit: Postgres keeps microseconds, and a key
+     * cut to milliseconds would skip or repeat rows written within the same millisecond.
+     */
+    private String formatSortValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Date date) {
+            return date.toInstant().toString();
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Comparable parseSortValue(Class<?> type, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (Date.class.isAssignableFrom(type)) {
+                // Tokens issued before the instant format hold epoch milliseconds
+                return EPOCH_MILLIS.matcher(value).matches()
+                    ? new Timestamp(Long.parseLong(value))
+                    : Timestamp.from(Instant.parse(value));
+            } else if (BigDecimal.class.equals(type)) {
+                return new BigDecimal(value);
+            } else if (Long.class.equals(type) || long.class.equals(type)) {
+                return Long.valueOf(value);
+            } else if (Integer.class.equals(type) || int.class.equals(type)) {
+                return Integer.valueOf(value);
+            } else if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+                return Boolean.valueOf(value);
+            }
+            return value;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw ValidationException.forField("page_token", "malformed page token");
+        }
+    }
+
+    /**
+     * Clear the current flag of an entity ID, provided the current row is the given version
+     *
+     * @param id the entity ID
+     * @param version the version expected to be current
+     * @return the number of rows retired, 0 if the current row is another version
+     */
+    protected int retireCurrentVersion(String id, int version) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+
+        update.set(root.<Boolean>get("current"), false)
+            .where(cb.equal(root.get("id"), id), cb.isTrue(root.get("current")), cb.equal(root.get("version"), version));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Clear the current flag on every row of the given entity IDs
+     *
+     * @param ids the entity IDs
+     */
+    protected void markPreviousVersionsNotCurrent(Collection<String> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = cb.createCriteriaUpdate(entityClass);
+        Root<T> root = update.from(entityClass);
+
+        update.set(root.<Boolean>get("current"), false)
+            .where(root.get("id").in(ids), cb.isTrue(root.get("current")));
+
+        entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Count an update that was not written because it changed nothing
+     */
+    private void countNoOp() {
+        meterRegistry.counter("scd.update.noops", "entity_type", entityType.getValue()).increment();
+    }
+
     /**
      * Create an empty entity instance
      *
@@ -183,6 +682,16 @@ public abstract class AbstractSCDRepositoryImpl<T extends SCDEntity> implements
      */
     protected abstract T createEmptyEntity();
 
+    /**
+     * The job a version belongs to, whose company and contractor route its change feed events
+     * Called by the change feed after the version committed, outside its transaction, and only while a watcher filters
+     * on company or contractor.
+     *
+     * @param entity a version of this repository's entity
+     * @return the job, the entity itself for jobs, or null if it cannot be found
+     */
+    protected abstract Job owningJob(T entity);
+
     /**
      * Update entity fields based on the map
      *
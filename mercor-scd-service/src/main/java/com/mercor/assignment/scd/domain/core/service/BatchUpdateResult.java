@@ -0,0 +1,27 @@
+package com.mercor.assignment.scd.domain.core.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Outcome of a batch of updates
+ *
+ * @param updated the new versions that were written, keyed by entity ID
+ * @param errors the reason each failed entity ID was not updated
+ * @param <T> the entity type
+ */
+public record BatchUpdateResult<T>(Map<String, T> updated, Map<String, String> errors) {
+
+  /**
+   * Map the updated entities, keeping the errors
+   *
+   * @param mapper the entity mapper
+   * @return a result with mapped entities
+   */
+  public <R> BatchUpdateResult<R> map(Function<? super T, ? extends R> mapper) {
+    final Map<String, R> mapped = new LinkedHashMap<>();
+    updated.forEach((id, entity) -> mapped.put(id, mapper.apply(entity)));
+    return new BatchUpdateResult<>(mapped, errors);
+  }
+}
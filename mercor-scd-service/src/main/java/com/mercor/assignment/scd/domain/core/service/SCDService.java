@@ -1,10 +1,15 @@
 package com.mercor.assignment.scd.domain.core.service;
 
 import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.pagination.KeysetPage;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Generic service interface for SCD operations
@@ -14,6 +19,11 @@ import java.util.Optional;
  */
 public interface SCDService<T extends SCDEntity> {
 
+    /**
+     * Expected version of an unconditional update; real versions start at 1
+     */
+    int ANY_VERSION = 0;
+
     /**
      * Find the latest version of an entity by its ID
      *
@@ -22,6 +32,15 @@ public interface SCDService<T extends SCDEntity> {
      */
     Optional<T> findLatestVersionById(String id);
 
+    /**
+     * Find the latest versions of several entities by their IDs
+     * Cached entries are served with one multi-get and only the misses are loaded, in a single query
+     *
+     * @param ids the entity IDs (not UIDs)
+     * @return the latest version of every ID that exists, keyed by ID
+     */
+    Map<String, T> findLatestVersionsByIds(Collection<String> ids);
+
     /**
      * Find all versions of an entity by its ID
      *
@@ -30,6 +49,16 @@ public interface SCDService<T extends SCDEntity> {
      */
     List<T> findAllVersionsById(String id);
 
+    /**
+     * Find all versions of an entity by its ID, loading only the projected attributes
+     * A cached full history is returned as is; otherwise only the projected columns are read
+     *
+     * @param id the entity ID
+     * @param projection the attributes the caller needs
+     * @return a list of entity versions sorted by version (descending)
+     */
+    List<T> findAllVersionsById(String id, FieldProjection projection);
+
     /**
      * Find an entity by its specific version UID
      *
@@ -43,11 +72,35 @@ public interface SCDService<T extends SCDEntity> {
      *
      * @param id the entity ID
      * @param fieldsToUpdate map of field names to new values
-     * @return the newly created entity version
+     * @return the newly created entity version, or the current one if every field already holds the requested value
      * @throws com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException if the specified entity does not exist
      */
     T createNewVersion(String id, Map<String, Object> fieldsToUpdate);
 
+    /**
+     * Create a new version of an entity, provided its latest version is still the expected one
+     * The check and the write happen in one transaction while the ID is locked for writing, so no other update can
+     * slip in between. Latest-version and history cache entries are evicted once it commits.
+     *
+     * @param id the entity ID
+     * @param fieldsToUpdate map of field names to new values
+     * @param expectedVersion the version the update is based on, or {@link #ANY_VERSION} for an unconditional update
+     * @return the newly created entity version, or the current one if every field already holds the requested value
+     * @throws com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException if the specified entity does not exist
+     * @throws com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException if the latest version is not the expected one
+     */
+    T createNewVersion(String id, Map<String, Object> fieldsToUpdate, int expectedVersion);
+
+    /**
+     * Create new versions of several entities in one transaction, with JDBC-batched inserts
+     *
+     * @param fieldsToUpdateById map of entity ID to the fields to change on that entity
+     * @param allOrNothing when true, any failed ID rolls back the whole batch and nothing is updated; when false, the
+     *     IDs that can be updated are committed and the others are reported as errors
+     * @return the new versions and the per-ID errors
+     */
+    BatchUpdateResult<T> createNewVersions(Map<String, Map<String, Object>> fieldsToUpdateById, boolean allOrNothing);
+
     /**
      * Create a new entity with an initial version
      *
@@ -63,4 +116,48 @@ public interface SCDService<T extends SCDEntity> {
      * @return a list of entities matching the criteria (latest versions only)
      */
     List<T> findLatestVersionsByCriteria(Map<String, Object> criteria);
-}
\ No newline at end of file
+
+    /**
+     * Find one page of the latest versions of entities matching the provided criteria
+     *
+     * @param criteria a map of field names to values for filtering
+     * @param options paging and sorting options
+     * @return a page of entities matching the criteria (latest versions only) with the next page token
+     */
+    KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options);
+
+    /**
+     * Find one page of the latest versions of entities matching the provided criteria, loading only the projected
+     * attributes
+     *
+     * @param criteria a map of field names to values for filtering
+     * @param options paging and sorting options
+     * @param projection the attributes the caller needs
+     * @return a page of entities matching the criteria (latest versions only) with the next page token
+     */
+    KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection);
+
+    /**
+     * Stream the latest versions of entities matching the provided criteria to a consumer
+     * Rows are read through a database cursor, so the result is never materialized in memory
+     *
+     * @param criteria a map of field names to values for filtering
+     * @param options sorting options; the stream starts after the page token or at the offset, and a positive limit
+     *     caps the number of rows
+     * @param projection the attributes the caller needs
+     * @param consumer receives each entity in order; may block to apply backpressure
+     */
+    void streamLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection, Consumer<T> consumer);
+
+    /**
+     * Stream all versions of an entity to a consumer, newest first
+     * Rows are read through a database cursor, so the history is never materialized in memory
+     *
+     * @param id the entity ID
+     * @param projection the attributes the caller needs
+     * @param consumer receives each version in order; may block to apply backpressure
+     */
+    void streamAllVersionsById(String id, FieldProjection projection, Consumer<T> consumer);
+}
@@ -0,0 +1,326 @@
+package com.mercor.assignment.scd.domain.core.service.groupcommit;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queues new-version writes of one entity type and commits them in micro-batches
+ * A single writer thread takes the first queued write, keeps collecting until the batch is full or the linger time
+ * has passed, and writes the whole batch in one transaction. Every caller blocks until the batch holding its write
+ * has committed, so a write is acknowledged no earlier than without the queue. Two writes to the same ID never share
+ * a batch: the second one starts the next batch, which keeps versions in submission order.
+ * <p>
+ * If a batch fails, e.g. because one of its writes violates a constraint, its writes are retried one at a time so
+ * that only the offending caller sees the error.
+ * <p>
+ * A caller waits no longer than its gRPC deadline and stops waiting when its call is cancelled; a write whose caller
+ * has gone is dropped if its batch has not started yet, and otherwise may still commit. A batch of one write, and every
+ * write retried alone, runs in its caller's gRPC context, so its statements are cancelled with the call. A larger batch
+ * runs until the latest deadline of its writes and is not cancelled when one of its callers goes away.
+ *
+ * @param <T> the entity type
+ */
+@Slf4j
+public final class GroupCommitQueue<T extends SCDEntity> implements AutoCloseable {
+
+    /**
+     * Writes a batch of new versions in one transaction
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+
+        /**
+         * @param fieldsToUpdateById the fields to change, by entity ID
+         * @return the new versions and the per-ID errors
+         * @throws RuntimeException only if nothing of the batch was committed
+         */
+        BatchUpdateResult<T> write(Map<String, Map<String, Object>> fieldsToUpdateById);
+    }
+
+    private record Write<T>(String id, Map<String, Object> fields, Context context, CompletableFuture<T> result,
+        long enqueuedNanos) {
+    }
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final BatchWriter<T> batchWriter;
+    private final BiFunction<String, Map<String, Object>, T> singleWriter;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Write<T>> queue;
+    private final Thread writerThread;
+    private final ScheduledExecutorService deadlineScheduler;
+
+    private final DistributionSummary batchSizes;
+    private final Timer queueWait;
+    private final Counter fallbacks;
+
+    private volatile boolean closed;
+    // Only touched by the writer thread
+    private Write<T> nextBatchHead;
+
+    /**
+     * @param name names the writer thread and tags the meters, e.g. the entity type
+     * @param batchWriter commits a whole batch
+     * @param singleWriter commits one write on its own, used when a batch fails
+     * @param maxBatchSize writes per transaction
+     * @param linger how long the first write of a batch waits for others to join it
+     * @param capacity writes that may be queued before callers are rejected with RESOURCE_EXHAUSTED
+     */
+    public GroupCommitQueue(String name, BatchWriter<T> batchWriter, BiFunction<String, Map<String, Object>, T> singleWriter,
+        int maxBatchSize, Duration linger, int capacity, MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1 || linger.isNegative() || capacity < 1) {
+            throw new IllegalArgumentException("Invalid group commit settings");
+        }
+        this.batchWriter = batchWriter;
+        this.singleWriter = singleWriter;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.batchSizes = DistributionSummary.builder("scd.group_commit.batch_size")
+            .description("New versions committed per group commit transaction")
+            .tag("entity_type", name)
+            .register(meterRegistry);
+        this.queueWait = Timer.builder("scd.group_commit.queue_wait")
+            .description("Time a write waits in the group commit queue before its batch is written")
+            .tag("entity_type", name)
+            .register(meterRegistry);
+        this.fallbacks = Counter.builder("scd.group_commit.fallbacks")
+            .description("Failed group commit batches retried one write at a time")
+            .tag("entity_type", name)
+            .register(meterRegistry);
+        Gauge.builder("scd.group_commit.queue_depth", queue, BlockingQueue::size)
+            .description("Writes waiting in the group commit queue")
+            .tag("entity_type", name)
+            .register(meterRegistry);
+
+        this.deadlineScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("scd-group-commit-" + name + "-deadline").daemon().factory());
+        this.writerThread = Thread.ofPlatform()
+            .name("scd-group-commit-" + name)
+            .daemon()
+            .start(this::run);
+    }
+
+    /**
+     * Create a new version as part of the next batch and wait for its commit
+     *
+     * @return the new version
+     * @throws io.grpc.StatusRuntimeException RESOURCE_EXHAUSTED if the queue is full, UNAVAILABLE after shutdown,
+     *     DEADLINE_EXCEEDED or CANCELLED if the call ends before its batch commits
+     */
+    public T write(String id, Map<String, Object> fields) {
+        if (closed) {
+            throw Status.UNAVAILABLE.withDescription("Server is shutting down").asRuntimeException();
+        }
+        final Context context = Context.current();
+        final Write<T> write = new Write<>(id, fields, context, new CompletableFuture<>(), System.nanoTime());
+        if (!queue.offer(write)) {
+            throw Status.RESOURCE_EXHAUSTED.withDescription("Too many pending writes, retry later").asRuntimeException();
+        }
+        // The writer thread may have drained the queue and stopped between the check above and the offer
+        if (closed && queue.remove(write)) {
+            throw Status.UNAVAILABLE.withDescription("Server is shutting down").asRuntimeException();
+        }
+
+        final Context.CancellationListener onCancel = cancelled -> write.result()
+            .completeExceptionally(Contexts.statusFromCancelled(cancelled).asRuntimeException());
+        context.addListener(onCancel, Runnable::run);
+        try {
+            final Deadline deadline = context.getDeadline();
+            return deadline == null
+                ? write.result().get()
+                : write.result().get(deadline.timeRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            write.result().cancel(false);
+            throw Status.DEADLINE_EXCEEDED.withDescription("Deadline expired while the write was queued")
+                .asRuntimeException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.result().cancel(false);
+            throw Status.CANCELLED.withDescription("Interrupted while the write was queued").asRuntimeException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            context.removeListener(onCancel);
+        }
+    }
+
+    /**
+     * Stop accepting writes and wait until the queued ones are committed
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deadlineScheduler.shutdownNow();
+    }
+
+    private void run() {
+        while (true) {
+            final Map<String, Write<T>> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (batch == null) {
+                if (closed && queue.isEmpty() && nextBatchHead == null) {
+                    break;
+                }
+                continue;
+            }
+            commit(batch);
+        }
+        failRemaining();
+    }
+
+    /**
+     * @return the next batch, or null if nothing was queued for a while
+     */
+    private Map<String, Write<T>> nextBatch() throws InterruptedException {
+        Write<T> head = nextBatchHead;
+        nextBatchHead = null;
+        // Writes whose caller has already given up are not written
+        while (head == null || head.result().isDone()) {
+            head = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            if (head == null) {
+                return null;
+            }
+        }
+
+        final Map<String, Write<T>> batch = new LinkedHashMap<>();
+        batch.put(head.id(), head);
+        final long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            // Once the linger time is up, writes that are already queued still join
+            final long remaining = deadline - System.nanoTime();
+            final Write<T> write = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (write == null) {
+                break;
+            }
+            if (write.result().isDone()) {
+                continue;
+            }
+            if (batch.putIfAbsent(write.id(), write) != null) {
+                nextBatchHead = write;
+                break;
+            }
+        }
+        return batch;
+    }
+
+    private void commit(Map<String, Write<T>> batch) {
+        final long now = System.nanoTime();
+        final Map<String, Map<String, Object>> fieldsToUpdateById = new LinkedHashMap<>();
+        for (Write<T> write : batch.values()) {
+            queueWait.record(now - write.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            fieldsToUpdateById.put(write.id(), write.fields());
+        }
+        batchSizes.record(batch.size());
+
+        final BatchUpdateResult<T> result;
+        final Context.CancellableContext context = batchContext(batch);
+        final Context previous = context.attach();
+        try {
+            result = batchWriter.write(fieldsToUpdateById);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.values().forEach(write -> write.result().completeExceptionally(e));
+            } else {
+                log.warn("Group commit of {} writes failed, retrying them one at a time: {}", batch.size(), e.getMessage());
+                fallbacks.increment();
+                batch.values().forEach(this::commitAlone);
+            }
+            return;
+        } finally {
+            context.detach(previous);
+            context.cancel(null);
+        }
+
+        for (Write<T> write : batch.values()) {
+            final T version = result.updated().get(write.id());
+            if (version != null) {
+                write.result().complete(version);
+            } else {
+                write.result().completeExceptionally(new EntityNotFoundException(
+                    result.errors().getOrDefault(write.id(), "Entity with ID " + write.id() + " not found")));
+            }
+        }
+    }
+
+    /**
+     * The context a batch is written in: its only caller's, or one that ends at the latest deadline of its callers
+     */
+    private Context.CancellableContext batchContext(Map<String, Write<T>> batch) {
+        if (batch.size() == 1) {
+            return batch.values().iterator().next().context().withCancellation();
+        }
+        Deadline latest = null;
+        for (Write<T> write : batch.values()) {
+            final Deadline deadline = write.context().getDeadline();
+            if (deadline == null) {
+                return Context.ROOT.withCancellation();
+            }
+            latest = latest == null || latest.isBefore(deadline) ? deadline : latest;
+        }
+        return Context.ROOT.withDeadline(latest, deadlineScheduler);
+    }
+
+    private void commitAlone(Write<T> write) {
+        if (write.result().isDone()) {
+            return;
+        }
+        final Context previous = write.context().attach();
+        try {
+            write.result().complete(singleWriter.apply(write.id(), write.fields()));
+        } catch (RuntimeException e) {
+            write.result().completeExceptionally(e);
+        } finally {
+            write.context().detach(previous);
+        }
+    }
+
+    private void failRemaining() {
+        final RuntimeException shutdown = Status.UNAVAILABLE.withDescription("Server is shutting down").asRuntimeException();
+        if (nextBatchHead != null) {
+            nextBatchHead.result().completeExceptionally(shutdown);
+        }
+        Write<T> write;
+        while ((write = queue.poll()) != null) {
+            write.result().completeExceptionally(shutdown);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.mercor.assignment.scd.domain.core.service.groupcommit;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
+import com.mercor.assignment.scd.domain.core.service.SCDService;
+import com.mercor.assignment.scd.domain.core.validation.SCDValidators;
+import com.mercor.assignment.scd.domain.job.service.JobService;
+import com.mercor.assignment.scd.domain.paymentlineitem.service.regular.PaymentLineItemService;
+import com.mercor.assignment.scd.domain.timelog.service.regular.TimelogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates new versions through one {@link GroupCommitQueue} per entity type, so concurrent updates share a commit
+ * Each batch goes through the service's {@code createNewVersions}, i.e. chunked JDBC batch inserts, cache eviction and
+ * change feed events as for BatchUpdate. When group commit is disabled every write runs in its own transaction, as
+ * before.
+ */
+@Slf4j
+@Component
+public class GroupCommitWriter {
+
+    private final boolean enabled;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<EntityType, SCDService<? extends SCDEntity>> services = new EnumMap<>(EntityType.class);
+    private final Map<EntityType, GroupCommitQueue<? extends SCDEntity>> queues = new EnumMap<>(EntityType.class);
+
+    public GroupCommitWriter(
+        JobService jobService,
+        TimelogService timelogService,
+        PaymentLineItemService paymentLineItemService,
+        PlatformTransactionManager transactionManager,
+        @Value("${scd.group-commit.enabled:false}") boolean enabled,
+        @Value("${scd.group-commit.max-batch-size:50}") int maxBatchSize,
+        @Value("${scd.group-commit.linger-ms:2}") long lingerMs,
+        @Value("${scd.group-commit.queue-capacity:1000}") int queueCapacity,
+        MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        services.put(EntityType.JOBS, jobService);
+        services.put(EntityType.TIMELOG, timelogService);
+        services.put(EntityType.PAYMENT_LINE_ITEMS, paymentLineItemService);
+
+        if (enabled) {
+            services.forEach((type, service) -> queues.put(type,
+                newQueue(type, service, maxBatchSize, Duration.ofMillis(lingerMs), queueCapacity, meterRegistry)));
+        }
+        log.info("Group commit {} (up to {} writes per transaction, linger {} ms, queue of {})",
+            enabled ? "enabled" : "disabled", maxBatchSize, lingerMs, queueCapacity);
+    }
+
+    /**
+     * Create a new version of an entity, sharing the transaction with concurrent writes when group commit is enabled
+     * Conditional updates always run in their own transaction: a stale one must fail alone, not with its batch.
+     *
+     * @param expectedVersion the version the update is based on, or {@link SCDService#ANY_VERSION}
+     * @return the new version
+     */
+    public SCDEntity createNewVersion(EntityType type, String id, Map<String, Object> fieldsToUpdate,
+        int expectedVersion) {
+        if (expectedVersion != SCDService.ANY_VERSION) {
+            return services.get(type).createNewVersion(id, fieldsToUpdate, expectedVersion);
+        }
+        if (!enabled) {
+            return services.get(type).createNewVersion(id, fieldsToUpdate);
+        }
+        // A malformed ID would fail the whole batch it lands in
+        if (!SCDValidators.SCDCommonValidators.validId.isValid(id)) {
+            throw new ValidationException("Invalid entity ID format");
+        }
+        return queues.get(type).write(id, fieldsToUpdate);
+    }
+
+    /**
+     * Commit what is queued before the data source goes away
+     */
+    @PreDestroy
+    public void close() {
+        queues.values().forEach(GroupCommitQueue::close);
+    }
+
+    private <T extends SCDEntity> GroupCommitQueue<T> newQueue(EntityType type, SCDService<T> service, int maxBatchSize,
+        Duration linger, int queueCapacity, MeterRegistry meterRegistry) {
+        return new GroupCommitQueue<>(type.getValue(), fieldsToUpdateById -> writeBatch(service, fieldsToUpdateById),
+            service::createNewVersion, maxBatchSize, linger, queueCapacity, meterRegistry);
+    }
+
+    private <T extends SCDEntity> BatchUpdateResult<T> writeBatch(SCDService<T> service,
+        Map<String, Map<String, Object>> fieldsToUpdateById) {
+        final AtomicBoolean committed = new AtomicBoolean();
+        final AtomicReference<BatchUpdateResult<T>> written = new AtomicReference<>();
+        try {
+            return transactionTemplate.execute(status -> {
+                // Registered first, so it runs before the cache and change feed callbacks of the batch
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        committed.set(true);
+                    }
+                });
+                written.set(service.createNewVersions(fieldsToUpdateById, false));
+                return written.get();
+            });
+        } catch (RuntimeException e) {
+            // The versions are durable once committed; retrying them one by one would write them twice
+            if (committed.get()) {
+                log.warn("Group commit of {} writes committed but an after-commit step failed: {}",
+                    fieldsToUpdateById.size(), e.getMessage());
+                return written.get();
+            }
+            throw e;
+        }
+    }
+}
@@ -1,25 +1,45 @@
 package com.mercor.assignment.scd.domain.core.service.grpc;
 
 import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
+import com.mercor.assignment.scd.common.grpc.FlowControlledSender;
+import com.mercor.assignment.scd.common.grpc.PayloadFormat;
 import com.mercor.assignment.scd.domain.common.Entity;
 import com.mercor.assignment.scd.domain.core.*;
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeFeed;
+import com.mercor.assignment.scd.domain.core.changefeed.WatchFilter;
 import com.mercor.assignment.scd.domain.core.constants.ServiceName;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.index.VersionIndex;
 import com.mercor.assignment.scd.domain.core.mapper.EntityMapper;
+import com.mercor.assignment.scd.domain.core.mapper.VersionDeltaEncoder;
 import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.pagination.KeysetPage;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
 import com.mercor.assignment.scd.domain.core.service.SCDService;
+import com.mercor.assignment.scd.domain.core.service.groupcommit.GroupCommitWriter;
+import com.mercor.assignment.scd.domain.core.validation.SCDValidators;
 import com.mercor.assignment.scd.domain.job.model.Job;
 import com.mercor.assignment.scd.domain.job.service.JobService;
 import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
 import com.mercor.assignment.scd.domain.paymentlineitem.service.regular.PaymentLineItemService;
 import com.mercor.assignment.scd.domain.timelog.model.Timelog;
 import com.mercor.assignment.scd.domain.timelog.service.regular.TimelogService;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.grpc.server.service.GrpcService;
 
 /**
@@ -31,8 +51,18 @@ import org.springframework.grpc.server.service.GrpcService;
 public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
 
   private final Map<String, SCDService<?>> serviceMap;
-
-  public SCDGrpcServiceImpl(JobService jobService, TimelogService timelogService, PaymentLineItemService paymentLineItemService){
+  private final ChangeFeed changeFeed;
+  private final VersionIndex versionIndex;
+  private final GroupCommitWriter groupCommitWriter;
+
+  @Value("${scd.streaming.max-stall-ms:30000}")
+  private long streamMaxStallMs;
+
+  public SCDGrpcServiceImpl(JobService jobService, TimelogService timelogService, PaymentLineItemService paymentLineItemService,
+      ChangeFeed changeFeed, VersionIndex versionIndex, GroupCommitWriter groupCommitWriter){
+    this.changeFeed = changeFeed;
+    this.versionIndex = versionIndex;
+    this.groupCommitWriter = groupCommitWriter;
     this.serviceMap = new HashMap<>();
     serviceMap.put(ServiceName.JOB_SERVICE, jobService);
     serviceMap.put(ServiceName.TIMELOG_SERVICE, timelogService);
@@ -43,13 +73,23 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
   public void getLatestVersion(GetLatestVersionRequest request, StreamObserver<EntityResponse> responseObserver) {
     String entityType = request.getEntityType();
     String id = request.getId();
+    int knownVersion = request.getKnownVersion();
+    String knownUid = request.getKnownUid();
+
+    // A caller that already has the latest version is answered from the version index, without loading the entity
+    if (isKnownLatest(EntityType.fromValue(entityType), id, knownVersion, knownUid)) {
+      responseObserver.onNext(EntityResponse.newBuilder().setNotModified(true).build());
+      responseObserver.onCompleted();
+      return;
+    }
 
     // Convert the result to Entity object based on entity type
     Entity entity = findLatestVersionById(entityType, id);
+    versionIndex.record(entity);
 
-    EntityResponse response = EntityResponse.newBuilder()
-        .setEntity(entity)
-        .build();
+    EntityResponse response = isSameVersion(entity, knownVersion, knownUid)
+        ? EntityResponse.newBuilder().setNotModified(true).build()
+        : EntityResponse.newBuilder().setEntity(entity).build();
 
     responseObserver.onNext(response);
     responseObserver.onCompleted();
@@ -68,7 +108,8 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
     String id = request.getId();
 
     // Find all versions sorted by version number and convert to Entity objects
-    List<Entity> versions = findAllVersionsById(entityType, id);
+    FieldProjection projection = FieldProjection.of(request.getFieldMask().getPathsList());
+    List<Entity> versions = findAllVersionsById(entityType, id, projection, request.getDelta());
 
     EntityListResponse response = EntityListResponse.newBuilder()
         .addAllEntities(versions)
@@ -87,14 +128,52 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
     // Convert string conditions to appropriate types
     Map<String, Object> typedConditions = convertConditions(entityType, conditions);
 
+    QueryOptions options = QueryOptions.of(request.getLimit(), request.getOffset(), request.getSortBy(),
+        request.getSortDirection(), request.getPageToken());
+
+    // Only the columns named in the field mask are read and returned
+    FieldProjection projection = FieldProjection.of(request.getFieldMask().getPathsList());
+
     // Execute query based on entity type
-    List<Entity> results = queryEntities(entityType, typedConditions, latestVersionOnly);
+    KeysetPage<Entity> results = queryEntities(entityType, typedConditions, latestVersionOnly, options, projection);
 
-    EntityListResponse response = EntityListResponse.newBuilder()
-        .addAllEntities(results)
-        .build();
+    EntityListResponse.Builder response = EntityListResponse.newBuilder()
+        .addAllEntities(results.items());
+    if (results.hasNext()) {
+      response.setNextPageToken(results.nextPageToken());
+    }
+
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void streamQuery(QueryRequest request, StreamObserver<EntityResponse> responseObserver) {
+    String entityType = request.getEntityType();
+    if (!request.getLatestVersionOnly()) {
+      throw new UnsupportedOperationException("Non-latest version queries are not currently supported");
+    }
+
+    Map<String, Object> typedConditions = convertConditions(entityType, request.getConditionsMap());
+    QueryOptions options = QueryOptions.forStream(request.getLimit(), request.getOffset(), request.getSortBy(),
+        request.getSortDirection(), request.getPageToken());
+    FieldProjection projection = FieldProjection.of(request.getFieldMask().getPathsList());
+
+    // Rows go out one message at a time as the cursor advances, blocking while the client is not ready
+    FlowControlledSender<EntityResponse> sender = newSender(responseObserver);
+    streamLatestVersionsByCriteria(entityType, typedConditions, options, projection,
+        entity -> sender.send(EntityResponse.newBuilder().setEntity(entity).build()));
+
+    responseObserver.onCompleted();
+  }
+
+  @Override
+  public void streamVersionHistory(GetVersionHistoryRequest request, StreamObserver<EntityResponse> responseObserver) {
+    FieldProjection projection = FieldProjection.of(request.getFieldMask().getPathsList());
+    FlowControlledSender<EntityResponse> sender = newSender(responseObserver);
+    streamAllVersionsById(request.getEntityType(), request.getId(), projection, request.getDelta(),
+        entity -> sender.send(EntityResponse.newBuilder().setEntity(entity).build()));
 
-    responseObserver.onNext(response);
     responseObserver.onCompleted();
   }
 
@@ -108,7 +187,7 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
     Map<String, Object> typedFields = convertConditions(entityType, fields);
 
     // Create a new version based on the entity type
-    Entity updatedEntity = createNewVersion(entityType, id, typedFields);
+    Entity updatedEntity = createNewVersion(entityType, id, typedFields, request.getExpectedVersion());
 
     EntityResponse response = EntityResponse.newBuilder()
         .setEntity(updatedEntity)
@@ -121,27 +200,49 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
   @Override
   public void batchGet(BatchGetRequest request, StreamObserver<BatchResponse> responseObserver) {
     String entityType = request.getEntityType();
+    EntityType type = EntityType.fromValue(entityType);
     List<String> ids = request.getIdsList();
+    Map<String, Integer> knownVersions = request.getKnownVersionsMap();
+    Map<String, String> knownUids = request.getKnownUidsMap();
 
     // Fetch latest versions of all requested entities
-    Map<String, Entity> entities = new HashMap<>();
+    Map<String, Entity> entities = new LinkedHashMap<>();
+    Set<String> notModified = new LinkedHashSet<>();
     Map<String, String> errors = new HashMap<>();
 
+    // IDs the caller already has at their latest version are settled by the version index and not loaded
+    List<String> idsToLoad = new ArrayList<>();
     for (String id : ids) {
-      try {
-        Entity entity = findLatestVersionById(entityType, id);
+      if (!SCDValidators.SCDCommonValidators.validId.isValid(id)) {
+        errors.put(id, "Invalid entity ID format");
+      } else if (isKnownLatest(type, id, knownVersions.getOrDefault(id, 0), knownUids.getOrDefault(id, ""))) {
+        notModified.add(id);
+      } else {
+        idsToLoad.add(id);
+      }
+    }
+
+    // One cache multi-get plus at most one query for the misses
+    Map<String, Entity> found = findLatestVersionsByIds(entityType, idsToLoad);
+    for (String id : idsToLoad) {
+      Entity entity = found.get(id);
+      if (entity == null) {
+        errors.put(id, "Entity with ID " + id + " not found");
+        continue;
+      }
+      versionIndex.record(entity);
+      if (isSameVersion(entity, knownVersions.getOrDefault(id, 0), knownUids.getOrDefault(id, ""))) {
+        notModified.add(id);
+      } else {
         entities.put(id, entity);
-      } catch (EntityNotFoundException e) {
-        errors.put(id, e.getMessage());
-      } catch (Exception e) {
-        errors.put(id, "Error processing entity with ID " + id + ": " + e.getMessage());
       }
     }
 
     BatchResponse response = BatchResponse.newBuilder()
         .addAllEntities(entities.values())
+        .addAllNotModifiedIds(notModified)
         .putAllErrors(errors)
-        .setSuccessCount(entities.size())
+        .setSuccessCount(entities.size() + notModified.size())
         .setFailureCount(errors.size())
         .build();
 
@@ -154,28 +255,32 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
     String entityType = request.getEntityType();
     List<Entity> entities = request.getEntitiesList();
     Map<String, String> commonFields = request.getCommonFieldsMap();
+    boolean allOrNothing = request.getAllOrNothing();
 
     // Convert common fields to appropriate types
     Map<String, Object> typedCommonFields = convertConditions(entityType, commonFields);
 
-    // Process batch update
-    Map<String, Entity> updatedEntities = new HashMap<>();
+    Map<String, Map<String, Object>> fieldsById = new LinkedHashMap<>();
     Map<String, String> errors = new HashMap<>();
-
     for (Entity entity : entities) {
-      try {
-        // Apply common fields to each entity
-        Map<String, Object> entityFields = new HashMap<>(typedCommonFields);
-        // Add entity-specific fields if needed from the entity object
-
-        // Create new version
-        Entity updated = createNewVersion(entityType, entity.getId(), entityFields);
-        updatedEntities.put(entity.getId(), updated);
-      } catch (Exception e) {
-        errors.put(entity.getId(), "Error updating entity: " + e.getMessage());
+      String id = entity.getId();
+      if (!SCDValidators.SCDCommonValidators.validId.isValid(id)) {
+        errors.put(id, "Invalid entity ID format");
+      } else if (fieldsById.containsKey(id)) {
+        errors.put(id, "Duplicate entity ID in batch");
+      } else {
+        fieldsById.put(id, new HashMap<>(typedCommonFields));
       }
     }
 
+    // The whole batch is written in one transaction with JDBC-batched inserts
+    Map<String, Entity> updatedEntities = new LinkedHashMap<>();
+    if (!fieldsById.isEmpty() && !(allOrNothing && !errors.isEmpty())) {
+      BatchUpdateResult<Entity> result = createNewVersions(entityType, fieldsById, allOrNothing);
+      updatedEntities.putAll(result.updated());
+      errors.putAll(result.errors());
+    }
+
     BatchResponse response = BatchResponse.newBuilder()
         .addAllEntities(updatedEntities.values())
         .putAllErrors(errors)
@@ -187,6 +292,15 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
     responseObserver.onCompleted();
   }
 
+  @Override
+  public void watch(WatchRequest request, StreamObserver<WatchEvent> responseObserver) {
+    WatchFilter filter = WatchFilter.of(request);
+
+    // The handler returns right away; the change feed's dispatcher pushes events until the client cancels
+    changeFeed.subscribe(filter, request.getResumeToken(), PayloadFormat.current(),
+        (ServerCallStreamObserver<WatchEvent>) responseObserver);
+  }
+
   // Private helper methods to route requests to appropriate service based on entity type
 
   private Entity findLatestVersionById(String entityType, String id) {
@@ -208,26 +322,64 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
     }
   }
 
-  private List<Entity> findAllVersionsById(String entityType, String id) {
+  private Map<String, Entity> findLatestVersionsByIds(String entityType, List<String> ids) {
+    final EntityType type = EntityType.fromValue(entityType);
+    SCDService<? extends SCDEntity> service = getServiceForType(type.getServiceName());
+
+    Map<String, Entity> result = new HashMap<>();
+    switch (type) {
+      case JOBS:
+        Map<String, Job> jobs = (Map<String, Job>) service.findLatestVersionsByIds(ids);
+        jobs.forEach((id, job) -> result.put(id, EntityMapper.INSTANCE.mapJobToEntityProto(job)));
+        return result;
+      case TIMELOG:
+        Map<String, Timelog> timelogs = (Map<String, Timelog>) service.findLatestVersionsByIds(ids);
+        timelogs.forEach((id, timelog) -> result.put(id, EntityMapper.INSTANCE.mapTimelogToEntityProto(timelog)));
+        return result;
+      case PAYMENT_LINE_ITEMS:
+        Map<String, PaymentLineItem> paymentLineItems = (Map<String, PaymentLineItem>) service.findLatestVersionsByIds(ids);
+        paymentLineItems.forEach((id, paymentLineItem) -> result.put(id, EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem)));
+        return result;
+      default:
+        throw new IllegalArgumentException("Unsupported entity type: " + entityType);
+    }
+  }
+
+  private List<Entity> findAllVersionsById(String entityType, String id, FieldProjection projection, boolean delta) {
     final EntityType type = EntityType.fromValue(entityType);
     SCDService<?> service = getServiceForType(type.getServiceName());
 
+    // The unprojected read goes through the cached method
+    List<? extends SCDEntity> versions = projection.isAll()
+        ? service.findAllVersionsById(id)
+        : service.findAllVersionsById(id, projection);
+
+    if (delta) {
+      VersionDeltaEncoder encoder = new VersionDeltaEncoder(projection);
+      List<Entity> entries = new ArrayList<>(versions.size());
+      for (SCDEntity version : versions) {
+        entries.add(encoder.encode(version));
+      }
+      return entries;
+    }
+
     switch (type) {
       case JOBS:
-        List<Job> jobs = (List<Job>) service.findAllVersionsById(id);
-        return jobs.stream().map(EntityMapper.INSTANCE::mapJobToEntityProto).toList();
+        return ((List<Job>) versions).stream()
+            .map(job -> EntityMapper.INSTANCE.mapJobToEntityProto(job, projection)).toList();
       case TIMELOG:
-        List<Timelog> timelogs = (List<Timelog>) service.findAllVersionsById(id);
-        return timelogs.stream().map(EntityMapper.INSTANCE::mapTimelogToEntityProto).toList();
+        return ((List<Timelog>) versions).stream()
+            .map(timelog -> EntityMapper.INSTANCE.mapTimelogToEntityProto(timelog, projection)).toList();
       case PAYMENT_LINE_ITEMS:
-        List<PaymentLineItem> paymentLineItems = (List<PaymentLineItem>) service.findAllVersionsById(id);
-        return paymentLineItems.stream().map(EntityMapper.INSTANCE::mapPaymentLineItemToEntityProto).toList();
+        return ((List<PaymentLineItem>) versions).stream()
+            .map(paymentLineItem -> EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem, projection)).toList();
       default:
         throw new IllegalArgumentException("Unsupported entity type: " + entityType);
     }
   }
 
-  private List<Entity> queryEntities(String entityType, Map<String, Object> conditions, boolean latestVersionOnly) {
+  private KeysetPage<Entity> queryEntities(String entityType, Map<String, Object> conditions, boolean latestVersionOnly,
+      QueryOptions options, FieldProjection projection) {
     if (!latestVersionOnly) {
       throw new UnsupportedOperationException("Non-latest version queries are not currently supported");
     }
@@ -237,38 +389,133 @@ public class SCDGrpcServiceImpl extends SCDServiceGrpc.SCDServiceImplBase {
 
     switch (type) {
       case JOBS:
-        List<Job> jobs = (List<Job>) service.findLatestVersionsByCriteria(conditions);
-        return jobs.stream().map(EntityMapper.INSTANCE::mapJobToEntityProto).toList();
+        KeysetPage<Job> jobs = (KeysetPage<Job>) service.findLatestVersionsByCriteria(conditions, options, projection);
+        return jobs.map(job -> EntityMapper.INSTANCE.mapJobToEntityProto(job, projection));
+      case TIMELOG:
+        KeysetPage<Timelog> timelog = (KeysetPage<Timelog>) service.findLatestVersionsByCriteria(conditions, options, projection);
+        return timelog.map(entity -> EntityMapper.INSTANCE.mapTimelogToEntityProto(entity, projection));
+      case PAYMENT_LINE_ITEMS:
+        KeysetPage<PaymentLineItem> paymentLineItems = (KeysetPage<PaymentLineItem>) service.findLatestVersionsByCriteria(conditions, options, projection);
+        return paymentLineItems.map(paymentLineItem -> EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem, projection));
+      default:
+        throw new IllegalArgumentException("Unsupported entity type: " + entityType);
+    }
+  }
+
+  private void streamLatestVersionsByCriteria(String entityType, Map<String, Object> conditions, QueryOptions options,
+      FieldProjection projection, Consumer<Entity> consumer) {
+    final EntityType type = EntityType.fromValue(entityType);
+    SCDService<? extends SCDEntity> service = getServiceForType(type.getServiceName());
+
+    switch (type) {
+      case JOBS:
+        ((SCDService<Job>) service).streamLatestVersionsByCriteria(conditions, options, projection,
+            job -> consumer.accept(EntityMapper.INSTANCE.mapJobToEntityProto(job, projection)));
+        break;
       case TIMELOG:
-        List<Timelog> timelog = (List<Timelog>) service.findLatestVersionsByCriteria(conditions);
-        return timelog.stream().map(EntityMapper.INSTANCE::mapTimelogToEntityProto).toList();
+        ((SCDService<Timelog>) service).streamLatestVersionsByCriteria(conditions, options, projection,
+            timelog -> consumer.accept(EntityMapper.INSTANCE.mapTimelogToEntityProto(timelog, projection)));
+        break;
       case PAYMENT_LINE_ITEMS:
-        List<PaymentLineItem> paymentLineItems = (List<PaymentLineItem>) service.findLatestVersionsByCriteria(conditions);
-        return paymentLineItems.stream().map(EntityMapper.INSTANCE::mapPaymentLineItemToEntityProto).toList();
+        ((SCDService<PaymentLineItem>) service).streamLatestVersionsByCriteria(conditions, options, projection,
+            paymentLineItem -> consumer.accept(
+                EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem, projection)));
+        break;
       default:
         throw new IllegalArgumentException("Unsupported entity type: " + entityType);
     }
   }
 
-  private Entity createNewVersion(String entityType, String id, Map<String, Object> fields) {
+  private void streamAllVersionsById(String entityType, String id, FieldProjection projection, boolean delta,
+      Consumer<Entity> consumer) {
     final EntityType type = EntityType.fromValue(entityType);
     SCDService<? extends SCDEntity> service = getServiceForType(type.getServiceName());
 
+    // Deltas are computed against the previous row as the cursor advances
+    if (delta) {
+      VersionDeltaEncoder encoder = new VersionDeltaEncoder(projection);
+      ((SCDService<SCDEntity>) service).streamAllVersionsById(id, projection,
+          version -> consumer.accept(encoder.encode(version)));
+      return;
+    }
+
     switch (type) {
       case JOBS:
-        final Job job = (Job) service.createNewVersion(id, fields);
+        ((SCDService<Job>) service).streamAllVersionsById(id, projection,
+            job -> consumer.accept(EntityMapper.INSTANCE.mapJobToEntityProto(job, projection)));
+        break;
+      case TIMELOG:
+        ((SCDService<Timelog>) service).streamAllVersionsById(id, projection,
+            timelog -> consumer.accept(EntityMapper.INSTANCE.mapTimelogToEntityProto(timelog, projection)));
+        break;
+      case PAYMENT_LINE_ITEMS:
+        ((SCDService<PaymentLineItem>) service).streamAllVersionsById(id, projection,
+            paymentLineItem -> consumer.accept(
+                EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem, projection)));
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported entity type: " + entityType);
+    }
+  }
+
+  /**
+   * Whether the version index knows that the caller's version is still the latest; false for unconditional reads
+   */
+  private boolean isKnownLatest(EntityType type, String id, int knownVersion, String knownUid) {
+    if (knownVersion <= 0 && knownUid.isEmpty()) {
+      return false;
+    }
+    VersionIndex.Stamp latest = versionIndex.get(type, id);
+    return latest != null && latest.matches(knownVersion, knownUid);
+  }
+
+  private boolean isSameVersion(Entity entity, int knownVersion, String knownUid) {
+    return new VersionIndex.Stamp(entity.getVersion(), entity.getUid()).matches(knownVersion, knownUid);
+  }
+
+  private <T> FlowControlledSender<T> newSender(StreamObserver<T> responseObserver) {
+    return new FlowControlledSender<>(responseObserver, Duration.ofMillis(streamMaxStallMs));
+  }
+
+  private Entity createNewVersion(String entityType, String id, Map<String, Object> fields, int expectedVersion) {
+    final EntityType type = EntityType.fromValue(entityType);
+
+    // Concurrent updates of one entity type may share a transaction, see GroupCommitWriter
+    switch (type) {
+      case JOBS:
+        final Job job = (Job) groupCommitWriter.createNewVersion(type, id, fields, expectedVersion);
         return EntityMapper.INSTANCE.mapJobToEntityProto(job);
       case TIMELOG:
-        final Timelog timelog = (Timelog) service.createNewVersion(id, fields);
+        final Timelog timelog = (Timelog) groupCommitWriter.createNewVersion(type, id, fields, expectedVersion);
         return EntityMapper.INSTANCE.mapTimelogToEntityProto(timelog);
       case PAYMENT_LINE_ITEMS:
-        final PaymentLineItem paymentLineItem = (PaymentLineItem) service.createNewVersion(id, fields);
+        final PaymentLineItem paymentLineItem = (PaymentLineItem) groupCommitWriter.createNewVersion(type, id, fields, expectedVersion);
         return EntityMapper.INSTANCE.mapPaymentLineItemToEntityProto(paymentLineItem);
       default:
         throw new IllegalArgumentException("Unsupported entity type: " + entityType);
     }
   }
 
+  private BatchUpdateResult<Entity> createNewVersions(String entityType, Map<String, Map<String, Object>> fieldsById,
+      boolean allOrNothing) {
+    final EntityType type = EntityType.fromValue(entityType);
+    SCDService<? extends SCDEntity> service = getServiceForType(type.getServiceName());
+
+    switch (type) {
+      case JOBS:
+        BatchUpdateResult<Job> jobs = (BatchUpdateResult<Job>) service.createNewVersions(fieldsById, allOrNothing);
+        return jobs.map(EntityMapper.INSTANCE::mapJobToEntityProto);
+      case TIMELOG:
+        BatchUpdateResult<Timelog> timelogs = (BatchUpdateResult<Timelog>) service.createNewVersions(fieldsById, allOrNothing);
+        return timelogs.map(EntityMapper.INSTANCE::mapTimelogToEntityProto);
+      case PAYMENT_LINE_ITEMS:
+        BatchUpdateResult<PaymentLineItem> paymentLineItems = (BatchUpdateResult<PaymentLineItem>) service.createNewVersions(fieldsById, allOrNothing);
+        return paymentLineItems.map(EntityMapper.INSTANCE::mapPaymentLineItemToEntityProto);
+      default:
+        throw new IllegalArgumentException("Unsupported entity type: " + entityType);
+    }
+  }
+
   // Helper method to convert string conditions to typed values
   private Map<String, Object> convertConditions(String entityType, Map<String, String> conditions) {
     Map<String, Object> result = new HashMap<>();
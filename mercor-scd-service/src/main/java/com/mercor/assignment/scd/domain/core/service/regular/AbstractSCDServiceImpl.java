@@ -1,10 +1,17 @@
 package com.mercor.assignment.scd.domain.core.service.regular;
 
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
 import com.mercor.assignment.scd.domain.core.model.SCDEntity;
+import com.mercor.assignment.scd.domain.core.pagination.KeysetPage;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
 import com.mercor.assignment.scd.domain.core.repository.SCDRepositoryBase;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
 import com.mercor.assignment.scd.domain.core.service.SCDService;
 import com.mercor.assignment.scd.domain.core.util.UidGenerator;
 import com.mercor.assignment.scd.domain.core.validation.SCDValidators;
@@ -12,11 +19,18 @@ import com.mercor.assignment.scd.domain.core.validation.SCDValidators;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
-import java.util.Date;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Abstract base implementation of SCDService
@@ -32,11 +46,39 @@ public abstract class AbstractSCDServiceImpl<T extends SCDEntity, R extends SCDR
     protected final R repository;
     protected final UidGenerator uidGenerator;
     protected final EntityType entityType;
+    protected final CacheBatchOperations cacheBatchOperations;
+    protected final SingleFlight singleFlight;
 
     @Override
     public Optional<T> findLatestVersionById(String id) {
         validateId(id);
-        return repository.findLatestVersionById(id);
+        // Concurrent cache misses for the same ID share one query
+        return singleFlight.load(latestVersionCacheName(), id, () -> repository.findLatestVersionById(id));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, T> findLatestVersionsByIds(Collection<String> ids) {
+        ids.forEach(this::validateId);
+        final List<String> distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+
+        final Map<String, T> found = new LinkedHashMap<>();
+        cacheBatchOperations.getAll(latestVersionCacheName(), distinctIds)
+            .forEach((id, entity) -> found.put(id, (T) entity));
+
+        final List<String> misses = distinctIds.stream()
+            .filter(id -> !found.containsKey(id))
+            .toList();
+        if (misses.isEmpty()) {
+            return found;
+        }
+
+        final Map<String, T> loaded = new LinkedHashMap<>();
+        repository.findLatestVersionsByIds(misses).forEach(entity -> loaded.put(entity.getId(), entity));
+        cacheBatchOperations.putAll(latestVersionCacheName(), loaded);
+
+        found.putAll(loaded);
+        return found;
     }
 
     @Override
@@ -45,6 +87,22 @@ public abstract class AbstractSCDServiceImpl<T extends SCDEntity, R extends SCDR
         return repository.findAllVersionsById(id);
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> findAllVersionsById(String id, FieldProjection projection) {
+        validateId(id);
+        if (projection.isAll()) {
+            return repository.findAllVersionsById(id);
+        }
+
+        // A cached full history beats any projected query; the mapper leaves out the fields nobody asked for
+        final Object cached = cacheBatchOperations.getAll(historyCacheName(), List.of(id)).get(id);
+        if (cached != null) {
+            return (List<T>) cached;
+        }
+        return repository.findAllVersionsById(id, projection);
+    }
+
     @Override
     public Optional<T> findByUid(String uid) {
         validateUid(uid);
@@ -54,14 +112,41 @@ public abstract class AbstractSCDServiceImpl<T extends SCDEntity, R extends SCDR
     @Override
     @Transactional
     public T createNewVersion(String id, Map<String, Object> fieldsToUpdate) {
-        validateId(id);
+        return writeNewVersion(id, fieldsToUpdate, ANY_VERSION);
+    }
 
-        Optional<T> latestVersionOpt = repository.findLatestVersionById(id);
-        if (latestVersionOpt.isEmpty()) {
-            throw new EntityNotFoundException("Entity with ID " + id + " not found");
+    @Override
+    @Transactional
+    public T createNewVersion(String id, Map<String, Object> fieldsToUpdate, int expectedVersion) {
+        return writeNewVersion(id, fieldsToUpdate, expectedVersion);
+    }
+
+    @Override
+    @Transactional
+    public BatchUpdateResult<T> createNewVersions(Map<String, Map<String, Object>> fieldsToUpdateById,
+        boolean allOrNothing) {
+        fieldsToUpdateById.keySet().forEach(this::validateId);
+
+        // Only IDs that got a new version are evicted; no-op updates leave the cached entries valid
+        final Set<String> written = new HashSet<>();
+        final Map<String, T> updated = repository.createNewVersions(fieldsToUpdateById, (previousVersion, newVersion) -> {
+            written.add(newVersion.getId());
+            onNewVersion(previousVersion, newVersion);
+        });
+
+        final Map<String, String> errors = new LinkedHashMap<>();
+        fieldsToUpdateById.keySet().stream()
+            .filter(id -> !updated.containsKey(id))
+            .forEach(id -> errors.put(id, "Entity with ID " + id + " not found"));
+
+        if (allOrNothing && !errors.isEmpty()) {
+            // Roll back the versions already written without turning the per-ID errors into a failed call
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new BatchUpdateResult<>(Map.of(), errors);
         }
 
-        return repository.createNewVersion(latestVersionOpt.get(), fieldsToUpdate);
+        evictAfterCommit(written);
+        return new BatchUpdateResult<>(updated, errors);
     }
 
     @Override
@@ -75,6 +160,83 @@ public abstract class AbstractSCDServiceImpl<T extends SCDEntity, R extends SCDR
         return repository.findLatestVersionsByCriteria(criteria);
     }
 
+    @Override
+    public KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options) {
+        return repository.findLatestVersionsByCriteria(criteria, options);
+    }
+
+    @Override
+    public KeysetPage<T> findLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection) {
+        return repository.findLatestVersionsByCriteria(criteria, options, projection);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamLatestVersionsByCriteria(Map<String, Object> criteria, QueryOptions options,
+        FieldProjection projection, Consumer<T> consumer) {
+        try (Stream<T> stream = repository.streamLatestVersionsByCriteria(criteria, options, projection)) {
+            stream.forEach(consumer);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllVersionsById(String id, FieldProjection projection, Consumer<T> consumer) {
+        validateId(id);
+        try (Stream<T> stream = repository.streamAllVersionsById(id, projection)) {
+            stream.forEach(consumer);
+        }
+    }
+
+    /**
+     * Lock the ID, check the latest version against the expected one and write its successor
+     * The latest-version and history entries are evicted once the write commits.
+     */
+    private T writeNewVersion(String id, Map<String, Object> fieldsToUpdate, int expectedVersion) {
+        validateId(id);
+
+        // Concurrent updates of this ID wait here instead of failing on the (id, version) key at commit
+        repository.lockForUpdate(List.of(id));
+        Optional<T> latestVersionOpt = repository.findLatestVersionById(id);
+        if (latestVersionOpt.isEmpty()) {
+            throw new EntityNotFoundException("Entity with ID " + id + " not found");
+        }
+
+        final T previousVersion = latestVersionOpt.get();
+        // A stale update fails before anything is written
+        if (expectedVersion != ANY_VERSION && previousVersion.getVersion() != expectedVersion) {
+            throw VersionConflictException.forVersion(id, expectedVersion, previousVersion.getVersion());
+        }
+
+        final T newVersion = repository.createNewVersion(previousVersion, fieldsToUpdate);
+        if (newVersion == previousVersion) {
+            // Nothing changed, so nothing was written and every cached entry is still valid
+            return previousVersion;
+        }
+        onNewVersion(previousVersion, newVersion);
+        evictAfterCommit(List.of(id));
+        return newVersion;
+    }
+
+    /**
+     * Evict the latest-version and history entries of the given IDs once the current transaction commits
+     */
+    protected void evictAfterCommit(Collection<String> ids) {
+        cacheBatchOperations.evictAllAfterCommit(latestVersionCacheName(), ids);
+        cacheBatchOperations.evictAllAfterCommit(historyCacheName(), ids);
+    }
+
+    /**
+     * Called inside the write transaction for every new version, with the version it supersedes
+     * Subclasses use it to evict derived cache entries keyed by the fields of either version
+     *
+     * @param previousVersion the version that was current before the update
+     * @param newVersion the version that is current now
+     */
+    protected void onNewVersion(T previousVersion, T newVersion) {
+    }
+
     /**
      * Validate entity ID format
      */
@@ -93,6 +255,16 @@ public abstract class AbstractSCDServiceImpl<T extends SCDEntity, R extends SCDR
         }
     }
 
+    /**
+     * Name of the cache holding the latest version of each entity, keyed by ID
+     */
+    protected abstract String latestVersionCacheName();
+
+    /**
+     * Name of the cache holding the version history of each entity, keyed by ID
+     */
+    protected abstract String historyCacheName();
+
     /**
      * Validate the entity before saving
      * Entity-specific validation should be implemented by subclasses
@@ -1,17 +1,65 @@
 package com.mercor.assignment.scd.domain.core.util;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.ByteBuffer;
 import java.util.Base64;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
 
 /**
  * Utility for generating unique IDs for SCD entities
+ * By default IDs are time-ordered: a UUIDv7 (48-bit millisecond timestamp, then 74 random bits drawn from the calling
+ * thread's generator) written in lowercase Crockford base32, so IDs sort by creation time as strings and new rows land
+ * at the right edge of the primary key and ID indexes instead of on random pages. The random strategy keeps the
+ * original random UUIDs in URL-safe Base64. Both share the {@code {prefix}_uid_} / {@code {prefix}_} formats and may
+ * coexist in one table.
  */
 @Component
 public class UidGenerator {
 
+    /**
+     * How the unique part of an ID is generated
+     */
+    public enum Strategy {
+        /**
+         * Random UUIDs (v4) from the shared SecureRandom
+         */
+        RANDOM,
+        /**
+         * UUIDv7 with per-thread entropy, sortable by creation time
+         */
+        TIME_ORDERED;
+
+        /**
+         * @param value e.g. "time-ordered" or "random", case-insensitive
+         */
+        public static Strategy fromValue(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    // Crockford base32 without i, l, o and u; digits sort before letters in every common collation
+    private static final char[] BASE32 = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+    private static final int BASE32_LENGTH = 26;
+
+    private final Strategy strategy;
+    private final LongSupplier clock;
+
+    @Autowired
+    public UidGenerator(@Value("${scd.uid.strategy:time-ordered}") String strategy) {
+        this(Strategy.fromValue(strategy), System::currentTimeMillis);
+    }
+
+    UidGenerator(Strategy strategy, LongSupplier clock) {
+        this.strategy = strategy;
+        this.clock = clock;
+    }
+
     /**
      * Generate a unique ID for an entity version
      *
@@ -20,14 +68,10 @@ public class UidGenerator {
      */
     public String generateUid(String entityType) {
         // Create a unique ID with entity type prefix
-        // Format: {entityType}_uid_{random-string}
-        
-        UUID uuid = UUID.randomUUID();
-        String encodedId = encodeUuid(uuid);
-        
-        return entityType + "_uid_" + encodedId;
-    }
-    
+        // Format: {entityType}_uid_{unique-string}
+        return entityType + "_uid_" + nextUniquePart();
+    }
+
     /**
      * Generate a new entity ID
      *
@@ -36,14 +80,52 @@ public class UidGenerator {
      */
     public String generateEntityId(String entityType) {
         // Create a unique ID with entity type prefix
-        // Format: {entityType}_{random-string}
-        
-        UUID uuid = UUID.randomUUID();
-        String encodedId = encodeUuid(uuid);
-        
-        return entityType + "_" + encodedId;
-    }
-    
+        // Format: {entityType}_{unique-string}
+        return entityType + "_" + nextUniquePart();
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    private String nextUniquePart() {
+        if (strategy == Strategy.RANDOM) {
+            return encodeUuid(UUID.randomUUID());
+        }
+        final UUID uuid = timeOrderedUuid(clock.getAsLong(), ThreadLocalRandom.current());
+        return encodeBase32(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Build a UUIDv7 (RFC 9562): unix milliseconds, version, 12 random bits, variant, 62 random bits
+     */
+    static UUID timeOrderedUuid(long epochMillis, ThreadLocalRandom random) {
+        final long msb = (epochMillis << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        final long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Write 128 bits as 26 base32 digits, most significant first, so string order is numeric order
+     */
+    static String encodeBase32(long msb, long lsb) {
+        final char[] digits = new char[BASE32_LENGTH];
+        // The 128 bits are read as a 130-bit number with two leading zero bits
+        for (int i = 0; i < BASE32_LENGTH; i++) {
+            final int low = 125 - 5 * i;
+            final long bits;
+            if (low >= 64) {
+                bits = msb >>> (low - 64);
+            } else if (low > 59) {
+                bits = (msb << (64 - low)) | (lsb >>> low);
+            } else {
+                bits = lsb >>> low;
+            }
+            digits[i] = BASE32[(int) (bits & 31)];
+        }
+        return new String(digits);
+    }
+
     /**
      * Encode a UUID into a URL-safe string
      */
@@ -53,4 +135,4 @@ public class UidGenerator {
         bb.putLong(uuid.getLeastSignificantBits());
         return Base64.getUrlEncoder().withoutPadding().encodeToString(bb.array());
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -62,6 +64,7 @@ public class Job extends AbstractSCDEntity {
         .uid(uid)
         .createdAt(now)
         .updatedAt(now)
+        .current(true)
         .status(this.getStatus())
         .rate(this.getRate())
         .title(this.getTitle())
@@ -69,4 +72,15 @@ public class Job extends AbstractSCDEntity {
         .contractorId(this.getContractorId())
         .build();
   }
-}
\ No newline at end of file
+
+  @Override
+  public Map<String, Object> payloadAttributes() {
+    final Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("status", this.getStatus());
+    attributes.put("rate", this.getRate());
+    attributes.put("title", this.getTitle());
+    attributes.put("companyId", this.getCompanyId());
+    attributes.put("contractorId", this.getContractorId());
+    return attributes;
+  }
+}
@@ -32,6 +32,11 @@ public class JobRepositoryImpl extends AbstractSCDRepositoryImpl<Job> {
         return new Job();
     }
 
+    @Override
+    protected Job owningJob(Job entity) {
+        return entity;
+    }
+
     @Override
     protected void updateEntityFields(Job entity, Map<String, Object> fieldsToUpdate) {
         fieldsToUpdate.forEach((field, value) -> {
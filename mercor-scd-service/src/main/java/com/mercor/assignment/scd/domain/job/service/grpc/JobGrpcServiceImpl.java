@@ -1,5 +1,7 @@
 package com.mercor.assignment.scd.domain.job.service.grpc;
 
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.service.groupcommit.GroupCommitWriter;
 import com.mercor.assignment.scd.domain.job.CreateNewJobRequest;
 import com.mercor.assignment.scd.domain.job.GetActiveJobsForCompanyRequest;
 import com.mercor.assignment.scd.domain.job.GetActiveJobsForContractorRequest;
@@ -27,6 +29,7 @@ public class JobGrpcServiceImpl extends JobServiceGrpc.JobServiceImplBase {
 
     private final JobService jobService;
     private final JobMapper jobMapper;
+    private final GroupCommitWriter groupCommitWriter;
 
     @Override
     public void createNewJob(final CreateNewJobRequest request, final StreamObserver<JobResponse> responseObserver) {
@@ -76,7 +79,8 @@ public class JobGrpcServiceImpl extends JobServiceGrpc.JobServiceImplBase {
         final Map<String, Object> map = new HashMap<>();
         map.put("status", request.getStatus());
 
-        final Job newJobVersion = jobService.createNewVersion(request.getId(), map);
+        final Job newJobVersion = (Job) groupCommitWriter.createNewVersion(EntityType.JOBS, request.getId(), map,
+            request.getExpectedVersion());
         final JobResponse response = jobMapper.toResponse(newJobVersion);
 
         responseObserver.onNext(response);
@@ -88,7 +92,8 @@ public class JobGrpcServiceImpl extends JobServiceGrpc.JobServiceImplBase {
         final Map<String, Object> map = new HashMap<>();
         map.put("rate", request.getRate());
 
-        final Job newJobVersion = jobService.createNewVersion(request.getId(), map);
+        final Job newJobVersion = (Job) groupCommitWriter.createNewVersion(EntityType.JOBS, request.getId(), map,
+            request.getExpectedVersion());
         final JobResponse response = jobMapper.toResponse(newJobVersion);
 
         responseObserver.onNext(response);
@@ -1,5 +1,7 @@
 package com.mercor.assignment.scd.domain.job.service.regular;
 
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
 import com.mercor.assignment.scd.domain.core.constants.ServiceName;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
@@ -11,17 +13,17 @@ import com.mercor.assignment.scd.domain.job.model.Job;
 import com.mercor.assignment.scd.domain.job.repository.JobRepository;
 import com.mercor.assignment.scd.domain.job.service.JobService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation of the JobService interface
@@ -34,8 +36,9 @@ public class JobServiceImpl extends AbstractSCDServiceImpl<Job, JobRepository> i
     private final JobRepository jobRepository;
 
     @Autowired
-    public JobServiceImpl(final JobRepository jobRepository, final UidGenerator uidGenerator) {
-        super(jobRepository, uidGenerator, EntityType.JOBS);
+    public JobServiceImpl(final JobRepository jobRepository, final UidGenerator uidGenerator,
+        final CacheBatchOperations cacheBatchOperations, final SingleFlight singleFlight) {
+        super(jobRepository, uidGenerator, EntityType.JOBS, cacheBatchOperations, singleFlight);
         this.jobRepository = jobRepository;
     }
 
@@ -57,29 +60,20 @@ public class JobServiceImpl extends AbstractSCDServiceImpl<Job, JobRepository> i
     }
 
     @Override
-    @CacheEvict(value = "job:latest", key = "#id")
-    @Caching(evict = {
-        @CacheEvict(value = "job:latest", key = "#id"),
-        @CacheEvict(value = "job:history", key = "#id"),
-        @CacheEvict(value = "job:activeByCompany", allEntries = true),
-        @CacheEvict(value = "job:activeByContractor", allEntries = true)
-    })
     @Transactional
     public Job createNewVersion(String id, Map<String, Object> fieldsToUpdate) {
         return super.createNewVersion(id, fieldsToUpdate);
     }
 
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "job:activeByCompany", allEntries = true),
-        @CacheEvict(value = "job:activeByContractor", allEntries = true)
-    })
     @Transactional
     public Job createEntity(Job entity) {
         if (!JobValidators.validNewJob.isValid(entity)) {
             throw new ValidationException("Invalid job entity");
         }
-        return super.createEntity(entity);
+        final Job created = super.createEntity(entity);
+        evictActiveJobs(List.of(created));
+        return created;
     }
 
     @Override
@@ -87,6 +81,41 @@ public class JobServiceImpl extends AbstractSCDServiceImpl<Job, JobRepository> i
         return super.findLatestVersionsByCriteria(criteria);
     }
 
+    @Override
+    protected void onNewVersion(Job previousVersion, Job newVersion) {
+        // A job leaves the lists of its old company/contractor and joins those of the new ones
+        evictActiveJobs(List.of(previousVersion, newVersion));
+    }
+
+    /**
+     * Evict the active-job lists of the companies and contractors of the given jobs after commit
+     */
+    private void evictActiveJobs(List<Job> jobs) {
+        final Set<String> companyIds = new LinkedHashSet<>();
+        final Set<String> contractorIds = new LinkedHashSet<>();
+        for (Job job : jobs) {
+            if (job.getCompanyId() != null) {
+                companyIds.add(job.getCompanyId());
+            }
+            if (job.getContractorId() != null) {
+                contractorIds.add(job.getContractorId());
+            }
+        }
+
+        cacheBatchOperations.evictAllAfterCommit("job:activeByCompany", companyIds);
+        cacheBatchOperations.evictAllAfterCommit("job:activeByContractor", contractorIds);
+    }
+
+    @Override
+    protected String latestVersionCacheName() {
+        return "job:latest";
+    }
+
+    @Override
+    protected String historyCacheName() {
+        return "job:history";
+    }
+
     @Override
     protected void validateEntity(final Job entity) {
         if (!SCDValidators.JobValidators.validJob.isValid(entity)) {
@@ -14,6 +14,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -88,10 +90,21 @@ public class PaymentLineItem extends AbstractSCDEntity {
         .uid(uid)
         .createdAt(now)
         .updatedAt(now)
+        .current(true)
         .timelogUid(this.getTimelogUid())
         .jobUid(this.getJobUid())
         .amount(this.getAmount())
         .status(this.getStatus())
         .build();
   }
-}
\ No newline at end of file
+
+  @Override
+  public Map<String, Object> payloadAttributes() {
+    final Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("jobUid", this.getJobUid());
+    attributes.put("timelogUid", this.getTimelogUid());
+    attributes.put("amount", this.getAmount());
+    attributes.put("status", this.getStatus());
+    return attributes;
+  }
+}
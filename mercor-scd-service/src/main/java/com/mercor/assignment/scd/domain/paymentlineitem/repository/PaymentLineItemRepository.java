@@ -28,20 +28,11 @@ public interface PaymentLineItemRepository extends JpaRepository<PaymentLineItem
 
   @Query(nativeQuery = true, value =
       "SELECT pli.* FROM payment_line_items pli " +
-          "JOIN (SELECT id, MAX(version) as max_version FROM payment_line_items GROUP BY id) latest_pli " +
-          "ON pli.id = latest_pli.id AND pli.version = latest_pli.max_version " +
-          "WHERE pli.job_uid IN (" +
-          "  SELECT j.uid FROM jobs j " +
-          "  JOIN (SELECT id, MAX(version) as max_version FROM jobs GROUP BY id) latest_j " +
-          "  ON j.id = latest_j.id AND j.version = latest_j.max_version " +
-          "  WHERE j.contractor_id = :contractorId" +
-          ") " +
-          "AND pli.timelog_uid IN (" +
-          "  SELECT t.uid FROM timelogs t " +
-          "  JOIN (SELECT id, MAX(version) as max_version FROM timelogs GROUP BY id) latest_t " +
-          "  ON t.id = latest_t.id AND t.version = latest_t.max_version " +
-          "  WHERE t.time_start >= :startTime AND t.time_end <= :endTime" +
-          ")")
+          "JOIN jobs j ON j.uid = pli.job_uid AND j.is_current = TRUE " +
+          "JOIN timelogs t ON t.uid = pli.timelog_uid AND t.is_current = TRUE " +
+          "WHERE pli.is_current = TRUE " +
+          "AND j.contractor_id = :contractorId " +
+          "AND t.time_start >= :startTime AND t.time_end <= :endTime")
   List<PaymentLineItem> findAllForContractor(
       @Param("contractorId") String contractorId,
       @Param("startTime") Long startTime,
@@ -3,6 +3,7 @@ package com.mercor.assignment.scd.domain.paymentlineitem.repository.impl;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
 import com.mercor.assignment.scd.domain.core.repository.impl.AbstractSCDRepositoryImpl;
 import com.mercor.assignment.scd.domain.core.util.UidGenerator;
+import com.mercor.assignment.scd.domain.job.model.Job;
 import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
 import java.math.BigDecimal;
 import java.util.Map;
@@ -31,6 +32,12 @@ public class PaymentLineItemRepositoryImpl extends AbstractSCDRepositoryImpl<Pay
         return new PaymentLineItem();
     }
 
+    @Override
+    protected Job owningJob(PaymentLineItem entity) {
+        // Looked up by UID rather than through the lazy relationship, which cannot load once the version is detached
+        return entity.getJobUid() == null ? null : entityManager.find(Job.class, entity.getJobUid());
+    }
+
     @Override
     protected void updateEntityFields(PaymentLineItem entity, Map<String, Object> fieldsToUpdate) {
         fieldsToUpdate.forEach((field, value) -> {
@@ -1,9 +1,12 @@
 package com.mercor.assignment.scd.domain.paymentlineitem.service.regular.impl;
 
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
 import com.mercor.assignment.scd.domain.core.constants.ServiceName;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
 import com.mercor.assignment.scd.domain.core.service.regular.AbstractSCDServiceImpl;
 import com.mercor.assignment.scd.domain.core.util.UidGenerator;
 import com.mercor.assignment.scd.domain.core.validation.SCDValidators.PaymentLineItemValidators;
@@ -15,9 +18,7 @@ import com.mercor.assignment.scd.domain.paymentlineitem.repository.PaymentLineIt
 import com.mercor.assignment.scd.domain.paymentlineitem.service.regular.PaymentLineItemService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,14 +34,19 @@ import java.util.Optional;
 @Transactional(readOnly = true)
 public class PaymentLineItemServiceImpl extends AbstractSCDServiceImpl<PaymentLineItem, PaymentLineItemRepository> implements PaymentLineItemService {
 
+    private static final String TOTAL_FOR_CONTRACTOR_CACHE = "payment_line_item:totalForContractor";
+
     private final PaymentLineItemRepository paymentLineItemRepository;
 
     @Autowired
     public PaymentLineItemServiceImpl(
         final PaymentLineItemRepository paymentLineItemRepository,
-        final UidGenerator uidGenerator
+        final UidGenerator uidGenerator,
+        final CacheBatchOperations cacheBatchOperations,
+        final SingleFlight singleFlight
     ) {
-        super(paymentLineItemRepository, uidGenerator, EntityType.TIMELOG);
+        super(paymentLineItemRepository, uidGenerator, EntityType.PAYMENT_LINE_ITEMS, cacheBatchOperations,
+            singleFlight);
         this.paymentLineItemRepository = paymentLineItemRepository;
     }
 
@@ -66,18 +72,13 @@ public class PaymentLineItemServiceImpl extends AbstractSCDServiceImpl<PaymentLi
     }
 
     @Override
-    @CacheEvict(value = "payment_line_item:latest", key = "#id")
-    @Caching(evict = {
-        @CacheEvict(value = "payment_line_item:latest", key = "#id"),
-        @CacheEvict(value = "payment_line_item:history", key = "#id"),
-        @CacheEvict(value = "payment_line_item:totalForContractor", allEntries = true)
-    })
     @Transactional
     public PaymentLineItem markAsPaid(String id) {
         if (!SCDCommonValidators.validId.isValid(id)) {
             throw new ValidationException("Invalid Payment Line Item ID format");
         }
 
+        paymentLineItemRepository.lockForUpdate(List.of(id));
         final PaymentLineItem paymentLineItem = paymentLineItemRepository.findLatestVersionById(id)
             .orElseThrow(() -> new EntityNotFoundException("Payment line item not found with ID: " + id));
 
@@ -92,11 +93,14 @@ public class PaymentLineItemServiceImpl extends AbstractSCDServiceImpl<PaymentLi
         final Map<String, Object> fieldsToUpdate = new HashMap<>();
         fieldsToUpdate.put("status", "paid");
 
-        return paymentLineItemRepository.createNewVersion(paymentLineItem, fieldsToUpdate);
+        final PaymentLineItem paidVersion = paymentLineItemRepository.createNewVersion(paymentLineItem, fieldsToUpdate);
+        onNewVersion(paymentLineItem, paidVersion);
+        evictAfterCommit(List.of(id));
+        return paidVersion;
     }
 
     @Override
-    @Cacheable(value = "payment:totalForContractor",
+    @Cacheable(value = TOTAL_FOR_CONTRACTOR_CACHE,
         key = "#contractorId + ':' + #startTime + ':' + #endTime")
     public BigDecimal getTotalAmountForContractor(String contractorId, Long startTime, Long endTime) {
         final List<PaymentLineItem> paymentLineItems = getPaymentLineItemsForContractor(contractorId, startTime,
@@ -124,27 +128,27 @@ public class PaymentLineItemServiceImpl extends AbstractSCDServiceImpl<PaymentLi
     }
 
     @Override
-    @CacheEvict(value = "payment_line_item:latest", key = "#id")
-    @Caching(evict = {
-        @CacheEvict(value = "payment_line_item:latest", key = "#id"),
-        @CacheEvict(value = "payment_line_item:history", key = "#id"),
-        @CacheEvict(value = "payment_line_item:totalForContractor", allEntries = true)
-    })
     @Transactional
     public PaymentLineItem createNewVersion(String id, Map<String, Object> fieldsToUpdate) {
         return super.createNewVersion(id, fieldsToUpdate);
     }
 
     @Override
-    @Caching(evict = {
-        @CacheEvict(value = "payment_line_item:totalForContractor", allEntries = true)
-    })
     @Transactional
     public PaymentLineItem createEntity(PaymentLineItem entity) {
         if (!PaymentLineItemValidators.validNewPaymentLineItem.isValid(entity)) {
             throw new ValidationException("Invalid payment line item entity");
         }
-        return super.createEntity(entity);
+        final PaymentLineItem created = super.createEntity(entity);
+        cacheBatchOperations.clearAfterCommit(TOTAL_FOR_CONTRACTOR_CACHE);
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public BatchUpdateResult<PaymentLineItem> createNewVersions(Map<String, Map<String, Object>> fieldsToUpdateById,
+        boolean allOrNothing) {
+        return super.createNewVersions(fieldsToUpdateById, allOrNothing);
     }
 
     @Override
@@ -152,6 +156,22 @@ public class PaymentLineItemServiceImpl extends AbstractSCDServiceImpl<PaymentLi
         return super.findLatestVersionsByCriteria(criteria);
     }
 
+    @Override
+    protected void onNewVersion(PaymentLineItem previousVersion, PaymentLineItem newVersion) {
+        // Totals are cached per time range, so every range may include the changed amount
+        cacheBatchOperations.clearAfterCommit(TOTAL_FOR_CONTRACTOR_CACHE);
+    }
+
+    @Override
+    protected String latestVersionCacheName() {
+        return "payment_line_item:latest";
+    }
+
+    @Override
+    protected String historyCacheName() {
+        return "payment_line_item:history";
+    }
+
     @Override
     protected void validateEntity(final PaymentLineItem entity) {
         if (!PaymentLineItemValidators.validPaymentLineItem.isValid(entity)) {
@@ -12,6 +12,8 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -80,6 +82,7 @@ public class Timelog extends AbstractSCDEntity {
         .uid(uid)
         .createdAt(now)
         .updatedAt(now)
+        .current(true)
         .duration(this.getDuration())
         .timeStart(this.getTimeStart())
         .timeEnd(this.getTimeEnd())
@@ -87,4 +90,15 @@ public class Timelog extends AbstractSCDEntity {
         .jobUid(this.getJobUid())
         .build();
   }
-}
\ No newline at end of file
+
+  @Override
+  public Map<String, Object> payloadAttributes() {
+    final Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("duration", this.getDuration());
+    attributes.put("timeStart", this.getTimeStart());
+    attributes.put("timeEnd", this.getTimeEnd());
+    attributes.put("type", this.getType());
+    attributes.put("jobUid", this.getJobUid());
+    return attributes;
+  }
+}
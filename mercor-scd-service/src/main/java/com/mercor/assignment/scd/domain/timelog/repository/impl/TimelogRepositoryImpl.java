@@ -3,6 +3,7 @@ package com.mercor.assignment.scd.domain.timelog.repository.impl;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
 import com.mercor.assignment.scd.domain.core.repository.impl.AbstractSCDRepositoryImpl;
 import com.mercor.assignment.scd.domain.core.util.UidGenerator;
+import com.mercor.assignment.scd.domain.job.model.Job;
 import com.mercor.assignment.scd.domain.timelog.model.Timelog;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +31,12 @@ public class TimelogRepositoryImpl extends AbstractSCDRepositoryImpl<Timelog> {
         return new Timelog();
     }
 
+    @Override
+    protected Job owningJob(Timelog entity) {
+        // Looked up by UID rather than through the lazy relationship, which cannot load once the version is detached
+        return entity.getJobUid() == null ? null : entityManager.find(Job.class, entity.getJobUid());
+    }
+
     @Override
     protected void updateEntityFields(Timelog entity, Map<String, Object> fieldsToUpdate) {
         fieldsToUpdate.forEach((field, value) -> {
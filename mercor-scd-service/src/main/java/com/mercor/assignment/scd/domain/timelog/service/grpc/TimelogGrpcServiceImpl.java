@@ -68,7 +68,8 @@ public class TimelogGrpcServiceImpl extends TimelogServiceGrpc.TimelogServiceImp
 
   @Override
   public void adjustTimelog(AdjustTimelogRequest request, StreamObserver<TimelogResponse> responseObserver) {
-    final Timelog newTimelogVersion = timelogService.adjustTimelog(request.getId(), request.getAdjustedDuration());
+    final Timelog newTimelogVersion = timelogService.adjustTimelog(request.getId(), request.getAdjustedDuration(),
+        request.getExpectedVersion());
     final TimelogResponse response = timelogMapper.toTimelogResponse(newTimelogVersion);
 
     responseObserver.onNext(response);
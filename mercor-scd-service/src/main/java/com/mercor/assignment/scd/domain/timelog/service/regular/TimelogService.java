@@ -42,7 +42,9 @@ public interface TimelogService extends SCDService<Timelog> {
      *
      * @param timelogId the ID of the timelog to adjust
      * @param adjustedDuration the new adjusted duration
+     * @param expectedVersion the version the adjustment is based on, or {@link SCDService#ANY_VERSION}
      * @return the newly created timelog version with adjusted duration
+     * @throws com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException if the latest version is not the expected one
      */
-    Timelog adjustTimelog(String timelogId, Long adjustedDuration);
+    Timelog adjustTimelog(String timelogId, Long adjustedDuration, int expectedVersion);
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.mercor.assignment.scd.domain.timelog.service.regular.impl;
 
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
 import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
 import com.mercor.assignment.scd.domain.core.constants.ServiceName;
 import com.mercor.assignment.scd.domain.core.enums.EntityType;
 import com.mercor.assignment.scd.domain.core.service.regular.AbstractSCDServiceImpl;
@@ -19,9 +22,7 @@ import com.mercor.assignment.scd.domain.timelog.service.regular.TimelogService;
 import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,8 +42,9 @@ public class TimelogServiceImpl extends AbstractSCDServiceImpl<Timelog, TimelogR
     private final TimelogRepository timelogRepository;
 
     @Autowired
-    public TimelogServiceImpl(final JobService jobService, final TimelogRepository timelogRepository, final UidGenerator uidGenerator) {
-        super(timelogRepository, uidGenerator, EntityType.TIMELOG);
+    public TimelogServiceImpl(final JobService jobService, final TimelogRepository timelogRepository, final UidGenerator uidGenerator,
+        final CacheBatchOperations cacheBatchOperations, final SingleFlight singleFlight) {
+        super(timelogRepository, uidGenerator, EntityType.TIMELOG, cacheBatchOperations, singleFlight);
         this.jobService = jobService;
         this.timelogRepository = timelogRepository;
     }
@@ -75,16 +77,12 @@ public class TimelogServiceImpl extends AbstractSCDServiceImpl<Timelog, TimelogR
     }
 
     @Override
-    @CacheEvict(value = "timelog:latest", key = "#timelogId")
-    @Caching(evict = {
-        @CacheEvict(value = "timelog:latest", key = "#timelogId"),
-        @CacheEvict(value = "timelog:history", key = "#timelogId")
-    })
     @Transactional
-    public Timelog adjustTimelog(String timelogId, Long adjustedDuration) {
+    public Timelog adjustTimelog(String timelogId, Long adjustedDuration, int expectedVersion) {
         if (!SCDCommonValidators.validId.isValid(timelogId)) {
             throw new ValidationException("Invalid Timelog ID format");
         }
+        timelogRepository.lockForUpdate(List.of(timelogId));
         Optional<Timelog> latestVersionOpt = timelogRepository.findLatestVersionById(timelogId);
 
         if (latestVersionOpt.isEmpty()) {
@@ -92,6 +90,9 @@ public class TimelogServiceImpl extends AbstractSCDServiceImpl<Timelog, TimelogR
         }
 
         final Timelog latestVersion = latestVersionOpt.get();
+        if (expectedVersion != ANY_VERSION && latestVersion.getVersion() != expectedVersion) {
+            throw VersionConflictException.forVersion(timelogId, expectedVersion, latestVersion.getVersion());
+        }
 
         final TimelogType type = TimelogType.fromValue(latestVersion.getType());
 
@@ -109,7 +110,9 @@ public class TimelogServiceImpl extends AbstractSCDServiceImpl<Timelog, TimelogR
         fieldsToUpdate.put("timeEnd", newTimeEnd);
         fieldsToUpdate.put("type", "adjusted");
 
-        return timelogRepository.createNewVersion(latestVersion, fieldsToUpdate);
+        final Timelog adjustedVersion = timelogRepository.createNewVersion(latestVersion, fieldsToUpdate);
+        evictAfterCommit(List.of(timelogId));
+        return adjustedVersion;
     }
 
     @Override
@@ -130,11 +133,6 @@ public class TimelogServiceImpl extends AbstractSCDServiceImpl<Timelog, TimelogR
     }
 
     @Override
-    @CacheEvict(value = "timelog:latest", key = "#timelogId")
-    @Caching(evict = {
-        @CacheEvict(value = "timelog:latest", key = "#timelogId"),
-        @CacheEvict(value = "timelog:history", key = "#timelogId")
-    })
     @Transactional
     public Timelog createNewVersion(String id, Map<String, Object> fieldsToUpdate) {
         return super.createNewVersion(id, fieldsToUpdate);
@@ -154,6 +152,16 @@ public class TimelogServiceImpl extends AbstractSCDServiceImpl<Timelog, TimelogR
         return timelogRepository.findLatestVersionsByCriteria(criteria);
     }
 
+    @Override
+    protected String latestVersionCacheName() {
+        return "timelog:latest";
+    }
+
+    @Override
+    protected String historyCacheName() {
+        return "timelog:history";
+    }
+
     @Override
     protected void validateEntity(final Timelog entity) {
         if (!SCDValidators.TimelogValidators.validTimelog.isValid(entity)) {
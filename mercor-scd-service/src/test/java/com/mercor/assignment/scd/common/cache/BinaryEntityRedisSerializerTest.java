@@ -0,0 +1,99 @@
+package com.mercor.assignment.scd.common.cache;
+
+import com.mercor.assignment.scd.common.config.CacheConfiguration;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEntityRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = CacheConfiguration.jsonRedisSerializer();
+    private final BinaryEntityRedisSerializer serializer = new BinaryEntityRedisSerializer(json, 1024);
+
+    @Test
+    void serialize_shouldRoundTripJob() {
+        Job job = job(1);
+
+        assertEquals(job, serializer.deserialize(serializer.serialize(job)));
+    }
+
+    @Test
+    void serialize_shouldRoundTripNestedRelations() {
+        Timelog timelog = Timelog.builder()
+            .id("tl_abc").version(2).uid("tl_uid_2").createdAt(new Date(1700000000000L)).updatedAt(new Date(1700000001000L))
+            .current(true).duration(3600000L).timeStart(1700000000000L).timeEnd(1700003600000L).type("captured")
+            .jobUid("job_uid_1").job(job(1))
+            .build();
+        PaymentLineItem paymentLineItem = PaymentLineItem.builder()
+            .id("li_abc").version(1).uid("li_uid_1").createdAt(new Date(1700000000000L)).updatedAt(new Date(1700000000000L))
+            .current(false).jobUid("job_uid_1").timelogUid("tl_uid_2").amount(new BigDecimal("-12.50")).status("not-paid")
+            .job(job(1)).timelog(timelog)
+            .build();
+
+        assertEquals(timelog, serializer.deserialize(serializer.serialize(timelog)));
+        assertEquals(paymentLineItem, serializer.deserialize(serializer.serialize(paymentLineItem)));
+    }
+
+    @Test
+    void serialize_shouldKeepNullFields() {
+        Job job = new Job();
+        job.setId("job_abc");
+
+        assertEquals(job, serializer.deserialize(serializer.serialize(job)));
+    }
+
+    @Test
+    void serialize_shouldCompressLargeHistories() {
+        List<Job> history = new ArrayList<>();
+        for (int version = 50; version > 0; version--) {
+            history.add(job(version));
+        }
+
+        byte[] bytes = serializer.serialize(history);
+
+        assertEquals(history, serializer.deserialize(bytes));
+        assertTrue(bytes.length < new BinaryEntityRedisSerializer(json, 0).serialize(history).length);
+        assertTrue(bytes.length < json.serialize(history).length);
+    }
+
+    @Test
+    void deserialize_shouldReadJsonWrittenEntries() {
+        Job job = job(3);
+
+        assertEquals(job, serializer.deserialize(json.serialize(job)));
+    }
+
+    @Test
+    void serialize_shouldDelegateUnknownTypes() {
+        Map<String, String> value = new HashMap<>(Map.of("key", "value"));
+
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        assertEquals(new BigDecimal("1234.56"), serializer.deserialize(serializer.serialize(new BigDecimal("1234.56"))));
+    }
+
+    private Job job(int version) {
+        return Job.builder()
+            .id("job_ckbk6oo4hn7pacdgcz9f")
+            .version(version)
+            .uid("job_uid_ywij5sh1tvfp5nkq7azav" + version)
+            .createdAt(new Date(1700000000000L + version))
+            .updatedAt(new Date(1700000000000L + version))
+            .current(version == 1)
+            .status("active")
+            .rate(new BigDecimal("20.00"))
+            .title("Software Engineer")
+            .companyId("comp_cab5xk9pt0cllmnpjsr0c")
+            .contractorId("cont_e0nhseq682vkoc4d")
+            .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.mercor.assignment.scd.common.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.util.ByteUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Batch reads and writes against a Redis cache whose connection is a mock
+ */
+@ExtendWith(MockitoExtension.class)
+class CacheBatchOperationsTest {
+
+    private static final String CACHE = "job:latest";
+    private static final RedisCacheConfiguration CONFIG = RedisCacheConfiguration.defaultCacheConfig();
+
+    @Mock
+    private RedisCacheWriter cacheWriter;
+
+    @Mock
+    private RedisConnectionFactory connectionFactory;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStringCommands stringCommands;
+
+    private CacheBatchOperations operations;
+
+    @BeforeEach
+    void setUp() {
+        operations = new CacheBatchOperations(RedisCacheManager.builder(cacheWriter).cacheDefaults(CONFIG).build(),
+            connectionFactory);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+    }
+
+    @Test
+    void getAll_shouldLookUpEveryKeyWithOneMget() {
+        when(stringCommands.mGet(any(byte[][].class))).thenReturn(Arrays.asList(value("v1"), null, value("v3")));
+
+        Map<String, Object> hits = operations.getAll(CACHE, List.of("job_a", "job_b", "job_c"));
+
+        assertEquals(Map.of("job_a", "v1", "job_c", "v3"), hits);
+        ArgumentCaptor<byte[][]> keys = ArgumentCaptor.forClass(byte[][].class);
+        verify(stringCommands).mGet(keys.capture());
+        assertEquals(List.of("job:latest::job_a", "job:latest::job_b", "job:latest::job_c"), text(keys.getValue()));
+        verifyNoMoreInteractions(stringCommands);
+    }
+
+    @Test
+    void putAll_shouldWriteEveryEntryInOnePipeline() {
+        operations.putAll(CACHE, Map.of("job_a", "v1", "job_b", "v2"));
+
+        ArgumentCaptor<byte[]> keys = ArgumentCaptor.forClass(byte[].class);
+        InOrder inOrder = inOrder(connection, stringCommands);
+        inOrder.verify(connection).openPipeline();
+        inOrder.verify(stringCommands, times(2)).set(keys.capture(), any(), any(), any());
+        inOrder.verify(connection).closePipeline();
+        assertEquals(List.of("job:latest::job_a", "job:latest::job_b"),
+            keys.getAllValues().stream().map(CacheBatchOperationsTest::text).sorted().toList());
+        verify(connectionFactory).getConnection();
+    }
+
+    @Test
+    void getAll_shouldTreatRedisFailureAsMisses() {
+        when(stringCommands.mGet(any(byte[][].class))).thenThrow(new RedisConnectionFailureException("Redis is down"));
+
+        assertEquals(Map.of(), operations.getAll(CACHE, List.of("job_a")));
+    }
+
+    private static byte[] value(Object value) {
+        return ByteUtils.getBytes(CONFIG.getValueSerializationPair().write(value));
+    }
+
+    private static List<String> text(byte[][] raw) {
+        List<String> keys = new ArrayList<>();
+        for (byte[] key : raw) {
+            keys.add(text(key));
+        }
+        return keys;
+    }
+
+    private static String text(byte[] raw) {
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,94 @@
+package com.mercor.assignment.scd.common.cache;
+
+import com.mercor.assignment.scd.common.config.CacheConfiguration;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Compares the default-typed JSON cache serializer with {@link BinaryEntityRedisSerializer}
+ * Encode and decode time are measured for a single latest version and for a version history; the JMH runner reports
+ * the results, and the encoded sizes are compared in {@link BinaryEntityRedisSerializerTest}. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.mercor.assignment.scd.common.cache.CacheSerializerBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"json", "binary"})
+    private String format;
+
+    @Param({"1", "50"})
+    private int versions;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        final RedisSerializer<Object> json = CacheConfiguration.jsonRedisSerializer();
+        serializer = "json".equals(format) ? json : new BinaryEntityRedisSerializer(json, 1024);
+
+        final List<Job> history = new ArrayList<>();
+        for (int version = versions; version > 0; version--) {
+            history.add(Job.builder()
+                .id("job_ckbk6oo4hn7pacdgcz9f")
+                .version(version)
+                .uid("job_uid_ywij5sh1tvfp5nkq7azav" + version)
+                .createdAt(new Date(1700000000000L + version))
+                .updatedAt(new Date(1700000000000L + version))
+                .current(version == versions)
+                .status(version % 2 == 0 ? "active" : "extended")
+                .rate(new BigDecimal("20.00").add(BigDecimal.valueOf(version)))
+                .title("Software Engineer")
+                .companyId("comp_cab5xk9pt0cllmnpjsr0c")
+                .contractorId("cont_e0nhseq682vkoc4d")
+                .build());
+        }
+        value = versions == 1 ? history.get(0) : history;
+        encoded = serializer.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(CacheSerializerBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.mercor.assignment.scd.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void load_shouldShareInFlightLoad() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 5000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.load("job:latest", "job_1", () -> {
+            loads.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return "loaded";
+        }), executor);
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.load("job:latest", "job_1", () -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        }), executor);
+        while (meterRegistry.counter("scd.singleflight.requests", "name", "job:latest", "outcome", "coalesced").count() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertEquals("loaded", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("loaded", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void load_shouldLoadAgainOnceFlightCompleted() {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 5000);
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.load("job:latest", "job_1", loads::incrementAndGet);
+        singleFlight.load("job:latest", "job_1", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void load_shouldStopWaitingAfterMaxWait() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 10);
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.load("job:latest", "job_1", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "slow";
+        }), executor);
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        assertEquals("own", singleFlight.load("job:latest", "job_1", () -> "own"));
+        assertEquals(1, meterRegistry.counter("scd.singleflight.requests", "name", "job:latest", "outcome", "timeout").count());
+
+        release.countDown();
+        assertEquals("slow", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void load_shouldPropagateLeaderFailure() {
+        SingleFlight singleFlight = new SingleFlight(meterRegistry, 5000);
+
+        assertThrows(IllegalArgumentException.class, () -> singleFlight.load("job:latest", "job_1", () -> {
+            throw new IllegalArgumentException("boom");
+        }));
+        assertEquals("next", singleFlight.load("job:latest", "job_1", () -> "next"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
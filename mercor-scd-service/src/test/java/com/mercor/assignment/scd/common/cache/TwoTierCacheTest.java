@@ -0,0 +1,218 @@
+package com.mercor.assignment.scd.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Two nodes sharing Redis mocks backed by one in-memory key-value store and pub/sub channel
+ */
+class TwoTierCacheTest {
+
+    private static final String CACHE = "job:latest";
+    private static final String CHANNEL = "scd:cache-invalidation";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final FakeRedis redis = new FakeRedis();
+
+    @Test
+    void get_shouldServeLocalHitWithoutGoingToRedis() {
+        TwoTierCache cache = node(100, Duration.ofMinutes(1)).cache();
+        cache.put("job_a", "v1");
+        int redisReads = redis.reads.get();
+
+        assertEquals("v1", cache.get("job_a").get());
+        assertEquals("v1", cache.get("job_a").get());
+
+        assertEquals(redisReads, redis.reads.get());
+        assertEquals(2, meterRegistry.get("cache.tier.gets").tags("tier", "local", "result", "hit").counter().count());
+    }
+
+    @Test
+    void get_shouldFillLocalTierFromRedisOnLocalMiss() {
+        TwoTierCache writer = node(100, Duration.ofMinutes(1)).cache();
+        TwoTierCache reader = node(100, Duration.ofMinutes(1)).cache();
+        writer.put("job_a", "v1");
+
+        assertEquals("v1", reader.get("job_a").get());
+        int redisReads = redis.reads.get();
+        assertEquals("v1", reader.get("job_a").get());
+
+        assertEquals(redisReads, redis.reads.get());
+        assertEquals(1, meterRegistry.get("cache.tier.gets").tags("tier", "remote", "result", "hit").counter().count());
+    }
+
+    @Test
+    void evict_shouldDropOtherNodesLocalCopy() {
+        TwoTierCache first = node(100, Duration.ofMinutes(1)).cache();
+        TwoTierCache second = node(100, Duration.ofMinutes(1)).cache();
+        first.put("job_a", "v1");
+        assertEquals("v1", second.get("job_a").get());
+
+        first.evict("job_a");
+        first.getRemote().put("job_a", "v2");
+
+        // Without the broadcast the second node would keep serving v1 from its local tier
+        assertEquals(Map.of(), second.getAllLocal(List.of("job_a")));
+        assertEquals("v2", second.get("job_a").get());
+    }
+
+    @Test
+    void evictAllLocalAndBroadcast_shouldDropOtherNodesLocalCopies() {
+        TwoTierCache first = node(100, Duration.ofMinutes(1)).cache();
+        TwoTierCache second = node(100, Duration.ofMinutes(1)).cache();
+        second.putAllLocal(Map.of("job_a", "v1", "job_b", "v1", "job_c", "v1"));
+
+        first.evictAllLocalAndBroadcast(List.of("job_a", "job_b"));
+
+        assertEquals(Map.of("job_c", "v1"), second.getAllLocal(List.of("job_a", "job_b", "job_c")));
+    }
+
+    @Test
+    void clear_shouldClearOtherNodesLocalTier() {
+        TwoTierCache first = node(100, Duration.ofMinutes(1)).cache();
+        TwoTierCache second = node(100, Duration.ofMinutes(1)).cache();
+        second.putAllLocal(Map.of("job_a", "v1", "job_b", "v1"));
+
+        first.clear();
+
+        assertEquals(Map.of(), second.getAllLocal(List.of("job_a", "job_b")));
+    }
+
+    @Test
+    void onMessage_shouldIgnoreOwnInvalidations() {
+        Node first = node(100, Duration.ofMinutes(1));
+        Node second = node(100, Duration.ofMinutes(1));
+        first.cache().evictAllLocalAndBroadcast(List.of("job_a"));
+        Message published = redis.published.get(0);
+        first.cache().putAllLocal(Map.of("job_a", "v2"));
+        second.cache().putAllLocal(Map.of("job_a", "v2"));
+
+        first.channel().onMessage(published, null);
+        second.channel().onMessage(published, null);
+
+        assertEquals(Map.of("job_a", "v2"), first.cache().getAllLocal(List.of("job_a")));
+        assertEquals(Map.of(), second.cache().getAllLocal(List.of("job_a")));
+    }
+
+    @Test
+    void getCache_shouldOnlyFrontListedCaches() {
+        Node node = node(100, Duration.ofMinutes(1));
+
+        assertInstanceOf(TwoTierCache.class, node.manager().getCache(CACHE));
+        assertFalse(node.manager().getCache("job:activeByCompany") instanceof TwoTierCache);
+    }
+
+    @Test
+    void putAllLocal_shouldKeepLocalTierWithinMaximumSize() throws Exception {
+        TwoTierCache cache = node(10, Duration.ofMinutes(1)).cache();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add("job_" + i);
+            cache.putAllLocal(Map.of("job_" + i, "v1"));
+        }
+
+        // Caffeine evicts in the background, shortly after the bound is exceeded
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getAllLocal(keys).size() > 10) {
+            assertTrue(System.nanoTime() < deadline, "local tier exceeded its maximum size");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void get_shouldGoBackToRedisOnceLocalEntryExpired() throws Exception {
+        TwoTierCache cache = node(100, Duration.ofMillis(50)).cache();
+        cache.put("job_a", "v1");
+        Thread.sleep(100);
+
+        assertEquals(Map.of(), cache.getAllLocal(List.of("job_a")));
+        int redisReads = redis.reads.get();
+        assertEquals("v1", cache.get("job_a").get());
+        assertEquals(redisReads + 1, redis.reads.get());
+    }
+
+    private Node node(long localMaximumSize, Duration localExpireAfterWrite) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redis.cacheWriter)
+            .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig())
+            .build();
+        CacheInvalidationChannel channel = new CacheInvalidationChannel(redis.template, CHANNEL);
+        redis.subscribers.add(channel);
+        TwoTierCacheManager manager = new TwoTierCacheManager(redisCacheManager, Set.of(CACHE), localMaximumSize,
+            localExpireAfterWrite, channel, meterRegistry);
+        return new Node(manager, channel);
+    }
+
+    private record Node(TwoTierCacheManager manager, CacheInvalidationChannel channel) {
+
+        TwoTierCache cache() {
+            return (TwoTierCache) manager.getCache(CACHE);
+        }
+    }
+
+    /**
+     * A cache writer and template mock shared by all nodes, backed by one key-value store and a channel that
+     * delivers every message to every node
+     */
+    private static final class FakeRedis {
+
+        final Map<String, byte[]> values = new ConcurrentHashMap<>();
+        final AtomicInteger reads = new AtomicInteger();
+        final List<CacheInvalidationChannel> subscribers = new CopyOnWriteArrayList<>();
+        final List<Message> published = new CopyOnWriteArrayList<>();
+        final RedisCacheWriter cacheWriter = mock(RedisCacheWriter.class);
+        final StringRedisTemplate template = mock(StringRedisTemplate.class);
+
+        FakeRedis() {
+            when(cacheWriter.get(anyString(), any(byte[].class)))
+                .thenAnswer(invocation -> read(invocation.getArgument(1)));
+            when(cacheWriter.get(anyString(), any(byte[].class), any()))
+                .thenAnswer(invocation -> read(invocation.getArgument(1)));
+            doAnswer(invocation -> values.put(key(invocation.getArgument(1)), invocation.getArgument(2)))
+                .when(cacheWriter).put(anyString(), any(byte[].class), any(byte[].class), any());
+            when(cacheWriter.putIfAbsent(anyString(), any(byte[].class), any(byte[].class), any()))
+                .thenAnswer(invocation -> values.putIfAbsent(key(invocation.getArgument(1)),
+                    invocation.getArgument(2)));
+            doAnswer(invocation -> values.remove(key(invocation.getArgument(1))))
+                .when(cacheWriter).remove(anyString(), any(byte[].class));
+            doAnswer(invocation -> values.keySet().removeIf(key -> key.startsWith(invocation.getArgument(0) + "::")))
+                .when(cacheWriter).clean(anyString(), any(byte[].class));
+            when(template.convertAndSend(anyString(), any())).thenAnswer(invocation -> {
+                String channel = invocation.getArgument(0);
+                String message = invocation.getArgument(1);
+                Message delivered = new DefaultMessage(channel.getBytes(StandardCharsets.UTF_8),
+                    message.getBytes(StandardCharsets.UTF_8));
+                published.add(delivered);
+                subscribers.forEach(subscriber -> subscriber.onMessage(delivered, null));
+                return (long) subscribers.size();
+            });
+        }
+
+        private byte[] read(byte[] rawKey) {
+            reads.incrementAndGet();
+            return values.get(key(rawKey));
+        }
+
+        private static String key(byte[] rawKey) {
+            return new String(rawKey, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mercor.assignment.scd.common.errorhandling.interceptor;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
+import com.mercor.assignment.scd.common.errorhandling.metrics.GrpcErrorMetrics;
+import io.grpc.Attributes;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcExceptionInterceptorTest {
+
+    private static final Metadata.Key<String> ERROR_CODE_KEY =
+        Metadata.Key.of("error-code", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GrpcExceptionInterceptor interceptor = new GrpcExceptionInterceptor(new GrpcErrorMetrics(meterRegistry));
+
+    @Test
+    void onHalfClose_shouldCloseStaleUpdateWithAborted() {
+        FakeCall call = new FakeCall();
+
+        halfClose(call, VersionConflictException.forVersion("job_a", 2, 3));
+
+        assertEquals(Status.Code.ABORTED, call.status.getCode());
+        assertEquals("Entity with ID 'job_a' is at version 3, not the expected version 2", call.status.getDescription());
+        assertEquals("VERSION_CONFLICT", call.trailers.get(ERROR_CODE_KEY));
+        assertEquals(1, meterRegistry.get("grpc.server.errors")
+            .tags("status", "ABORTED", "error_code", "VERSION_CONFLICT").counter().count());
+    }
+
+    @Test
+    void onHalfClose_shouldCloseMissingEntityWithNotFound() {
+        FakeCall call = new FakeCall();
+
+        halfClose(call, new EntityNotFoundException("Entity with ID job_a not found"));
+
+        assertEquals(Status.Code.NOT_FOUND, call.status.getCode());
+    }
+
+    private void halfClose(FakeCall call, RuntimeException thrownByService) {
+        ServerCall.Listener<String> listener = interceptor.interceptCall(call, new Metadata(),
+            (serverCall, headers) -> new ServerCall.Listener<>() {
+                @Override
+                public void onHalfClose() {
+                    throw thrownByService;
+                }
+            });
+        listener.onHalfClose();
+    }
+
+    /**
+     * Records how the interceptor closes the call
+     */
+    private static final class FakeCall extends ServerCall<String, String> {
+
+        private Status status;
+        private Metadata trailers;
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            this.status = status;
+            this.trailers = trailers;
+        }
+
+        @Override
+        public MethodDescriptor<String, String> getMethodDescriptor() {
+            MethodDescriptor.Marshaller<String> marshaller = new MethodDescriptor.Marshaller<>() {
+                @Override
+                public InputStream stream(String value) {
+                    return new ByteArrayInputStream(value.getBytes());
+                }
+
+                @Override
+                public String parse(InputStream stream) {
+                    return "";
+                }
+            };
+            return MethodDescriptor.<String, String>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName("scd.SCDService", "Update"))
+                .setRequestMarshaller(marshaller)
+                .setResponseMarshaller(marshaller)
+                .build();
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(String message) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return Attributes.EMPTY;
+        }
+    }
+}
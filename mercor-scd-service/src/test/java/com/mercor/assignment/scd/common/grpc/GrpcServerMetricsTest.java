@@ -0,0 +1,111 @@
+package com.mercor.assignment.scd.common.grpc;
+
+import io.grpc.Attributes;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrpcServerMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GrpcServerMetrics metrics = new GrpcServerMetrics(meterRegistry, new long[]{10, 100});
+
+    @Test
+    void streamClosed_shouldRecordLatencyAndSizesByStatus() {
+        ServerStreamTracer tracer = start(method(MethodDescriptor.MethodType.UNARY));
+        tracer.inboundMessage(0);
+        tracer.inboundUncompressedSize(40);
+        tracer.outboundMessage(0);
+        tracer.outboundUncompressedSize(250);
+        tracer.streamClosed(Status.OK);
+
+        assertEquals(1, meterRegistry.get("grpc.server.duration")
+            .tags("service", "test.Service", "method", "Call", "status", "OK").timer().count());
+        assertEquals(40, meterRegistry.get("grpc.server.request.size").tag("status", "OK").summary().totalAmount());
+        assertEquals(250, meterRegistry.get("grpc.server.response.size").tag("status", "OK").summary().totalAmount());
+        assertNull(meterRegistry.find("grpc.server.messages.sent").counter());
+    }
+
+    @Test
+    void streamClosed_shouldCountMessagesOfStreamingCalls() {
+        ServerStreamTracer tracer = start(method(MethodDescriptor.MethodType.SERVER_STREAMING));
+        tracer.inboundMessage(0);
+        for (int i = 0; i < 3; i++) {
+            tracer.outboundMessage(i);
+        }
+        tracer.streamClosed(Status.CANCELLED);
+
+        assertEquals(1, meterRegistry.get("grpc.server.messages.received").tag("status", "CANCELLED").counter().count());
+        assertEquals(3, meterRegistry.get("grpc.server.messages.sent").tag("status", "CANCELLED").counter().count());
+    }
+
+    @Test
+    void activeCalls_shouldFollowStartAndClose() {
+        ServerStreamTracer tracer = start(method(MethodDescriptor.MethodType.UNARY));
+
+        assertEquals(1, meterRegistry.get("grpc.server.calls.active").tag("method", "Call").gauge().value());
+
+        tracer.streamClosed(Status.OK);
+        tracer.streamClosed(Status.OK);
+
+        assertEquals(0, meterRegistry.get("grpc.server.calls.active").tag("method", "Call").gauge().value());
+        assertEquals(1, meterRegistry.get("grpc.server.duration").tag("method", "Call").timer().count());
+    }
+
+    @Test
+    void streamClosed_shouldGroupCallsThatNeverStartedUnderUnknown() {
+        ServerStreamTracer tracer = metrics.newServerStreamTracer("no.Such/Method", new Metadata());
+        tracer.streamClosed(Status.UNIMPLEMENTED);
+
+        assertEquals(1, meterRegistry.get("grpc.server.duration")
+            .tags("service", "unknown", "method", "unknown", "status", "UNIMPLEMENTED").timer().count());
+    }
+
+    private ServerStreamTracer start(MethodDescriptor<String, String> method) {
+        ServerStreamTracer tracer = metrics.newServerStreamTracer(method.getFullMethodName(), new Metadata());
+        tracer.serverCallStarted(new ServerStreamTracer.ServerCallInfo<>() {
+            @Override
+            public MethodDescriptor<String, String> getMethodDescriptor() {
+                return method;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+
+            @Override
+            public String getAuthority() {
+                return null;
+            }
+        });
+        return tracer;
+    }
+
+    private static MethodDescriptor<String, String> method(MethodDescriptor.MethodType type) {
+        MethodDescriptor.Marshaller<String> marshaller = new MethodDescriptor.Marshaller<>() {
+            @Override
+            public InputStream stream(String value) {
+                return new ByteArrayInputStream(value.getBytes());
+            }
+
+            @Override
+            public String parse(InputStream stream) {
+                return "";
+            }
+        };
+        return MethodDescriptor.<String, String>newBuilder()
+            .setType(type)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Service", "Call"))
+            .setRequestMarshaller(marshaller)
+            .setResponseMarshaller(marshaller)
+            .build();
+    }
+}
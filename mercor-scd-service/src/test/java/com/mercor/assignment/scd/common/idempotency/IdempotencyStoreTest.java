@@ -0,0 +1,80 @@
+package com.mercor.assignment.scd.common.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs against the local tier only: Redis is unreachable, which the store must tolerate
+ */
+class IdempotencyStoreTest {
+
+    private static final String KEY = "scd.SCDService/Update|retry-1";
+
+    private final RedisConnectionFactory redis = mock(RedisConnectionFactory.class, invocation -> {
+        throw new RedisConnectionFailureException("Redis is down");
+    });
+    private final IdempotencyStore store = new IdempotencyStore(redis, 60_000, 1_000, 100);
+
+    @Test
+    void claim_shouldAcquireUnknownKey() {
+        IdempotencyStore.Claim claim = store.claim(KEY, fingerprint("request"));
+
+        assertEquals(IdempotencyStore.Outcome.ACQUIRED, claim.outcome());
+        verify(redis).getConnection();
+    }
+
+    @Test
+    void claim_shouldReportRetryOfRunningCallAsInProgress() {
+        store.claim(KEY, fingerprint("request"));
+
+        assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, store.claim(KEY, fingerprint("request")).outcome());
+    }
+
+    @Test
+    void claim_shouldReplayCompletedResponse() {
+        store.claim(KEY, fingerprint("request"));
+        store.complete(KEY, fingerprint("request"), bytes("response"));
+
+        IdempotencyStore.Claim claim = store.claim(KEY, fingerprint("request"));
+
+        assertEquals(IdempotencyStore.Outcome.REPLAY, claim.outcome());
+        assertArrayEquals(bytes("response"), claim.response());
+    }
+
+    @Test
+    void claim_shouldRejectKeyReusedForDifferentRequest() {
+        store.claim(KEY, fingerprint("request"));
+        store.complete(KEY, fingerprint("request"), bytes("response"));
+
+        assertEquals(IdempotencyStore.Outcome.CONFLICT, store.claim(KEY, fingerprint("other request")).outcome());
+    }
+
+    @Test
+    void release_shouldLetRetryRunAgain() {
+        store.claim(KEY, fingerprint("request"));
+        store.release(KEY);
+
+        assertEquals(IdempotencyStore.Outcome.ACQUIRED, store.claim(KEY, fingerprint("request")).outcome());
+    }
+
+    @Test
+    void fingerprint_shouldBeStableSha256() {
+        assertArrayEquals(fingerprint("request"), fingerprint("request"));
+        assertEquals(32, fingerprint("request").length);
+        assertFalse(Arrays.equals(fingerprint("request"), fingerprint("other request")));
+    }
+
+    private static byte[] fingerprint(String request) {
+        return IdempotencyStore.fingerprint(bytes(request));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
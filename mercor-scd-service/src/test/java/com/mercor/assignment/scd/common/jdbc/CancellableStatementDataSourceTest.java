@@ -0,0 +1,183 @@
+package com.mercor.assignment.scd.common.jdbc;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CancellableStatementDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final CountDownLatch executing = new CountDownLatch(1);
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final AtomicReference<Thread> cancelledBy = new AtomicReference<>();
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    private CancellableStatementDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(target.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("SELECT 1")).thenReturn(statement);
+        dataSource = new CancellableStatementDataSource(target, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_shouldLeaveStatementsOutsideCallsAlone() throws Exception {
+        executeQuery();
+
+        verify(statement).executeQuery();
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    void execute_shouldUseRemainingDeadlineAsQueryTimeout() throws Exception {
+        Context.CancellableContext call = Context.current().withDeadlineAfter(5, TimeUnit.SECONDS, scheduler);
+        try {
+            call.call(() -> {
+                executeQuery();
+                return null;
+            });
+        } finally {
+            call.cancel(null);
+        }
+
+        // The statement's own timeout (0, none) is restored once it has run
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).setQueryTimeout(5);
+        inOrder.verify(statement).executeQuery();
+        inOrder.verify(statement).setQueryTimeout(0);
+    }
+
+    @Test
+    void execute_shouldRejectStatementsAfterDeadline() throws Exception {
+        Context.CancellableContext call = Context.current().withDeadline(Deadline.after(-1, TimeUnit.SECONDS), scheduler);
+
+        assertThrows(SQLTimeoutException.class, () -> call.call(() -> {
+            executeQuery();
+            return null;
+        }));
+        verify(statement, never()).executeQuery();
+        assertEquals(1, meterRegistry.counter("scd.jdbc.statements.expired").count());
+    }
+
+    @Test
+    void execute_shouldCancelRunningStatementWhenCallIsCancelled() throws Exception {
+        blockUntilCancelled();
+        Context.CancellableContext call = Context.current().withCancellation();
+
+        Future<Object> running = executor.submit(() -> call.call(() -> {
+            executeQuery();
+            return null;
+        }));
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        call.cancel(null);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, e.getCause());
+        awaitCancelledCount(1);
+    }
+
+    @Test
+    void execute_shouldCancelOffTheThreadThatExpiresTheDeadline() throws Exception {
+        blockUntilCancelled();
+        Context.CancellableContext call = Context.current().withDeadlineAfter(200, TimeUnit.MILLISECONDS, scheduler);
+        Thread timer = scheduler.submit(Thread::currentThread).get();
+
+        Future<Object> running = executor.submit(() -> call.call(() -> {
+            executeQuery();
+            return null;
+        }));
+
+        assertThrows(ExecutionException.class, () -> running.get(5, TimeUnit.SECONDS));
+        assertNotNull(cancelledBy.get());
+        assertNotSame(timer, cancelledBy.get());
+        assertTrue(cancelledBy.get().isVirtual());
+        awaitCancelledCount(1);
+    }
+
+    @Test
+    void execute_shouldNotCancelStatementThatAlreadyFinished() throws Exception {
+        Context.CancellableContext call = Context.current().withCancellation();
+        call.call(() -> {
+            executeQuery();
+            return null;
+        });
+
+        call.cancel(null);
+
+        Thread.sleep(50);
+        verify(statement, never()).cancel();
+        assertEquals(0, meterRegistry.counter("scd.jdbc.statements.cancelled").count());
+    }
+
+    /**
+     * Makes executeQuery block until cancel() is called, then fail the way PostgreSQL reports a cancelled query
+     */
+    private void blockUntilCancelled() throws SQLException {
+        when(statement.executeQuery()).thenAnswer(invocation -> {
+            executing.countDown();
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+            throw new SQLException("canceling statement due to user request", "57014");
+        });
+        doAnswer(invocation -> {
+            cancelledBy.set(Thread.currentThread());
+            cancelled.countDown();
+            return null;
+        }).when(statement).cancel();
+    }
+
+    private void awaitCancelledCount(double expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("scd.jdbc.statements.cancelled").count() < expected) {
+            assertTrue(System.nanoTime() < deadline, "statement was not cancelled");
+            Thread.sleep(1);
+        }
+    }
+
+    private void executeQuery() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+            PreparedStatement prepared = connection.prepareStatement("SELECT 1")) {
+            prepared.executeQuery();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mercor.assignment.scd.common.resilience.concurrency;
+
+import com.mercor.assignment.scd.common.resilience.concurrency.AdaptiveConcurrencyLimiter.Priority;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void tryAcquire_shouldShedReadsBeforeWrites() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 200, 0.8, 1.5, () -> 0);
+
+        assertEquals(8, acquireAll(limiter, Priority.READ));
+        assertEquals(2, acquireAll(limiter, Priority.WRITE));
+        assertEquals(10, limiter.getInFlight());
+    }
+
+    @Test
+    void onSuccess_shouldGrowLimitWhileLatencyIsSteady() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 200, 0.8, 1.5, () -> 0);
+
+        runAtLimit(limiter, FAST, 50);
+
+        assertTrue(limiter.getLimit() > 10, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void onSuccess_shouldShrinkLimitWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 0.8, 1.5, () -> 0);
+        runAtLimit(limiter, FAST, 20);
+        int steadyLimit = limiter.getLimit();
+
+        runAtLimit(limiter, SLOW, 20);
+
+        assertTrue(limiter.getLimit() < steadyLimit,
+            "limit " + limiter.getLimit() + " did not drop below " + steadyLimit);
+    }
+
+    @Test
+    void onSuccess_shouldIgnoreLatencyFarBelowLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 0.8, 1.5, () -> 0);
+
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire(Priority.WRITE));
+            limiter.onSuccess(i < 25 ? FAST : SLOW);
+        }
+
+        assertEquals(20, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void onSuccess_shouldBackOffWhileConnectionsArePending() {
+        AtomicInteger pending = new AtomicInteger(3);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 200, 0.8, 1.5, pending::get);
+
+        // Even a lone fast call shrinks the limit while threads queue for the pool
+        assertTrue(limiter.tryAcquire(Priority.READ));
+        limiter.onSuccess(FAST);
+        assertTrue(limiter.getLimit() < 20, "limit was " + limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(Priority.WRITE));
+            limiter.onSuccess(FAST);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void onSuccess_shouldNotGrowBeyondMaxLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 12, 0.8, 1.5, () -> 0);
+
+        runAtLimit(limiter, FAST, 200);
+
+        assertEquals(12, limiter.getLimit());
+    }
+
+    @Test
+    void onIgnore_shouldReleaseWithoutChangingLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 200, 0.8, 1.5, () -> 0);
+        acquireAll(limiter, Priority.WRITE);
+
+        limiter.onIgnore();
+
+        assertEquals(9, limiter.getInFlight());
+        assertEquals(10, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(Priority.WRITE));
+    }
+
+    @Test
+    void constructor_shouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(10, 0, 200, 0.8, 1.5, () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(10, 20, 10, 0.8, 1.5, () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(10, 4, 200, 1.5, 1.5, () -> 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter(10, 4, 200, 0.8, 0.5, () -> 0));
+    }
+
+    /**
+     * Keeps the limiter full, completing one call at a time with the given latency
+     */
+    private static void runAtLimit(AdaptiveConcurrencyLimiter limiter, long rttNanos, int samples) {
+        acquireAll(limiter, Priority.WRITE);
+        for (int i = 0; i < samples; i++) {
+            limiter.onSuccess(rttNanos);
+            acquireAll(limiter, Priority.WRITE);
+        }
+    }
+
+    private static int acquireAll(AdaptiveConcurrencyLimiter limiter, Priority priority) {
+        int acquired = 0;
+        while (limiter.tryAcquire(priority)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
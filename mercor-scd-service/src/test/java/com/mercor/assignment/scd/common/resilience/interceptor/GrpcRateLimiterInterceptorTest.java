@@ -0,0 +1,92 @@
+package com.mercor.assignment.scd.common.resilience.interceptor;
+
+import io.grpc.Attributes;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.InetSocketAddress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * One call per caller per minute, so the second call of the same caller is rejected
+ */
+@ExtendWith(MockitoExtension.class)
+class GrpcRateLimiterInterceptorTest {
+
+    private static final Metadata.Key<String> CLIENT_ID =
+        Metadata.Key.of("scd-client-id", Metadata.ASCII_STRING_MARSHALLER);
+    private static final ServerCall.Listener<Object> STARTED = new ServerCall.Listener<>() {};
+
+    @Mock
+    private MethodDescriptor.Marshaller<Object> marshaller;
+
+    @Mock
+    private ServerCallHandler<Object, Object> next;
+
+    private MethodDescriptor<Object, Object> query;
+
+    @BeforeEach
+    void setUp() {
+        query = MethodDescriptor.newBuilder(marshaller, marshaller)
+            .setType(MethodDescriptor.MethodType.UNARY)
+            .setFullMethodName("scd.SCDService/Query")
+            .build();
+        when(next.startCall(any(), any())).thenReturn(STARTED);
+    }
+
+    @Test
+    void interceptCall_shouldNotLetOtherPeersUseUpAClientIdsQuota() {
+        GrpcRateLimiterInterceptor interceptor = interceptor("scd-client-id");
+
+        assertTrue(admitted(interceptor, "10.0.0.1", "tenant_a"));
+        assertTrue(admitted(interceptor, "10.0.0.2", "tenant_a"));
+        assertFalse(admitted(interceptor, "10.0.0.1", "tenant_a"));
+    }
+
+    @Test
+    void interceptCall_shouldSplitPeerQuotaByClientId() {
+        GrpcRateLimiterInterceptor interceptor = interceptor("scd-client-id");
+
+        assertTrue(admitted(interceptor, "10.0.0.1", "tenant_a"));
+        assertTrue(admitted(interceptor, "10.0.0.1", "tenant_b"));
+        assertTrue(admitted(interceptor, "10.0.0.1", null));
+        assertFalse(admitted(interceptor, "10.0.0.1", null));
+    }
+
+    @Test
+    void interceptCall_shouldLimitPerPeerOnlyWithoutCallerHeader() {
+        GrpcRateLimiterInterceptor interceptor = interceptor("");
+
+        assertTrue(admitted(interceptor, "10.0.0.1", "tenant_a"));
+        assertFalse(admitted(interceptor, "10.0.0.1", "tenant_b"));
+    }
+
+    private static GrpcRateLimiterInterceptor interceptor(String callerHeader) {
+        return new GrpcRateLimiterInterceptor(callerHeader, 60_000, 1, 1_000, 1, 1, 1, 1, 1, 1,
+            new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean admitted(GrpcRateLimiterInterceptor interceptor, String peer, String clientId) {
+        ServerCall<Object, Object> call = mock(ServerCall.class);
+        when(call.getMethodDescriptor()).thenReturn(query);
+        when(call.getAttributes()).thenReturn(Attributes.newBuilder()
+            .set(Grpc.TRANSPORT_ATTR_REMOTE_ADDR, new InetSocketAddress(peer, 50051))
+            .build());
+        Metadata headers = new Metadata();
+        if (clientId != null) {
+            headers.put(CLIENT_ID, clientId);
+        }
+        return interceptor.interceptCall(call, headers, next) == STARTED;
+    }
+}
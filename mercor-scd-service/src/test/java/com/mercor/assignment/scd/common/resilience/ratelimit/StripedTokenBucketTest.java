@@ -0,0 +1,107 @@
+package com.mercor.assignment.scd.common.resilience.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedTokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 1_000 * SECOND;
+
+    @Test
+    void tryAcquire_shouldAdmitBurstThenReject() {
+        StripedTokenBucket bucket = new StripedTokenBucket(8, Duration.ofSeconds(1), 4, START);
+
+        assertEquals(8, acquireAll(bucket, START));
+        assertFalse(bucket.tryAcquire(START));
+    }
+
+    @Test
+    void tryAcquire_shouldRefillAtConfiguredRate() {
+        StripedTokenBucket bucket = new StripedTokenBucket(8, Duration.ofSeconds(1), 4, START);
+        acquireAll(bucket, START);
+
+        // Half a period earns back half of the tokens
+        assertEquals(4, acquireAll(bucket, START + SECOND / 2));
+        // Idle for longer than a period, the bucket is full but no fuller
+        assertEquals(8, acquireAll(bucket, START + 10 * SECOND));
+    }
+
+    @Test
+    void constructor_shouldRoundStripesToPowerOfTwoWithinPermits() {
+        assertEquals(4, new StripedTokenBucket(100, Duration.ofSeconds(1), 6, START).getStripes());
+        assertEquals(2, new StripedTokenBucket(3, Duration.ofSeconds(1), 8, START).getStripes());
+        assertEquals(1, new StripedTokenBucket(1, Duration.ofSeconds(1), 8, START).getStripes());
+    }
+
+    @Test
+    void constructor_shouldRejectNonPositiveLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(0, Duration.ofSeconds(1), 4, START));
+        assertThrows(IllegalArgumentException.class, () -> new StripedTokenBucket(10, Duration.ZERO, 4, START));
+    }
+
+    @Test
+    void tryAcquire_shouldNeverOverAdmitUnderContention() throws Exception {
+        StripedTokenBucket bucket = new StripedTokenBucket(1_000, Duration.ofSeconds(1), 8, START);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(() -> {
+                    startSignal.await();
+                    int admitted = 0;
+                    for (int i = 0; i < 500; i++) {
+                        if (bucket.tryAcquire(START)) {
+                            admitted++;
+                        }
+                    }
+                    return admitted;
+                }));
+            }
+            startSignal.countDown();
+
+            int admitted = 0;
+            for (Future<Integer> result : results) {
+                admitted += result.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(1_000, admitted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void callerQuota_shouldLimitCallersIndependently() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CallerQuota quota = new CallerQuota("jobService", 2, Duration.ofMinutes(1), 4, 100, meterRegistry);
+
+        assertTrue(quota.tryAcquire("noisy"));
+        assertTrue(quota.tryAcquire("noisy"));
+        assertFalse(quota.tryAcquire("noisy"));
+        assertTrue(quota.tryAcquire("quiet"));
+
+        assertEquals(3, meterRegistry.get("grpc.server.rate_limit.calls")
+            .tags("quota", "jobService", "result", "permitted").counter().count());
+        assertEquals(1, meterRegistry.get("grpc.server.rate_limit.calls")
+            .tags("quota", "jobService", "result", "rejected").counter().count());
+    }
+
+    private static int acquireAll(StripedTokenBucket bucket, long now) {
+        int acquired = 0;
+        while (bucket.tryAcquire(now)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,269 @@
+package com.mercor.assignment.scd.domain.core.changefeed;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import com.mercor.assignment.scd.common.grpc.PayloadFormat;
+import com.mercor.assignment.scd.domain.core.WatchEvent;
+import com.mercor.assignment.scd.domain.core.WatchRequest;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void publishAfterCommit_shouldDeliverMatchingVersionsOnly() throws Exception {
+        ChangeFeed feed = new ChangeFeed(100, 10, 10, meterRegistry);
+        Job ownJob = job("job_a", 2, "comp_a");
+        feed.registerOwnerResolver(EntityType.JOBS, (Job job) -> job);
+        feed.registerOwnerResolver(EntityType.TIMELOG, (Timelog timelog) -> ownJob);
+        FakeObserver observer = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder().addEntityTypes("JOBS").setCompanyId("comp_a")), "",
+            PayloadFormat.TYPED, observer);
+
+        feed.publishAfterCommit(EntityType.JOBS, ownJob);
+        feed.publishAfterCommit(EntityType.JOBS, job("job_b", 1, "comp_b"));
+        feed.publishAfterCommit(EntityType.TIMELOG, Timelog.builder().id("tl_a").version(1).uid("tl_uid_1").build());
+        feed.publishAfterCommit(EntityType.JOBS, job("job_a", 3, "comp_a"));
+
+        List<WatchEvent> events = observer.awaitEvents(2);
+        assertEquals("job_a", events.get(0).getEntity().getId());
+        assertEquals(2, events.get(0).getEntity().getVersion());
+        assertEquals("comp_a", events.get(0).getEntity().getJob().getCompanyId());
+        assertEquals(3, events.get(1).getEntity().getVersion());
+        assertEquals(4, meterRegistry.get("scd.watch.events").tag("origin", "local").counter().count());
+    }
+
+    @Test
+    void publishAfterCommit_shouldSendPayloadInWatchersFormat() throws Exception {
+        ChangeFeed feed = new ChangeFeed(100, 10, 10, meterRegistry);
+        FakeObserver typed = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, typed);
+        FakeObserver json = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.JSON, json);
+
+        feed.publishAfterCommit(EntityType.JOBS, job("job_a", 1, "comp_a"));
+
+        WatchEvent typedEvent = typed.awaitEvents(1).get(0);
+        assertTrue(typedEvent.getEntity().hasJob());
+        assertTrue(typedEvent.getEntity().getData().isEmpty());
+        WatchEvent jsonEvent = json.awaitEvents(1).get(0);
+        assertFalse(jsonEvent.getEntity().hasJob());
+        assertTrue(jsonEvent.getEntity().getData().toString(StandardCharsets.UTF_8).contains("comp_a"));
+        assertEquals("job_a", jsonEvent.getEntity().getId());
+    }
+
+    @Test
+    void publishAfterCommit_shouldLookUpJobsOnlyForOwnerFilters() throws Exception {
+        ChangeFeed feed = new ChangeFeed(100, 10, 10, meterRegistry);
+        AtomicInteger lookups = new AtomicInteger();
+        feed.registerOwnerResolver(EntityType.TIMELOG, (Timelog timelog) -> {
+            lookups.incrementAndGet();
+            return job("job_a", 1, "comp_a");
+        });
+        FakeObserver unfiltered = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, unfiltered);
+
+        feed.publishAfterCommit(EntityType.TIMELOG, Timelog.builder().id("tl_a").version(1).uid("tl_uid_1").build());
+        unfiltered.awaitEvents(1);
+        assertEquals(0, lookups.get());
+
+        FakeObserver filtered = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder().setCompanyId("comp_a")), "", PayloadFormat.TYPED, filtered);
+        feed.publishAfterCommit(EntityType.TIMELOG, Timelog.builder().id("tl_a").version(2).uid("tl_uid_2").build());
+
+        assertEquals(2, filtered.awaitEvents(1).get(0).getEntity().getVersion());
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void subscribe_shouldReplayEventsAfterResumeToken() throws Exception {
+        ChangeFeed feed = new ChangeFeed(100, 10, 10, meterRegistry);
+        FakeObserver first = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, first);
+        for (int version = 1; version <= 3; version++) {
+            Job job = job("job_a", version, "comp_a");
+            feed.publishAfterCommit(EntityType.JOBS, job);
+        }
+        String afterFirst = first.awaitEvents(3).get(0).getResumeToken();
+
+        FakeObserver resumed = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), afterFirst, PayloadFormat.TYPED, resumed);
+
+        List<WatchEvent> replayed = resumed.awaitEvents(2);
+        assertEquals(2, replayed.get(0).getEntity().getVersion());
+        assertEquals(3, replayed.get(1).getEntity().getVersion());
+    }
+
+    @Test
+    void subscribe_shouldRejectTokenOutsideReplayBuffer() throws Exception {
+        ChangeFeed feed = new ChangeFeed(2, 10, 10, meterRegistry);
+        FakeObserver observer = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, observer);
+        for (int version = 1; version <= 4; version++) {
+            Job job = job("job_a", version, "comp_a");
+            feed.publishAfterCommit(EntityType.JOBS, job);
+        }
+        String evicted = observer.awaitEvents(4).get(0).getResumeToken();
+        String otherFeed = new ResumeToken(feedIdOf(evicted) + 1, 4).encode();
+
+        StatusRuntimeException expired = assertThrows(StatusRuntimeException.class, () -> feed.subscribe(
+            filter(WatchRequest.newBuilder()), evicted, PayloadFormat.TYPED, new FakeObserver()));
+        assertEquals(Status.Code.OUT_OF_RANGE, expired.getStatus().getCode());
+        StatusRuntimeException foreign = assertThrows(StatusRuntimeException.class, () -> feed.subscribe(
+            filter(WatchRequest.newBuilder()), otherFeed, PayloadFormat.TYPED, new FakeObserver()));
+        assertEquals(Status.Code.OUT_OF_RANGE, foreign.getStatus().getCode());
+        assertThrows(ValidationException.class, () -> feed.subscribe(
+            filter(WatchRequest.newBuilder()), "not-a-token", PayloadFormat.TYPED, new FakeObserver()));
+    }
+
+    @Test
+    void publishAfterCommit_shouldEndWatcherThatFallsBehind() throws Exception {
+        ChangeFeed feed = new ChangeFeed(100, 2, 10, meterRegistry);
+        FakeObserver stalled = new FakeObserver();
+        stalled.ready = false;
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, stalled);
+
+        for (int version = 1; version <= 3; version++) {
+            Job job = job("job_a", version, "comp_a");
+            feed.publishAfterCommit(EntityType.JOBS, job);
+        }
+
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, stalled.awaitError().getCode());
+        assertTrue(stalled.events.isEmpty());
+        assertEquals(1, meterRegistry.get("scd.watch.overflows").counter().count());
+        assertEquals(0, meterRegistry.get("scd.watch.subscribers").gauge().value());
+    }
+
+    @Test
+    void subscribe_shouldLimitWatchersAndForgetCancelledOnes() {
+        ChangeFeed feed = new ChangeFeed(100, 10, 1, meterRegistry);
+        FakeObserver first = new FakeObserver();
+        feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, first);
+
+        StatusRuntimeException rejected = assertThrows(StatusRuntimeException.class,
+            () -> feed.subscribe(filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, new FakeObserver()));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, rejected.getStatus().getCode());
+
+        first.onCancelHandler.run();
+        assertDoesNotThrow(() -> feed.subscribe(
+            filter(WatchRequest.newBuilder()), "", PayloadFormat.TYPED, new FakeObserver()));
+    }
+
+    @Test
+    void watchFilter_shouldRejectUnknownEntityTypesAndIds() {
+        assertThrows(ValidationException.class, () -> filter(WatchRequest.newBuilder().addEntityTypes("invoices")));
+        assertThrows(ValidationException.class, () -> filter(WatchRequest.newBuilder().addIds("invoice_1")));
+    }
+
+    private static WatchFilter filter(WatchRequest.Builder request) {
+        return WatchFilter.of(request.build());
+    }
+
+    private static long feedIdOf(String token) {
+        return ResumeToken.decode(token).getFeedId();
+    }
+
+    private static Job job(String id, int version, String companyId) {
+        return Job.builder()
+            .id(id)
+            .version(version)
+            .uid(id + "_uid_" + version)
+            .status("active")
+            .companyId(companyId)
+            .build();
+    }
+
+    /**
+     * Records what the feed sends; the dispatcher runs on its own threads, so reads wait for it
+     */
+    private static final class FakeObserver extends ServerCallStreamObserver<WatchEvent> {
+
+        final List<WatchEvent> events = new ArrayList<>();
+        volatile boolean ready = true;
+        volatile Runnable onCancelHandler;
+        private Throwable error;
+
+        synchronized List<WatchEvent> awaitEvents(int count) throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (events.size() < count && System.nanoTime() < deadline) {
+                wait(50);
+            }
+            assertEquals(count, events.size());
+            return List.copyOf(events);
+        }
+
+        synchronized Status awaitError() throws InterruptedException {
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (error == null && System.nanoTime() < deadline) {
+                wait(50);
+            }
+            assertNotNull(error);
+            return Status.fromThrowable(error);
+        }
+
+        @Override
+        public synchronized void onNext(WatchEvent value) {
+            events.add(value);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onError(Throwable t) {
+            error = t;
+            notifyAll();
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            this.onCancelHandler = onCancelHandler;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
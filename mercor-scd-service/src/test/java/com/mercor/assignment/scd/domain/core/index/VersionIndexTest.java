@@ -0,0 +1,83 @@
+package com.mercor.assignment.scd.domain.core.index;
+
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeFeed;
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import com.mercor.assignment.scd.domain.core.index.VersionIndex.Stamp;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ChangeFeed changeFeed = new ChangeFeed(null, 100, 10, 10, meterRegistry);
+    private final VersionIndex index = new VersionIndex(changeFeed, 1_000, 60_000, meterRegistry);
+
+    @Test
+    void matches_shouldRequireEveryGivenCheck() {
+        Stamp stamp = new Stamp(3, "job_uid_3");
+
+        assertTrue(stamp.matches(3, ""));
+        assertTrue(stamp.matches(0, "job_uid_3"));
+        assertTrue(stamp.matches(3, "job_uid_3"));
+        assertFalse(stamp.matches(2, ""));
+        assertFalse(stamp.matches(3, "job_uid_2"));
+        // An unconditional read never matches
+        assertFalse(stamp.matches(0, ""));
+    }
+
+    @Test
+    void record_shouldNotMoveBackwards() {
+        index.record(entity("jobs", "job_a", 3));
+        index.record(entity("jobs", "job_a", 2));
+
+        assertEquals(new Stamp(3, "job_a_uid_3"), index.get(EntityType.JOBS, "job_a"));
+    }
+
+    @Test
+    void get_shouldKeepEntityTypesApart() {
+        index.record(entity("jobs", "shared_id", 1));
+
+        assertNotNull(index.get(EntityType.JOBS, "shared_id"));
+        assertNull(index.get(EntityType.TIMELOG, "shared_id"));
+        assertEquals(1, meterRegistry.get("scd.version_index.lookups").tag("result", "hit").counter().count());
+        assertEquals(1, meterRegistry.get("scd.version_index.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void changeFeed_shouldAdvanceKnownVersion() throws InterruptedException {
+        index.record(entity("jobs", "job_a", 1));
+
+        Job job = Job.builder()
+            .id("job_a")
+            .version(2)
+            .uid("job_a_uid_2")
+            .status("active")
+            .companyId("comp_a")
+            .build();
+        changeFeed.publishAfterCommit(EntityType.JOBS, job);
+
+        // The feed's publisher thread advances the index shortly after the commit
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        Stamp latest = index.get(EntityType.JOBS, "job_a");
+        while (latest.version() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            latest = index.get(EntityType.JOBS, "job_a");
+        }
+        assertFalse(latest.matches(1, ""));
+        assertTrue(latest.matches(2, "job_a_uid_2"));
+    }
+
+    private static Entity entity(String type, String id, int version) {
+        return Entity.newBuilder()
+            .setType(type)
+            .setId(id)
+            .setVersion(version)
+            .setUid(id + "_uid_" + version)
+            .build();
+    }
+}
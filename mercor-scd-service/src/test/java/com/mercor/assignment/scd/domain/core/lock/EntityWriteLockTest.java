@@ -0,0 +1,29 @@
+package com.mercor.assignment.scd.domain.core.lock;
+
+import com.mercor.assignment.scd.domain.core.enums.EntityType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityWriteLockTest {
+
+    @Test
+    void advisoryKey_shouldBeStableAndSeparateEntityTypes() {
+        assertEquals(EntityWriteLock.advisoryKey(EntityType.JOBS, "job_a"),
+            EntityWriteLock.advisoryKey(EntityType.JOBS, "job_a"));
+        assertNotEquals(EntityWriteLock.advisoryKey(EntityType.JOBS, "job_a"),
+            EntityWriteLock.advisoryKey(EntityType.TIMELOG, "job_a"));
+        // String hash codes are part of the language specification, so every node computes this value
+        assertEquals(((long) "jobs".hashCode() << 32) | ("job_a".hashCode() & 0xFFFFFFFFL),
+            EntityWriteLock.advisoryKey(EntityType.JOBS, "job_a"));
+    }
+
+    @Test
+    void lock_shouldRequireTransaction() {
+        EntityWriteLock lock = new EntityWriteLock(16, false, 100, new SimpleMeterRegistry());
+
+        assertThrows(IllegalStateException.class, () -> lock.lock(EntityType.JOBS, List.of("job_a")));
+    }
+}
@@ -0,0 +1,134 @@
+package com.mercor.assignment.scd.domain.core.lock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLockTest {
+
+    private static final List<String> IDS = List.of("job_a", "job_b", "job_c", "job_d");
+
+    private final ExecutorService writers = Executors.newFixedThreadPool(16);
+
+    @AfterEach
+    void tearDown() {
+        writers.shutdownNow();
+    }
+
+    @Test
+    void lockAll_shouldSerializeWritersOfTheSameId() throws Exception {
+        StripedLock lock = new StripedLock(8);
+        // Plain arrays: any unserialized read-modify-write loses an update or repeats a version
+        int[] latestVersions = new int[IDS.size()];
+        Set<String> writtenVersions = ConcurrentHashMap.newKeySet();
+        int writesPerThread = 500;
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(writers.submit(() -> {
+                for (int i = 0; i < writesPerThread; i++) {
+                    int index = ThreadLocalRandom.current().nextInt(IDS.size());
+                    try (StripedLock.Held held = lock.lockAll(List.of(IDS.get(index)), 5, TimeUnit.SECONDS)) {
+                        int next = latestVersions[index] + 1;
+                        Thread.yield();
+                        latestVersions[index] = next;
+                        assertTrue(writtenVersions.add(IDS.get(index) + ":" + next), "version written twice");
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+
+        int total = 0;
+        for (int version : latestVersions) {
+            total += version;
+        }
+        assertEquals(16 * writesPerThread, total);
+        assertEquals(16 * writesPerThread, writtenVersions.size());
+    }
+
+    @Test
+    void lockAll_shouldNotDeadlockOnOverlappingIdSets() throws Exception {
+        StripedLock lock = new StripedLock(4);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(writers.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    // Every batch names the IDs in its own order
+                    List<String> batch = new ArrayList<>(IDS);
+                    Collections.shuffle(batch, ThreadLocalRandom.current());
+                    batch = batch.subList(0, 1 + ThreadLocalRandom.current().nextInt(IDS.size()));
+                    lock.lockAll(batch, 5, TimeUnit.SECONDS).close();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void lockAll_shouldTimeOutWithoutKeepingAnyStripe() throws Exception {
+        StripedLock lock = new StripedLock(64);
+        assertNotEquals(lock.stripeOf("job_a"), lock.stripeOf("job_b"));
+
+        try (StripedLock.Held held = lock.lockAll(List.of("job_b"), 1, TimeUnit.SECONDS)) {
+            Future<?> batch = writers.submit(() -> lock.lockAll(List.of("job_a", "job_b"), 50, TimeUnit.MILLISECONDS));
+            Exception failure = assertThrows(Exception.class, () -> batch.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, failure.getCause());
+
+            // The stripe of job_a was released when the batch gave up
+            assertTrue(lockableElsewhere(lock, "job_a"));
+        }
+    }
+
+    @Test
+    void lockAll_shouldBeReentrantForTheHoldingThread() throws Exception {
+        StripedLock lock = new StripedLock(16);
+
+        try (StripedLock.Held outer = lock.lockAll(List.of("job_a"), 1, TimeUnit.SECONDS);
+            StripedLock.Held inner = lock.lockAll(List.of("job_a", "job_a"), 0, TimeUnit.MILLISECONDS)) {
+            assertNotNull(inner);
+        }
+        // Both holds were released
+        assertTrue(lockableElsewhere(lock, "job_a"));
+    }
+
+    @Test
+    void constructor_shouldRoundStripesUpToPowerOfTwo() {
+        assertEquals(1, new StripedLock(1).getStripes());
+        assertEquals(1024, new StripedLock(1000).getStripes());
+        assertEquals(1024, new StripedLock(1024).getStripes());
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+    }
+
+    /**
+     * Whether another thread can lock the ID right away
+     */
+    private boolean lockableElsewhere(StripedLock lock, String id) throws Exception {
+        return writers.submit(() -> {
+            try (StripedLock.Held held = lock.lockAll(List.of(id), 0, TimeUnit.MILLISECONDS)) {
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,87 @@
+package com.mercor.assignment.scd.domain.core.mapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercor.assignment.scd.common.grpc.PayloadFormat;
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import io.grpc.Context;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityMapperTest {
+
+    private final EntityMapper mapper = EntityMapper.INSTANCE;
+
+    @Test
+    void mapJobToEntityProto_shouldUseTypedPayloadByDefault() {
+        Entity entity = mapper.mapJobToEntityProto(job());
+
+        assertEquals(Entity.PayloadCase.JOB, entity.getPayloadCase());
+        assertEquals("job_abc", entity.getId());
+        assertEquals(2, entity.getVersion());
+        assertEquals("active", entity.getJob().getStatus());
+        assertEquals(20.5, entity.getJob().getRate());
+        assertEquals("comp_abc", entity.getJob().getCompanyId());
+        assertEquals("", entity.getJob().getId());
+    }
+
+    @Test
+    void mapJobToEntityProto_shouldWriteJsonWhenRequested() throws Exception {
+        Entity entity = Context.current().withValue(PayloadFormat.CONTEXT_KEY, PayloadFormat.JSON)
+            .call(() -> mapper.mapJobToEntityProto(job()));
+
+        assertEquals(Entity.PayloadCase.DATA, entity.getPayloadCase());
+        JsonNode data = new ObjectMapper().readTree(entity.getData().toByteArray());
+        assertEquals("active", data.get("status").asText());
+        assertEquals(new BigDecimal("20.50"), data.get("rate").decimalValue());
+        assertEquals("comp_abc", data.get("companyId").asText());
+        assertTrue(data.get("contractorId").isNull());
+    }
+
+    @Test
+    void mapJobToEntityProto_shouldFillOnlyProjectedFields() throws Exception {
+        FieldProjection projection = FieldProjection.of(List.of("status"));
+
+        Entity typed = mapper.mapJobToEntityProto(job(), projection);
+        Entity json = Context.current().withValue(PayloadFormat.CONTEXT_KEY, PayloadFormat.JSON)
+            .call(() -> mapper.mapJobToEntityProto(job(), projection));
+
+        assertEquals("job_abc", typed.getId());
+        assertEquals("active", typed.getJob().getStatus());
+        assertEquals(0.0, typed.getJob().getRate());
+        assertEquals("", typed.getJob().getTitle());
+        assertEquals("{\"status\":\"active\"}", json.getData().toStringUtf8());
+    }
+
+    @Test
+    void mapTimelogToEntityProto_shouldSkipNullFields() {
+        Timelog timelog = Timelog.builder().id("tl_abc").version(1).uid("tl_uid").type("captured").build();
+
+        Entity entity = mapper.mapTimelogToEntityProto(timelog);
+
+        assertEquals(Entity.PayloadCase.TIMELOG, entity.getPayloadCase());
+        assertEquals("captured", entity.getTimelog().getType());
+        assertEquals(0L, entity.getTimelog().getDuration());
+    }
+
+    private Job job() {
+        return Job.builder()
+            .id("job_abc")
+            .version(2)
+            .uid("job_uid_2")
+            .createdAt(new Date(1700000000000L))
+            .updatedAt(new Date(1700000001000L))
+            .status("active")
+            .rate(new BigDecimal("20.50"))
+            .title("Software Engineer")
+            .companyId("comp_abc")
+            .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.mercor.assignment.scd.domain.core.mapper;
+
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionDeltaEncoderTest {
+
+    @Test
+    void encode_shouldSendFirstEntryInFullAndOnlyChangesAfter() {
+        VersionDeltaEncoder encoder = new VersionDeltaEncoder(FieldProjection.ALL);
+
+        Entity latest = encoder.encode(job(3, "inactive", "20.00", "ctr_abc"));
+        Entity previous = encoder.encode(job(2, "active", "20.00", "ctr_abc"));
+
+        assertEquals("inactive", latest.getJob().getStatus());
+        assertEquals(20.0, latest.getJob().getRate());
+        assertFalse(latest.hasChangedFields());
+
+        assertEquals(2, previous.getVersion());
+        assertEquals("job_abc_uid_2", previous.getUid());
+        assertEquals(List.of("status"), previous.getChangedFields().getPathsList());
+        assertEquals("active", previous.getJob().getStatus());
+        assertEquals(0.0, previous.getJob().getRate());
+        assertEquals("", previous.getJob().getCompanyId());
+    }
+
+    @Test
+    void encode_shouldNameFieldsThatBecameEmpty() {
+        VersionDeltaEncoder encoder = new VersionDeltaEncoder(FieldProjection.ALL);
+
+        encoder.encode(job(2, "active", "20.00", "ctr_abc"));
+        Entity cleared = encoder.encode(job(1, "active", "20.00", null));
+
+        assertEquals(List.of("contractor_id"), cleared.getChangedFields().getPathsList());
+        assertEquals("", cleared.getJob().getContractorId());
+    }
+
+    @Test
+    void encode_shouldIgnoreRateScale() {
+        VersionDeltaEncoder encoder = new VersionDeltaEncoder(FieldProjection.ALL);
+
+        encoder.encode(job(2, "active", "20.00", "ctr_abc"));
+        Entity unchanged = encoder.encode(job(1, "active", "20.0", "ctr_abc"));
+
+        assertTrue(unchanged.hasChangedFields());
+        assertEquals(0, unchanged.getChangedFields().getPathsCount());
+        assertEquals(1, unchanged.getVersion());
+    }
+
+    @Test
+    void encode_shouldOnlyCompareProjectedFields() {
+        VersionDeltaEncoder encoder = new VersionDeltaEncoder(FieldProjection.of(List.of("rate")));
+
+        encoder.encode(job(2, "inactive", "25.00", "ctr_abc"));
+        Entity entry = encoder.encode(job(1, "active", "20.00", "ctr_abc"));
+
+        assertEquals(List.of("rate"), entry.getChangedFields().getPathsList());
+        assertEquals(20.0, entry.getJob().getRate());
+        assertEquals("", entry.getJob().getStatus());
+    }
+
+    private static Job job(int version, String status, String rate, String contractorId) {
+        return Job.builder()
+            .id("job_abc")
+            .version(version)
+            .uid("job_abc_uid_" + version)
+            .status(status)
+            .rate(new BigDecimal(rate))
+            .companyId("comp_abc")
+            .contractorId(contractorId)
+            .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.mercor.assignment.scd.domain.core.model;
+
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.timelog.model.Timelog;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VersionComparatorTest {
+
+    @Test
+    void samePayload_shouldIgnoreVersionHeaderAndRateScale() {
+        Job latest = job(1, "active", "20.00", "ctr_abc");
+
+        assertTrue(VersionComparator.samePayload(latest, job(2, "active", "20.0", "ctr_abc")));
+        assertFalse(VersionComparator.samePayload(latest, job(2, "inactive", "20.00", "ctr_abc")));
+        assertFalse(VersionComparator.samePayload(latest, job(2, "active", "20.00", null)));
+    }
+
+    @Test
+    void changedAttributes_shouldListChangesInAttributeOrder() {
+        assertEquals(List.of("status", "rate", "contractorId"),
+            VersionComparator.changedAttributes(job(1, "active", "20.00", "ctr_abc"), job(2, "inactive", "25", null)));
+    }
+
+    @Test
+    void changedAttributes_shouldCompareTimelogsAndPaymentLineItems() {
+        Timelog timelog = Timelog.builder().id("tl_abc").version(1).duration(1000L).timeStart(0L).timeEnd(1000L)
+            .type("captured").jobUid("job_uid_1").build();
+        Timelog adjusted = timelog.cloneForNewVersion("tl_uid_2", 2, null);
+        adjusted.setTimeEnd(500L);
+        adjusted.setDuration(500L);
+        PaymentLineItem item = PaymentLineItem.builder().id("li_abc").version(1).jobUid("job_uid_1")
+            .timelogUid("tl_uid_1").amount(new BigDecimal("10.00")).status("not-paid").build();
+
+        assertEquals(List.of("duration", "timeEnd"), VersionComparator.changedAttributes(timelog, adjusted));
+        assertTrue(VersionComparator.samePayload(item, item.cloneForNewVersion("li_uid_2", 2, null)));
+    }
+
+    private static Job job(int version, String status, String rate, String contractorId) {
+        return Job.builder()
+            .id("job_abc")
+            .version(version)
+            .uid("job_abc_uid_" + version)
+            .status(status)
+            .rate(new BigDecimal(rate))
+            .companyId("comp_abc")
+            .contractorId(contractorId)
+            .build();
+    }
+}
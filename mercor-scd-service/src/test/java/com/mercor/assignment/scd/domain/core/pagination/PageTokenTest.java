@@ -0,0 +1,95 @@
+package com.mercor.assignment.scd.domain.core.pagination;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.ValidationException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.Base64;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTokenTest {
+
+    @Test
+    void encode_shouldRoundTrip() {
+        PageToken token = new PageToken("updatedAt", true, "1700000000000", "job_uid_abc");
+
+        PageToken decoded = PageToken.decode(token.encode());
+
+        assertEquals(token, decoded);
+    }
+
+    @Test
+    void encode_shouldRoundTripNullSortValue() {
+        PageToken token = new PageToken("title", false, null, "job_uid_abc");
+
+        PageToken decoded = PageToken.decode(token.encode());
+
+        assertNull(decoded.getSortValue());
+        assertEquals(token, decoded);
+        // The literal string "null" is a value like any other
+        assertEquals("null", PageToken.decode(new PageToken("title", false, "null", "uid").encode()).getSortValue());
+    }
+
+    @Test
+    void decode_shouldReadTokensOfThePreviousFormat() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeUTF("updatedAt");
+        out.writeBoolean(true);
+        out.writeUTF("1700000000000");
+        out.writeUTF("job_uid_abc");
+
+        String legacy = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+
+        assertEquals(new PageToken("updatedAt", true, "1700000000000", "job_uid_abc"), PageToken.decode(legacy));
+    }
+
+    @Test
+    void encode_shouldBeUrlSafe() {
+        String encoded = new PageToken("title", false, "a/b+c\nd", "job_uid_abc").encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals("a/b+c\nd", PageToken.decode(encoded).getSortValue());
+    }
+
+    @Test
+    void decode_shouldRejectMalformedToken() {
+        assertThrows(ValidationException.class, () -> PageToken.decode("not a token"));
+        assertThrows(ValidationException.class, () -> PageToken.decode("AAAA"));
+    }
+
+    @Test
+    void verifySort_shouldRejectDifferentSort() {
+        PageToken token = new PageToken("updatedAt", true, "1", "uid");
+
+        assertDoesNotThrow(() -> token.verifySort("updatedAt", true));
+        assertThrows(ValidationException.class, () -> token.verifySort("updatedAt", false));
+        assertThrows(ValidationException.class, () -> token.verifySort("rate", true));
+    }
+
+    @Test
+    void queryOptions_shouldApplyDefaultsAndBounds() {
+        QueryOptions defaults = QueryOptions.of(0, 0, "", "", "");
+        assertEquals(QueryOptions.DEFAULT_LIMIT, defaults.getLimit());
+        assertEquals(QueryOptions.DEFAULT_SORT_BY, defaults.getSortBy());
+        assertTrue(defaults.isDescending());
+        assertNull(defaults.getPageToken());
+
+        QueryOptions bounded = QueryOptions.of(QueryOptions.MAX_LIMIT + 1, 5, "rate", "ASC", "token");
+        assertEquals(QueryOptions.MAX_LIMIT, bounded.getLimit());
+        assertEquals(5, bounded.getOffset());
+        assertFalse(bounded.isDescending());
+
+        assertThrows(ValidationException.class, () -> QueryOptions.of(-1, 0, null, null, null));
+        assertThrows(ValidationException.class, () -> QueryOptions.of(10, 0, null, "sideways", null));
+    }
+
+    @Test
+    void queryOptions_shouldResolveSortByLikeFieldMaskPaths() {
+        assertEquals("updatedAt", QueryOptions.of(10, 0, "updated_at", "asc", null).getSortBy());
+        assertEquals("companyId", QueryOptions.forStream(0, 0, "company_id", null, null).getSortBy());
+        assertEquals("rate", QueryOptions.of(10, 0, " rate ", null, null).getSortBy());
+    }
+}
@@ -0,0 +1,33 @@
+package com.mercor.assignment.scd.domain.core.projection;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldProjectionTest {
+
+    @Test
+    void of_shouldReturnAllForEmptyMask() {
+        assertSame(FieldProjection.ALL, FieldProjection.of(List.of()));
+        assertTrue(FieldProjection.ALL.includes("rate"));
+    }
+
+    @Test
+    void of_shouldConvertSnakeCasePaths() {
+        FieldProjection projection = FieldProjection.of(List.of("company_id", "rate"));
+
+        assertFalse(projection.isAll());
+        assertTrue(projection.includes("companyId"));
+        assertTrue(projection.includes("rate"));
+        assertFalse(projection.includes("title"));
+    }
+
+    @Test
+    void of_shouldAlwaysIncludeHeader() {
+        FieldProjection projection = FieldProjection.of(List.of("status"));
+
+        assertEquals(Set.of("id", "version", "uid", "createdAt", "updatedAt", "status"), projection.getFields());
+    }
+}
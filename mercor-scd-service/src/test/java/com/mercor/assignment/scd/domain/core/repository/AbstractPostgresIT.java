@@ -0,0 +1,58 @@
+package com.mercor.assignment.scd.domain.core.repository;
+
+import com.mercor.assignment.scd.domain.core.changefeed.ChangeFeed;
+import com.mercor.assignment.scd.domain.core.lock.EntityWriteLock;
+import com.mercor.assignment.scd.domain.core.util.UidGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base for repository tests that run against PostgreSQL
+ * The schema is built by the Liquibase change-log, including the partial indexes created CONCURRENTLY, so the tests
+ * see the same constraints, native queries and advisory locks as production. Each test runs in a transaction that
+ * is rolled back. These are integration tests run by failsafe and need Docker.
+ */
+@Testcontainers
+@DataJpaTest(properties = {
+    "spring.datasource.driver-class-name=org.postgresql.Driver",
+    "spring.jpa.hibernate.ddl-auto=none",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.PostgreSQLDialect",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=2",
+    "spring.jpa.show-sql=false",
+    "spring.liquibase.enabled=true",
+    "spring.liquibase.change-log=classpath:db/changelog/db.changelog-master.xml"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(AbstractPostgresIT.RepositoryBeans.class)
+public abstract class AbstractPostgresIT {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    /**
+     * The beans the repository fragments need besides JPA, without Redis
+     */
+    @TestConfiguration(proxyBeanMethods = false)
+    @Import({UidGenerator.class, EntityWriteLock.class})
+    static class RepositoryBeans {
+
+        @Bean
+        SimpleMeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ChangeFeed changeFeed(SimpleMeterRegistry meterRegistry) {
+            return new ChangeFeed(null, 100, 10, 10, meterRegistry);
+        }
+    }
+}
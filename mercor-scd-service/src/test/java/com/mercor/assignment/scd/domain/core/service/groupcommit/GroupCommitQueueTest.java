@@ -0,0 +1,236 @@
+package com.mercor.assignment.scd.domain.core.service.groupcommit;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.EntityNotFoundException;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import io.grpc.Context;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor();
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch firstBatchReleased = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        firstBatchReleased.countDown();
+        callers.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    @Test
+    void write_shouldCommitConcurrentWritesTogether() throws Exception {
+        try (GroupCommitQueue<Job> queue = newQueue(10, Duration.ofMillis(500), 100, this::writeAll)) {
+            List<Future<Job>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(submit(queue, "job_" + i));
+            }
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals("job_" + i, results.get(i).get(5, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(1, batches.size());
+            assertEquals(5, batches.get(0).size());
+            assertEquals(5, meterRegistry.get("scd.group_commit.batch_size").summary().totalAmount());
+        }
+    }
+
+    @Test
+    void write_shouldNeverPutSameIdTwiceInOneBatch() throws Exception {
+        try (GroupCommitQueue<Job> queue = newQueue(10, Duration.ZERO, 100, this::writeAllAfterFirstBatch)) {
+            Future<Job> blocking = submitBlocking(queue);
+            Future<Job> first = submitQueued(queue, "job_a", 1);
+            Future<Job> second = submitQueued(queue, "job_a", 2);
+            Future<Job> other = submitQueued(queue, "job_b", 3);
+            firstBatchReleased.countDown();
+
+            blocking.get(5, TimeUnit.SECONDS);
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            other.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(List.of("job_x"), List.of("job_a"), List.of("job_a", "job_b")), batches);
+        }
+    }
+
+    @Test
+    void write_shouldRetryFailedBatchOneWriteAtATime() throws Exception {
+        GroupCommitQueue.BatchWriter<Job> failOnBad = fieldsById -> {
+            if (fieldsById.containsKey("job_bad")) {
+                throw new IllegalStateException("constraint violated");
+            }
+            return writeAllAfterFirstBatch(fieldsById);
+        };
+        try (GroupCommitQueue<Job> queue = newQueue(10, Duration.ZERO, 100, failOnBad)) {
+            Future<Job> blocking = submitBlocking(queue);
+            Future<Job> good = submitQueued(queue, "job_good", 1);
+            Future<Job> bad = submitQueued(queue, "job_bad", 2);
+            firstBatchReleased.countDown();
+
+            blocking.get(5, TimeUnit.SECONDS);
+            assertEquals("job_good", good.get(5, TimeUnit.SECONDS).getId());
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, failure.getCause());
+            assertEquals(1, meterRegistry.get("scd.group_commit.fallbacks").counter().count());
+        }
+    }
+
+    @Test
+    void write_shouldReportMissingEntities() {
+        GroupCommitQueue.BatchWriter<Job> nothingFound = fieldsById -> new BatchUpdateResult<>(Map.of(),
+            Map.of("job_missing", "Entity with ID job_missing not found"));
+        try (GroupCommitQueue<Job> queue = newQueue(10, Duration.ZERO, 100, nothingFound)) {
+            EntityNotFoundException missing = assertThrows(EntityNotFoundException.class,
+                () -> queue.write("job_missing", Map.of("status", "inactive")));
+            assertEquals("Entity with ID job_missing not found", missing.getMessage());
+        }
+    }
+
+    @Test
+    void write_shouldRejectWhenQueueIsFull() throws Exception {
+        try (GroupCommitQueue<Job> queue = newQueue(10, Duration.ZERO, 1, this::writeAllAfterFirstBatch)) {
+            Future<Job> blocking = submitBlocking(queue);
+            Future<Job> queued = submitQueued(queue, "job_a", 1);
+
+            StatusRuntimeException rejected = assertThrows(StatusRuntimeException.class,
+                () -> queue.write("job_b", Map.of("status", "inactive")));
+            assertEquals(Status.Code.RESOURCE_EXHAUSTED, rejected.getStatus().getCode());
+
+            firstBatchReleased.countDown();
+            blocking.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void write_shouldGiveUpAtDeadlineAndDropTheWrite() throws Exception {
+        try (GroupCommitQueue<Job> queue = newQueue(10, Duration.ZERO, 100, this::writeAllAfterFirstBatch)) {
+            Future<Job> blocking = submitBlocking(queue);
+            Future<Job> expiring = callers.submit(() -> Context.current()
+                .withDeadlineAfter(100, TimeUnit.MILLISECONDS, deadlines)
+                .call(() -> queue.write("job_late", Map.of("status", "inactive"))));
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> expiring.get(5, TimeUnit.SECONDS));
+            assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(failure.getCause()).getCode());
+
+            firstBatchReleased.countDown();
+            blocking.get(5, TimeUnit.SECONDS);
+        }
+        // The expired write was still queued when its caller gave up, so it was never written
+        assertEquals(List.of(List.of("job_x")), batches);
+    }
+
+    @Test
+    void close_shouldNeverStrandConcurrentWriters() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            GroupCommitQueue<Job> queue = newQueue(10, Duration.ZERO, 100, this::writeAll);
+            List<Future<Void>> writers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String id = "job_" + i;
+                writers.add(callers.submit(() -> {
+                    while (true) {
+                        try {
+                            queue.write(id, Map.of("status", "inactive"));
+                        } catch (StatusRuntimeException e) {
+                            assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+                            return null;
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(5);
+
+            queue.close();
+
+            // Every writer either committed or was told the server is shutting down; none waits forever
+            for (Future<Void> writer : writers) {
+                writer.get(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private GroupCommitQueue<Job> newQueue(int maxBatchSize, Duration linger, int capacity,
+        GroupCommitQueue.BatchWriter<Job> batchWriter) {
+        return new GroupCommitQueue<>("jobs", batchWriter, (id, fields) -> {
+            if (id.equals("job_bad")) {
+                throw new IllegalStateException("constraint violated");
+            }
+            return job(id);
+        }, maxBatchSize, linger, capacity, meterRegistry);
+    }
+
+    private BatchUpdateResult<Job> writeAll(Map<String, Map<String, Object>> fieldsById) {
+        batches.add(List.copyOf(fieldsById.keySet()));
+        Map<String, Job> updated = new LinkedHashMap<>();
+        fieldsById.keySet().forEach(id -> updated.put(id, job(id)));
+        return new BatchUpdateResult<>(updated, Map.of());
+    }
+
+    /**
+     * Holds the first batch until the test releases it, so that later writes queue up behind it
+     */
+    private BatchUpdateResult<Job> writeAllAfterFirstBatch(Map<String, Map<String, Object>> fieldsById) {
+        if (batches.isEmpty()) {
+            firstBatchStarted.countDown();
+            try {
+                firstBatchReleased.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return writeAll(fieldsById);
+    }
+
+    private Future<Job> submit(GroupCommitQueue<Job> queue, String id) {
+        return callers.submit(() -> queue.write(id, Map.of("status", "inactive")));
+    }
+
+    /**
+     * Submit a write whose batch is held until the test releases it
+     */
+    private Future<Job> submitBlocking(GroupCommitQueue<Job> queue) throws Exception {
+        Future<Job> result = submit(queue, "job_x");
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        return result;
+    }
+
+    /**
+     * Submit a write and wait until it is queued, so writes are queued in a known order
+     */
+    private Future<Job> submitQueued(GroupCommitQueue<Job> queue, String id, int expectedDepth) throws Exception {
+        Future<Job> result = submit(queue, id);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("scd.group_commit.queue_depth").gauge().value() < expectedDepth) {
+            assertTrue(System.nanoTime() < deadline, "write was not queued");
+            Thread.sleep(1);
+        }
+        return result;
+    }
+
+    private static Job job(String id) {
+        return Job.builder().id(id).version(2).uid(id + "_uid_2").status("inactive").build();
+    }
+}
@@ -0,0 +1,156 @@
+package com.mercor.assignment.scd.domain.core.service.grpc;
+
+import com.google.protobuf.FieldMask;
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
+import com.mercor.assignment.scd.domain.common.Entity;
+import com.mercor.assignment.scd.domain.core.EntityResponse;
+import com.mercor.assignment.scd.domain.core.GetVersionHistoryRequest;
+import com.mercor.assignment.scd.domain.core.QueryRequest;
+import com.mercor.assignment.scd.domain.core.SCDServiceGrpc;
+import com.mercor.assignment.scd.domain.core.index.VersionIndex;
+import com.mercor.assignment.scd.domain.core.repository.AbstractPostgresIT;
+import com.mercor.assignment.scd.domain.core.service.groupcommit.GroupCommitWriter;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.job.service.JobService;
+import com.mercor.assignment.scd.domain.job.service.regular.JobServiceImpl;
+import com.mercor.assignment.scd.domain.paymentlineitem.service.regular.PaymentLineItemService;
+import com.mercor.assignment.scd.domain.timelog.service.regular.TimelogService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls the streaming RPCs over an in-process gRPC channel, served by the job service and repository on PostgreSQL
+ * The rows are committed before each call, since the server reads them on its own thread and transaction. Timelogs,
+ * payment line items, caches and the write path beside the repository are not involved and are mocked.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({SCDGrpcServiceImpl.class, JobServiceImpl.class, SingleFlight.class})
+class SCDGrpcServiceImplIT extends AbstractPostgresIT {
+
+    @MockitoBean
+    private CacheBatchOperations cacheBatchOperations;
+
+    @MockitoBean
+    private TimelogService timelogService;
+
+    @MockitoBean
+    private PaymentLineItemService paymentLineItemService;
+
+    @MockitoBean
+    private VersionIndex versionIndex;
+
+    @MockitoBean
+    private GroupCommitWriter groupCommitWriter;
+
+    @Autowired
+    private SCDGrpcServiceImpl grpcService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Server server;
+    private ManagedChannel channel;
+    private SCDServiceGrpc.SCDServiceBlockingStub stub;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).addService(grpcService).build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        stub = SCDServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void stopServer() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        jdbcTemplate.execute("TRUNCATE jobs CASCADE");
+    }
+
+    @Test
+    void streamQuery_shouldStreamCurrentRowsFromTheDatabase() {
+        jobService.createEntity(job("job_a"));
+        jobService.createEntity(job("job_b"));
+        jobService.createEntity(job("job_c"));
+        jobService.createNewVersion("job_b", Map.of("status", "inactive"));
+        jobService.createNewVersion("job_c", Map.of("rate", "30.00"));
+
+        List<Entity> streamed = entities(stub.streamQuery(QueryRequest.newBuilder().setEntityType("jobs")
+            .setLatestVersionOnly(true).putConditions("status", "active").setSortBy("id").setSortDirection("asc")
+            .build()));
+
+        assertEquals(List.of("job_a@1", "job_c@2"), streamed.stream()
+            .map(entity -> entity.getId() + "@" + entity.getVersion()).toList());
+        assertEquals(30.0, streamed.get(1).getJob().getRate());
+    }
+
+    @Test
+    void streamQuery_shouldResumeAfterQueryPageTokenWithMaskedFields() {
+        for (String id : List.of("job_a", "job_b", "job_c")) {
+            jobService.createEntity(job(id));
+        }
+        QueryRequest.Builder request = QueryRequest.newBuilder().setEntityType("jobs").setLatestVersionOnly(true)
+            .setSortBy("id").setSortDirection("asc");
+        String pageToken = stub.query(request.setLimit(1).build()).getNextPageToken();
+
+        List<Entity> streamed = entities(stub.streamQuery(request.setLimit(0).setPageToken(pageToken)
+            .setFieldMask(FieldMask.newBuilder().addPaths("status")).build()));
+
+        assertEquals(List.of("job_b", "job_c"), streamed.stream().map(Entity::getId).toList());
+        assertEquals("active", streamed.get(0).getJob().getStatus());
+        assertEquals("", streamed.get(0).getJob().getTitle());
+    }
+
+    @Test
+    void streamVersionHistory_shouldSendMaskedDeltasNewestFirst() {
+        jobService.createEntity(job("job_a"));
+        jobService.createNewVersion("job_a", Map.of("status", "inactive"));
+        jobService.createNewVersion("job_a", Map.of("title", "Lead"));
+
+        List<Entity> streamed = entities(stub.streamVersionHistory(GetVersionHistoryRequest.newBuilder()
+            .setEntityType("jobs").setId("job_a").setFieldMask(FieldMask.newBuilder().addPaths("status"))
+            .setDelta(true).build()));
+
+        assertEquals(List.of(3, 2, 1), streamed.stream().map(Entity::getVersion).toList());
+        assertEquals("inactive", streamed.get(0).getJob().getStatus());
+        // Only the title changed from version 2 to 3, and it is outside the mask
+        assertEquals(List.of(), streamed.get(1).getChangedFields().getPathsList());
+        assertEquals(List.of("status"), streamed.get(2).getChangedFields().getPathsList());
+        assertEquals("active", streamed.get(2).getJob().getStatus());
+    }
+
+    private static List<Entity> entities(Iterator<EntityResponse> responses) {
+        List<Entity> entities = new ArrayList<>();
+        responses.forEachRemaining(response -> entities.add(response.getEntity()));
+        return entities;
+    }
+
+    private static Job job(String id) {
+        return Job.builder().id(id).status("active").rate(new BigDecimal("20.00")).title("Engineer")
+            .companyId("comp_a").contractorId("cont_a").build();
+    }
+}
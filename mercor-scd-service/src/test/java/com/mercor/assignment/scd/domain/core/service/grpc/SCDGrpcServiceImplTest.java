@@ -0,0 +1,258 @@
+package com.mercor.assignment.scd.domain.core.service.grpc;
+
+import com.google.protobuf.FieldMask;
+import com.mercor.assignment.scd.domain.core.EntityResponse;
+import com.mercor.assignment.scd.domain.core.GetVersionHistoryRequest;
+import com.mercor.assignment.scd.domain.core.QueryRequest;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.job.JobProto;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.job.service.JobService;
+import com.mercor.assignment.scd.domain.paymentlineitem.service.regular.PaymentLineItemService;
+import com.mercor.assignment.scd.domain.timelog.service.regular.TimelogService;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Drives the server-streaming calls against a mocked job service that hands out rows one at a time, like a cursor
+ * Flow control and cancellation need an observer the test controls; {@link SCDGrpcServiceImplIT} runs the same calls
+ * over a gRPC channel against PostgreSQL.
+ */
+@ExtendWith(MockitoExtension.class)
+class SCDGrpcServiceImplTest {
+
+    private final List<Job> rows = new ArrayList<>();
+    private int rowsRead;
+
+    @Mock
+    private JobService jobService;
+
+    @Mock
+    private TimelogService timelogService;
+
+    @Mock
+    private PaymentLineItemService paymentLineItemService;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Object>> criteria;
+
+    @Captor
+    private ArgumentCaptor<QueryOptions> options;
+
+    @Captor
+    private ArgumentCaptor<FieldProjection> projection;
+
+    private SCDGrpcServiceImpl grpcService;
+
+    @BeforeEach
+    void setUp() {
+        grpcService = new SCDGrpcServiceImpl(jobService, timelogService, paymentLineItemService, null, null, null);
+    }
+
+    @Test
+    void streamQuery_shouldSendOneMessagePerRowAndComplete() {
+        rows.addAll(List.of(job("job_a", 1), job("job_b", 3), job("job_c", 2)));
+        streamLatestVersions();
+        FakeObserver observer = new FakeObserver();
+
+        grpcService.streamQuery(QueryRequest.newBuilder().setEntityType("jobs").setLatestVersionOnly(true)
+            .putConditions("status", "active").setLimit(5000).setOffset(10).setSortDirection("asc")
+            .setPageToken("token").build(), observer);
+
+        assertEquals(List.of("job_a", "job_b", "job_c"),
+            observer.messages.stream().map(message -> message.getEntity().getId()).toList());
+        assertTrue(observer.completed);
+        // Streams are not capped at the page size limit
+        assertEquals(Map.of("status", "active"), criteria.getValue());
+        assertEquals(5000, options.getValue().getLimit());
+        assertEquals(10, options.getValue().getOffset());
+        assertEquals("token", options.getValue().getPageToken());
+        assertFalse(options.getValue().isDescending());
+    }
+
+    @Test
+    void streamQuery_shouldStopReadingRowsWhenClientStopsConsuming() {
+        rows.addAll(List.of(job("job_a", 1), job("job_b", 1), job("job_c", 1)));
+        streamLatestVersions();
+        FakeObserver observer = new FakeObserver();
+        observer.ready = false;
+
+        StatusRuntimeException stalled = assertThrows(StatusRuntimeException.class,
+            () -> grpcService.streamQuery(QueryRequest.newBuilder().setEntityType("jobs").setLatestVersionOnly(true)
+                .build(), observer));
+
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, stalled.getStatus().getCode());
+        assertEquals(1, rowsRead);
+        assertEquals(List.of(), observer.messages);
+        assertFalse(observer.completed);
+    }
+
+    @Test
+    void streamQuery_shouldEndWithCancelledWhenClientWentAway() {
+        rows.add(job("job_a", 1));
+        streamLatestVersions();
+        FakeObserver observer = new FakeObserver();
+        observer.ready = false;
+        observer.cancelled = true;
+
+        StatusRuntimeException cancelled = assertThrows(StatusRuntimeException.class,
+            () -> grpcService.streamQuery(QueryRequest.newBuilder().setEntityType("jobs").setLatestVersionOnly(true)
+                .build(), observer));
+
+        assertEquals(Status.Code.CANCELLED, cancelled.getStatus().getCode());
+    }
+
+    @Test
+    void streamQuery_shouldReturnOnlyMaskedFields() {
+        rows.add(job("job_a", 1));
+        streamLatestVersions();
+        FakeObserver observer = new FakeObserver();
+
+        grpcService.streamQuery(QueryRequest.newBuilder().setEntityType("jobs").setLatestVersionOnly(true)
+            .setFieldMask(FieldMask.newBuilder().addPaths("status")).build(), observer);
+
+        assertEquals(Set.of("id", "version", "uid", "createdAt", "updatedAt", "status"),
+            projection.getValue().getFields());
+        JobProto job = observer.messages.get(0).getEntity().getJob();
+        assertEquals("active", job.getStatus());
+        assertEquals("", job.getTitle());
+    }
+
+    @Test
+    void streamVersionHistory_shouldSendEveryVersionInOrder() {
+        rows.addAll(List.of(job("job_a", 1), job("job_a", 2), job("job_a", 3)));
+        streamAllVersions();
+        FakeObserver observer = new FakeObserver();
+
+        grpcService.streamVersionHistory(GetVersionHistoryRequest.newBuilder().setEntityType("jobs").setId("job_a")
+            .build(), observer);
+
+        assertEquals(List.of(1, 2, 3),
+            observer.messages.stream().map(message -> message.getEntity().getVersion()).toList());
+        assertEquals("active", observer.messages.get(2).getEntity().getJob().getStatus());
+        assertSame(FieldProjection.ALL, projection.getValue());
+        assertTrue(observer.completed);
+    }
+
+    @Test
+    void streamVersionHistory_shouldApplyFieldMaskToDeltas() {
+        rows.addAll(List.of(job("job_a", 2), job("job_a", 1)));
+        rows.get(1).setTitle("Intern");
+        streamAllVersions();
+        FakeObserver observer = new FakeObserver();
+
+        grpcService.streamVersionHistory(GetVersionHistoryRequest.newBuilder().setEntityType("jobs").setId("job_a")
+            .setFieldMask(FieldMask.newBuilder().addPaths("status")).setDelta(true).build(), observer);
+
+        assertTrue(projection.getValue().includes("status"));
+        assertFalse(projection.getValue().includes("title"));
+        // The title changed between the versions, but it is outside the mask
+        assertEquals(List.of(), observer.messages.get(1).getEntity().getChangedFields().getPathsList());
+    }
+
+    private void streamLatestVersions() {
+        doAnswer(invocation -> readRows(invocation.getArgument(3))).when(jobService)
+            .streamLatestVersionsByCriteria(criteria.capture(), options.capture(), projection.capture(), any());
+    }
+
+    private void streamAllVersions() {
+        doAnswer(invocation -> readRows(invocation.getArgument(2))).when(jobService)
+            .streamAllVersionsById(eq("job_a"), projection.capture(), any());
+    }
+
+    /**
+     * Hands each row to the consumer before reading the next, so a consumer that throws stops the cursor
+     */
+    private Void readRows(Consumer<Job> consumer) {
+        for (Job row : rows) {
+            rowsRead++;
+            consumer.accept(row);
+        }
+        return null;
+    }
+
+    private static Job job(String id, int version) {
+        return Job.builder().id(id).version(version).uid(id + "_uid_" + version).status("active")
+            .rate(new BigDecimal("20.00")).title("Engineer").companyId("comp_a").contractorId("cont_a")
+            .current(true).build();
+    }
+
+    /**
+     * Records the messages sent on a stream whose readiness and cancellation the test controls
+     */
+    private static final class FakeObserver extends ServerCallStreamObserver<EntityResponse> {
+
+        final List<EntityResponse> messages = new ArrayList<>();
+        boolean ready = true;
+        boolean cancelled;
+        boolean completed;
+
+        @Override
+        public void onNext(EntityResponse value) {
+            messages.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mercor.assignment.scd.domain.core.util;
+
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares random and time-ordered UID generation
+ * {@code generateUid} runs on several threads, where random UUIDs contend on the shared SecureRandom.
+ * {@code addToSortedSet} adds each new UID to an in-memory sorted set that already holds a million of them, where
+ * time-ordered keys always descend the same right-hand path while random keys touch a different part of the tree. It
+ * only shows the effect of key order on a sorted structure; it is not a database insert benchmark, since page splits,
+ * WAL and the buffer cache are not involved. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.mercor.assignment.scd.domain.core.util.UidGeneratorBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UidGeneratorBenchmark {
+
+    private static final int SORTED_SET_SIZE = 1_000_000;
+
+    @Param({"random", "time-ordered"})
+    private String strategy;
+
+    private UidGenerator generator;
+    private TreeSet<String> sortedSet;
+
+    @Setup
+    public void setUp() {
+        generator = new UidGenerator(strategy);
+    }
+
+    @Setup(Level.Iteration)
+    public void fillSortedSet() {
+        sortedSet = new TreeSet<>();
+        while (sortedSet.size() < SORTED_SET_SIZE) {
+            sortedSet.add(generator.generateUid("tl"));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateUid() {
+        return generator.generateUid("tl");
+    }
+
+    @Benchmark
+    public boolean addToSortedSet() {
+        return sortedSet.add(generator.generateUid("tl"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(UidGeneratorBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
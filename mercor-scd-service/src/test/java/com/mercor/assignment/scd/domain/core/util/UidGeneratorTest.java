@@ -0,0 +1,73 @@
+package com.mercor.assignment.scd.domain.core.util;
+
+import com.mercor.assignment.scd.domain.core.util.UidGenerator.Strategy;
+import com.mercor.assignment.scd.domain.core.validation.SCDValidators.SCDCommonValidators;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UidGeneratorTest {
+
+    @Test
+    void generateUid_shouldSortByCreationTime() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        UidGenerator generator = new UidGenerator(Strategy.TIME_ORDERED, clock::get);
+
+        String previous = generator.generateUid("job");
+        for (int i = 0; i < 1_000; i++) {
+            clock.addAndGet(1);
+            String next = generator.generateUid("job");
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void generateUid_shouldKeepPrefixFormat() {
+        UidGenerator generator = new UidGenerator(Strategy.TIME_ORDERED, System::currentTimeMillis);
+
+        String uid = generator.generateUid("tl");
+        String id = generator.generateEntityId("tl");
+
+        assertTrue(uid.matches("tl_uid_[0-9a-hjkmnp-tv-z]{26}"), uid);
+        assertTrue(id.matches("tl_[0-9a-hjkmnp-tv-z]{26}"), id);
+        assertTrue(SCDCommonValidators.validUid.isValid(uid));
+        assertTrue(SCDCommonValidators.validId.isValid(id));
+    }
+
+    @Test
+    void generateUid_shouldStillSupportRandomUuids() {
+        UidGenerator generator = new UidGenerator("random");
+
+        assertEquals(Strategy.RANDOM, generator.getStrategy());
+        assertTrue(generator.generateUid("job").matches("job_uid_[A-Za-z0-9_-]{22}"));
+    }
+
+    @Test
+    void timeOrderedUuid_shouldBeVersion7WithTimestamp() {
+        UUID uuid = UidGenerator.timeOrderedUuid(1_700_000_000_123L, ThreadLocalRandom.current());
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(1_700_000_000_123L, uuid.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void encodeBase32_shouldWriteFixedWidthDigits() {
+        assertEquals("0".repeat(26), UidGenerator.encodeBase32(0, 0));
+        assertEquals("0".repeat(25) + "1", UidGenerator.encodeBase32(0, 1));
+        assertEquals("7" + "z".repeat(25), UidGenerator.encodeBase32(-1, -1));
+        // The digit that straddles both halves
+        assertEquals("0".repeat(13) + "g" + "0".repeat(12), UidGenerator.encodeBase32(1, 0));
+    }
+
+    @Test
+    void strategy_shouldParseConfiguredValues() {
+        assertEquals(Strategy.TIME_ORDERED, Strategy.fromValue("time-ordered"));
+        assertEquals(Strategy.RANDOM, Strategy.fromValue(" Random "));
+        assertThrows(IllegalArgumentException.class, () -> Strategy.fromValue("sequential"));
+    }
+}
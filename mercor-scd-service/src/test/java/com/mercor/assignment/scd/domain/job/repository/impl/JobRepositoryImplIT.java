@@ -0,0 +1,257 @@
+package com.mercor.assignment.scd.domain.job.repository.impl;
+
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
+import com.mercor.assignment.scd.domain.core.pagination.KeysetPage;
+import com.mercor.assignment.scd.domain.core.pagination.QueryOptions;
+import com.mercor.assignment.scd.domain.core.projection.FieldProjection;
+import com.mercor.assignment.scd.domain.core.repository.AbstractPostgresIT;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.job.repository.JobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the write path against the jobs table in PostgreSQL
+ * The assertions read the rows back with SQL, so they see what the retire-then-insert statements left behind.
+ */
+class JobRepositoryImplIT extends AbstractPostgresIT {
+
+    @Autowired
+    private JobRepository repository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private SimpleMeterRegistry meterRegistry;
+
+    @Test
+    void createEntity_shouldInsertFirstVersionAsCurrent() {
+        Job created = repository.createEntity(job("job_a"));
+
+        assertEquals(1, created.getVersion());
+        assertTrue(created.getCurrent());
+        assertEquals(Map.of("job_a", 1), currentVersions());
+    }
+
+    @Test
+    void createNewVersion_shouldRetireCurrentRowAndInsertSuccessor() {
+        Job latest = repository.createEntity(job("job_a"));
+
+        Job written = repository.createNewVersion(latest, Map.of("status", "inactive"));
+
+        assertEquals(2, written.getVersion());
+        assertEquals("inactive", written.getStatus());
+        assertEquals(Map.of("job_a", 2), currentVersions());
+        assertEquals(2, rowCount("job_a"));
+    }
+
+    @Test
+    void createNewVersion_shouldFailWithoutInsertWhenCurrentRowMovedOn() {
+        Job first = repository.createEntity(job("job_a"));
+        Job stale = first.cloneForNewVersion(first.getUid(), first.getVersion(), first.getCreatedAt());
+        repository.createNewVersion(first, Map.of("status", "inactive"));
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+            () -> repository.createNewVersion(stale, Map.of("rate", "30.00")));
+
+        assertEquals("Entity with ID 'job_a' is no longer at version 1", conflict.getMessage());
+        assertEquals(2, rowCount("job_a"));
+        assertEquals(Map.of("job_a", 2), currentVersions());
+    }
+
+    @Test
+    void createNewVersion_shouldWriteNothingWhenNoFieldChanges() {
+        Job latest = repository.createEntity(job("job_a"));
+
+        Job written = repository.createNewVersion(latest, Map.of("status", "active", "rate", "20.0"));
+
+        assertSame(latest, written);
+        assertEquals(1, rowCount("job_a"));
+        assertEquals(1, meterRegistry.get("scd.update.noops").tag("entity_type", "jobs").counter().count());
+    }
+
+    @Test
+    void writes_shouldKeepExactlyOneCurrentRowPerId() {
+        Job a = repository.createEntity(job("job_a"));
+        repository.createEntity(job("job_b"));
+        repository.createEntity(job("job_c"));
+        a = repository.createNewVersion(a, Map.of("status", "inactive"));
+        repository.createNewVersion(a, Map.of("rate", "25.00"));
+
+        Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+        batch.put("job_a", Map.of("title", "Lead"));
+        batch.put("job_b", Map.of("status", "inactive"));
+        batch.put("job_c", Map.of("status", "active"));
+        repository.createNewVersions(batch, (previousVersion, newVersion) -> {
+        });
+
+        // The current row is the highest version; the batch update of job_c changed nothing
+        assertEquals(Map.of("job_a", 4, "job_b", 2, "job_c", 1), currentVersions());
+        assertEquals(Map.of("job_a", 4, "job_b", 2, "job_c", 1), maxVersions());
+    }
+
+    @Test
+    void createNewVersions_shouldWriteEveryChunk() {
+        for (String id : List.of("job_a", "job_b", "job_c")) {
+            repository.createEntity(job(id));
+        }
+        List<String> superseded = new ArrayList<>();
+
+        Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+        batch.put("job_a", Map.of("status", "inactive"));
+        batch.put("job_b", Map.of("status", "inactive"));
+        batch.put("job_c", Map.of("status", "inactive"));
+        // The JDBC batch size is 2, so job_c is retired and inserted in a second chunk
+        Map<String, Job> written = repository.createNewVersions(batch, (previousVersion, newVersion) ->
+            superseded.add(previousVersion.getId() + "@" + previousVersion.getVersion()));
+
+        assertEquals(List.of("job_a@1", "job_b@1", "job_c@1"), superseded);
+        assertEquals(List.of(2, 2, 2), written.values().stream().map(Job::getVersion).toList());
+        assertEquals(Map.of("job_a", 2, "job_b", 2, "job_c", 2), currentVersions());
+    }
+
+    @Test
+    void findLatestVersionsByIds_shouldReturnOnlyCurrentRows() {
+        Job a = repository.createEntity(job("job_a"));
+        repository.createEntity(job("job_b"));
+        repository.createNewVersion(a, Map.of("status", "inactive"));
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<String, Integer> latest = repository.findLatestVersionsByIds(List.of("job_a", "job_b", "job_x")).stream()
+            .collect(Collectors.toMap(Job::getId, Job::getVersion));
+
+        assertEquals(Map.of("job_a", 2, "job_b", 1), latest);
+    }
+
+    @Test
+    void findLatestVersionsByCriteria_shouldPageThroughRowsUpdatedInTheSameMillisecond() {
+        repository.createEntity(job("job_a"));
+        repository.createEntity(job("job_b"));
+        setUpdatedAt("job_a", "2025-01-01 00:00:00.123456");
+        setUpdatedAt("job_b", "2025-01-01 00:00:00.123789");
+
+        for (String direction : List.of("asc", "desc")) {
+            List<String> seen = new ArrayList<>();
+            String pageToken = null;
+            do {
+                KeysetPage<Job> page = repository.findLatestVersionsByCriteria(Map.of(),
+                    QueryOptions.of(1, 0, "updatedAt", direction, pageToken));
+                page.items().forEach(row -> seen.add(row.getId()));
+                pageToken = page.nextPageToken();
+            } while (pageToken != null);
+
+            // The page boundary falls between the two rows, inside one millisecond
+            assertEquals(direction.equals("asc") ? List.of("job_a", "job_b") : List.of("job_b", "job_a"), seen);
+        }
+    }
+
+    @Test
+    void streamLatestVersionsByCriteria_shouldStartAfterPageTokenOrOffset() {
+        for (String id : List.of("job_a", "job_b", "job_c")) {
+            repository.createEntity(job(id));
+        }
+        String pageToken = repository.findLatestVersionsByCriteria(Map.of(),
+            QueryOptions.of(1, 0, "id", "asc", null)).nextPageToken();
+
+        try (Stream<Job> afterToken = repository.streamLatestVersionsByCriteria(Map.of(),
+            QueryOptions.forStream(0, 0, "id", "asc", pageToken), FieldProjection.ALL)) {
+            assertEquals(List.of("job_b", "job_c"), afterToken.map(Job::getId).toList());
+        }
+        try (Stream<Job> afterOffset = repository.streamLatestVersionsByCriteria(Map.of(),
+            QueryOptions.forStream(1, 2, "id", "asc", null), FieldProjection.ALL)) {
+            assertEquals(List.of("job_c"), afterOffset.map(Job::getId).toList());
+        }
+    }
+
+    @Test
+    void streams_shouldReadOnlyProjectedColumns() {
+        Job a = repository.createEntity(job("job_a"));
+        repository.createNewVersion(a, Map.of("status", "inactive"));
+        FieldProjection status = FieldProjection.of(List.of("status"));
+
+        try (Stream<Job> latest = repository.streamLatestVersionsByCriteria(Map.of(),
+            QueryOptions.forStream(0, 0, null, null, null), status)) {
+            Job row = latest.findFirst().orElseThrow();
+            assertEquals("inactive", row.getStatus());
+            assertNull(row.getTitle());
+        }
+        try (Stream<Job> history = repository.streamAllVersionsById("job_a", status)) {
+            List<Job> rows = history.toList();
+            assertEquals(List.of("inactive", "active"), rows.stream().map(Job::getStatus).toList());
+            assertNull(rows.get(1).getRate());
+        }
+    }
+
+    @Test
+    void currentIndex_shouldRejectSecondCurrentRow() {
+        repository.createEntity(job("job_a"));
+        entityManager.flush();
+
+        assertThrows(PersistenceException.class, () -> entityManager.createNativeQuery(
+                "INSERT INTO jobs (uid, id, version, status, rate, title, company_id, contractor_id, is_current) "
+                    + "VALUES ('job_a_uid_2', 'job_a', 2, 'active', 20.00, 'Engineer', 'comp_a', 'cont_a', TRUE)")
+            .executeUpdate());
+    }
+
+    @Test
+    void migrations_shouldLeaveEveryCurrentRowIndexValid() {
+        @SuppressWarnings("unchecked")
+        List<String> valid = entityManager.createNativeQuery(
+                "SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                    + "WHERE i.indisvalid AND c.relname LIKE '%\\_current' ORDER BY c.relname")
+            .getResultList();
+
+        // CREATE INDEX CONCURRENTLY leaves an invalid index behind when it fails
+        assertEquals(List.of("idx_jobs_company_id_current", "idx_jobs_contractor_id_current",
+            "idx_payment_line_items_job_uid_current", "idx_payment_line_items_timelog_uid_current",
+            "idx_timelogs_time_start_time_end_current", "ux_jobs_id_current", "ux_payment_line_items_id_current",
+            "ux_timelogs_id_current"), valid);
+    }
+
+    private void setUpdatedAt(String id, String timestamp) {
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE jobs SET updated_at = CAST(?1 AS timestamp) WHERE id = ?2")
+            .setParameter(1, timestamp).setParameter(2, id).executeUpdate();
+        entityManager.clear();
+    }
+
+    private Map<String, Integer> currentVersions() {
+        return versions("SELECT id, version FROM jobs WHERE is_current");
+    }
+
+    private Map<String, Integer> maxVersions() {
+        return versions("SELECT id, MAX(version) FROM jobs GROUP BY id");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Integer> versions(String sql) {
+        entityManager.flush();
+        List<Object[]> rows = entityManager.createNativeQuery(sql).getResultList();
+        return rows.stream().collect(Collectors.toMap(row -> (String) row[0], row -> ((Number) row[1]).intValue()));
+    }
+
+    private long rowCount(String id) {
+        entityManager.flush();
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM jobs WHERE id = ?1")
+            .setParameter(1, id).getSingleResult()).longValue();
+    }
+
+    private static Job job(String id) {
+        return Job.builder().id(id).status("active").rate(new BigDecimal("20.00")).title("Engineer")
+            .companyId("comp_a").contractorId("cont_a").build();
+    }
+}
@@ -0,0 +1,294 @@
+package com.mercor.assignment.scd.domain.job.service.regular;
+
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
+import com.mercor.assignment.scd.common.errorhandling.exceptions.VersionConflictException;
+import com.mercor.assignment.scd.domain.core.model.VersionComparator;
+import com.mercor.assignment.scd.domain.core.service.BatchUpdateResult;
+import com.mercor.assignment.scd.domain.core.service.SCDService;
+import com.mercor.assignment.scd.domain.core.util.UidGenerator;
+import com.mercor.assignment.scd.domain.job.model.Job;
+import com.mercor.assignment.scd.domain.job.repository.JobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobServiceImplTest {
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+
+    /**
+     * The latest version of each ID, read and advanced by the stubbed batch write
+     */
+    private final Map<String, Job> latest = new LinkedHashMap<>();
+
+    @Mock
+    private JobRepository repository;
+
+    private JobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new JobServiceImpl(repository, new UidGenerator("random"),
+            new CacheBatchOperations(cacheManager, null),
+            new SingleFlight(new SimpleMeterRegistry(), 2000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void createNewVersion_shouldRejectStaleExpectedVersionWithoutWriting() {
+        when(repository.findLatestVersionById("job_a")).thenReturn(Optional.of(job("job_a", 3)));
+        cacheManager.getCache("job:latest").put("job_a", Optional.of(job("job_a", 3)));
+
+        VersionConflictException conflict = assertThrows(VersionConflictException.class,
+            () -> service.createNewVersion("job_a", Map.of("status", "inactive"), 2));
+
+        assertEquals("Entity with ID 'job_a' is at version 3, not the expected version 2", conflict.getMessage());
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).lockForUpdate(List.of("job_a"));
+        inOrder.verify(repository).findLatestVersionById("job_a");
+        verifyNoMoreInteractions(repository);
+        assertNotNull(cacheManager.getCache("job:latest").get("job_a"));
+    }
+
+    @Test
+    void createNewVersion_shouldWriteWhenExpectedVersionIsLatest() {
+        Job latestVersion = job("job_a", 3);
+        stubSingleWrite(latestVersion);
+        cacheManager.getCache("job:latest").put("job_a", Optional.of(latestVersion));
+
+        Job written = service.createNewVersion("job_a", Map.of("status", "inactive"), 3);
+
+        assertEquals(4, written.getVersion());
+        assertEquals("inactive", written.getStatus());
+        InOrder inOrder = inOrder(repository);
+        inOrder.verify(repository).lockForUpdate(List.of("job_a"));
+        inOrder.verify(repository).findLatestVersionById("job_a");
+        inOrder.verify(repository).createNewVersion(latestVersion, Map.of("status", "inactive"));
+        verifyNoMoreInteractions(repository);
+        assertNull(cacheManager.getCache("job:latest").get("job_a"));
+    }
+
+    @Test
+    void createNewVersion_shouldWriteAnyVersionWithoutCheck() {
+        stubSingleWrite(job("job_a", 3));
+
+        Job written = service.createNewVersion("job_a", Map.of("status", "inactive"), SCDService.ANY_VERSION);
+
+        assertEquals(4, written.getVersion());
+    }
+
+    @Test
+    void createNewVersions_shouldWriteBatchInOneCallAndEvictWrittenIdsAfterCommit() {
+        for (String id : List.of("job_a", "job_b")) {
+            latest.put(id, job(id, 1));
+            cacheManager.getCache("job:latest").put(id, job(id, 1));
+        }
+        stubBatchWrite();
+        TransactionSynchronizationManager.initSynchronization();
+
+        Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+        batch.put("job_a", Map.of("status", "inactive"));
+        batch.put("job_b", Map.of("status", "active"));
+        batch.put("job_x", Map.of("status", "inactive"));
+        BatchUpdateResult<Job> result = service.createNewVersions(batch, false);
+
+        verify(repository).createNewVersions(eq(batch), any());
+        verifyNoMoreInteractions(repository);
+        assertEquals(2, result.updated().get("job_a").getVersion());
+        assertEquals(1, result.updated().get("job_b").getVersion());
+        assertEquals(Map.of("job_x", "Entity with ID job_x not found"), result.errors());
+        assertNotNull(cacheManager.getCache("job:latest").get("job_a"));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // job_b changed nothing, so its cached latest version is still valid
+        assertNull(cacheManager.getCache("job:latest").get("job_a"));
+        assertNotNull(cacheManager.getCache("job:latest").get("job_b"));
+    }
+
+    @Test
+    void createNewVersions_shouldKeepCachesOnRollback() {
+        latest.put("job_a", job("job_a", 1));
+        cacheManager.getCache("job:latest").put("job_a", job("job_a", 1));
+        stubBatchWrite();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createNewVersions(Map.of("job_a", Map.of("status", "inactive")), false);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNotNull(cacheManager.getCache("job:latest").get("job_a"));
+    }
+
+    @Test
+    void createNewVersion_shouldEvictOnlyAffectedActiveJobListsAfterCommit() {
+        stubSingleWrite(job("job_a", 1));
+        cacheActiveJobLists();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createNewVersion("job_a", Map.of("companyId", "comp_b"));
+        assertNotNull(activeJobs("job:activeByCompany", "comp_a"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // The job left comp_a's list and joined comp_b's; its contractor is unchanged
+        assertNull(activeJobs("job:activeByCompany", "comp_a"));
+        assertNull(activeJobs("job:activeByCompany", "comp_b"));
+        assertNotNull(activeJobs("job:activeByCompany", "comp_c"));
+        assertNull(activeJobs("job:activeByContractor", "cont_a"));
+        assertNotNull(activeJobs("job:activeByContractor", "cont_z"));
+    }
+
+    @Test
+    void createNewVersion_shouldKeepActiveJobListsOnRollback() {
+        stubSingleWrite(job("job_a", 1));
+        cacheActiveJobLists();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createNewVersion("job_a", Map.of("companyId", "comp_b"));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNotNull(activeJobs("job:activeByCompany", "comp_a"));
+        assertNotNull(activeJobs("job:activeByCompany", "comp_b"));
+        assertNotNull(activeJobs("job:activeByContractor", "cont_a"));
+    }
+
+    @Test
+    void createNewVersion_shouldKeepActiveJobListsWhenNothingChanged() {
+        stubSingleWrite(job("job_a", 1));
+        cacheActiveJobLists();
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createNewVersion("job_a", Map.of("companyId", "comp_a"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertNotNull(activeJobs("job:activeByCompany", "comp_a"));
+        assertNotNull(activeJobs("job:activeByContractor", "cont_a"));
+    }
+
+    @Test
+    void findLatestVersionsByIds_shouldLoadOnlyCacheMissesWithOneQuery() {
+        when(repository.findLatestVersionsByIds(List.of("job_b", "job_c", "job_d")))
+            .thenReturn(List.of(job("job_b", 1), job("job_c", 2)));
+        cacheManager.getCache("job:latest").put("job_a", job("job_a", 3));
+
+        Map<String, Job> found = service.findLatestVersionsByIds(List.of("job_a", "job_b", "job_b", "job_c", "job_d"));
+
+        assertEquals(List.of("job_a", "job_b", "job_c"), List.copyOf(found.keySet()));
+        assertEquals(2, found.get("job_c").getVersion());
+        verify(repository).findLatestVersionsByIds(List.of("job_b", "job_c", "job_d"));
+        verifyNoMoreInteractions(repository);
+        assertNotNull(cacheManager.getCache("job:latest").get("job_b"));
+        assertNull(cacheManager.getCache("job:latest").get("job_d"));
+    }
+
+    @Test
+    void findLatestVersionsByIds_shouldNotQueryWhenEveryIdIsCached() {
+        cacheManager.getCache("job:latest").put("job_a", job("job_a", 3));
+        cacheManager.getCache("job:latest").put("job_b", job("job_b", 1));
+
+        Map<String, Job> found = service.findLatestVersionsByIds(List.of("job_a", "job_b"));
+
+        assertEquals(2, found.size());
+        verifyNoInteractions(repository);
+    }
+
+    private void cacheActiveJobLists() {
+        for (String companyId : List.of("comp_a", "comp_b", "comp_c")) {
+            cacheManager.getCache("job:activeByCompany").put(companyId, List.of());
+        }
+        for (String contractorId : List.of("cont_a", "cont_z")) {
+            cacheManager.getCache("job:activeByContractor").put(contractorId, List.of());
+        }
+    }
+
+    private Object activeJobs(String cacheName, String key) {
+        return cacheManager.getCache(cacheName).get(key);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    private static Job job(String id, int version) {
+        return Job.builder().id(id).version(version).uid(id + "_uid_" + version).status("active")
+            .companyId("comp_a").contractorId("cont_a").current(true).build();
+    }
+
+    private void stubSingleWrite(Job latestVersion) {
+        when(repository.findLatestVersionById(latestVersion.getId())).thenReturn(Optional.of(latestVersion));
+        when(repository.createNewVersion(eq(latestVersion), anyMap()))
+            .thenAnswer(invocation -> successor(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    private void stubBatchWrite() {
+        when(repository.createNewVersions(anyMap(), any()))
+            .thenAnswer(invocation -> writeVersions(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    /**
+     * Writes the successor of every known ID and reports it, like the real repository
+     */
+    private Map<String, Job> writeVersions(Map<String, Map<String, Object>> fieldsToUpdateById,
+        BiConsumer<Job, Job> onNewVersion) {
+        final Map<String, Job> written = new LinkedHashMap<>();
+        fieldsToUpdateById.forEach((id, fields) -> {
+            Job previousVersion = latest.get(id);
+            if (previousVersion == null) {
+                return;
+            }
+            Job version = successor(previousVersion, fields);
+            if (version != previousVersion) {
+                latest.put(id, version);
+                onNewVersion.accept(previousVersion, version);
+            }
+            written.put(id, version);
+        });
+        return written;
+    }
+
+    /**
+     * The next version with the status and company applied, or the given version when nothing changes
+     */
+    private static Job successor(Job previousVersion, Map<String, Object> fieldsToUpdate) {
+        int version = previousVersion.getVersion() + 1;
+        Job newVersion = previousVersion.cloneForNewVersion(previousVersion.getId() + "_uid_" + version, version,
+            new Date());
+        if (fieldsToUpdate.containsKey("status")) {
+            newVersion.setStatus((String) fieldsToUpdate.get("status"));
+        }
+        if (fieldsToUpdate.containsKey("companyId")) {
+            newVersion.setCompanyId((String) fieldsToUpdate.get("companyId"));
+        }
+        return VersionComparator.samePayload(previousVersion, newVersion) ? previousVersion : newVersion;
+    }
+}
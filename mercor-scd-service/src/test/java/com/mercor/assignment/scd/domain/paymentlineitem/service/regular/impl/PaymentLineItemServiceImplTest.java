@@ -0,0 +1,213 @@
+package com.mercor.assignment.scd.domain.paymentlineitem.service.regular.impl;
+
+import com.mercor.assignment.scd.common.cache.CacheBatchOperations;
+import com.mercor.assignment.scd.common.cache.SingleFlight;
+import com.mercor.assignment.scd.domain.core.model.VersionComparator;
+import com.mercor.assignment.scd.domain.core.util.UidGenerator;
+import com.mercor.assignment.scd.domain.paymentlineitem.model.PaymentLineItem;
+import com.mercor.assignment.scd.domain.paymentlineitem.repository.PaymentLineItemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentLineItemServiceImplTest {
+
+    private static final String TOTALS = "payment_line_item:totalForContractor";
+    private static final String TOTAL_KEY = "cont_a:0:1000";
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    private final Map<String, PaymentLineItem> latest = new LinkedHashMap<>();
+
+    @Mock
+    private PaymentLineItemRepository repository;
+
+    private PaymentLineItemServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PaymentLineItemServiceImpl(repository, new UidGenerator("random"),
+            new CacheBatchOperations(cacheManager, null), new SingleFlight(new SimpleMeterRegistry(), 2000));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void createNewVersion_shouldKeepTotalsWhenNothingChanged() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        stubSingleWrite("li_a");
+        totals().put(TOTAL_KEY, new BigDecimal("10.00"));
+
+        service.createNewVersion("li_a", Map.of("status", "not-paid"));
+
+        assertNotNull(totals().get(TOTAL_KEY));
+    }
+
+    @Test
+    void createNewVersion_shouldClearTotalsAfterCommit() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        stubSingleWrite("li_a");
+        totals().put(TOTAL_KEY, new BigDecimal("10.00"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createNewVersion("li_a", Map.of("amount", new BigDecimal("12.00")));
+        assertNotNull(totals().get(TOTAL_KEY));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertNull(totals().get(TOTAL_KEY));
+    }
+
+    @Test
+    void createNewVersion_shouldKeepTotalsOnRollback() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        stubSingleWrite("li_a");
+        totals().put(TOTAL_KEY, new BigDecimal("10.00"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.createNewVersion("li_a", Map.of("amount", new BigDecimal("12.00")));
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNotNull(totals().get(TOTAL_KEY));
+    }
+
+    @Test
+    void createNewVersions_shouldKeepTotalsWhenNothingChanged() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        latest.put("li_b", item("li_b", 1, "not-paid"));
+        stubBatchWrite();
+        totals().put(TOTAL_KEY, new BigDecimal("10.00"));
+
+        service.createNewVersions(Map.of("li_a", Map.of("status", "not-paid"), "li_b", Map.of("status", "not-paid")),
+            false);
+
+        assertNotNull(totals().get(TOTAL_KEY));
+    }
+
+    @Test
+    void markAsPaid_shouldClearTotalsAfterCommit() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        stubSingleWrite("li_a");
+        totals().put(TOTAL_KEY, new BigDecimal("10.00"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        PaymentLineItem paid = service.markAsPaid("li_a");
+        assertEquals("paid", paid.getStatus());
+        assertNotNull(totals().get(TOTAL_KEY));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertNull(totals().get(TOTAL_KEY));
+    }
+
+    @Test
+    void markAsPaid_shouldKeepTotalsOnRollback() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        stubSingleWrite("li_a");
+        totals().put(TOTAL_KEY, new BigDecimal("10.00"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.markAsPaid("li_a");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNotNull(totals().get(TOTAL_KEY));
+    }
+
+    @Test
+    void markAsPaid_shouldEvictLatestVersionAndHistoryAfterCommit() {
+        latest.put("li_a", item("li_a", 1, "not-paid"));
+        stubSingleWrite("li_a");
+        cacheManager.getCache("payment_line_item:latest").put("li_a", Optional.of(latest.get("li_a")));
+        cacheManager.getCache("payment_line_item:history").put("li_a", List.of(latest.get("li_a")));
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.markAsPaid("li_a");
+        // A reader before the commit must still see the unpaid version that is current in the database
+        assertNotNull(cacheManager.getCache("payment_line_item:latest").get("li_a"));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertNull(cacheManager.getCache("payment_line_item:latest").get("li_a"));
+        assertNull(cacheManager.getCache("payment_line_item:history").get("li_a"));
+    }
+
+    private Cache totals() {
+        return cacheManager.getCache(TOTALS);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+
+    private void stubSingleWrite(String id) {
+        when(repository.findLatestVersionById(id)).thenAnswer(invocation -> Optional.ofNullable(latest.get(id)));
+        when(repository.createNewVersion(any(), anyMap()))
+            .thenAnswer(invocation -> write(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    private void stubBatchWrite() {
+        when(repository.createNewVersions(anyMap(), any())).thenAnswer(invocation -> {
+            Map<String, Map<String, Object>> fieldsToUpdateById = invocation.getArgument(0);
+            BiConsumer<PaymentLineItem, PaymentLineItem> onNewVersion = invocation.getArgument(1);
+            Map<String, PaymentLineItem> written = new LinkedHashMap<>();
+            fieldsToUpdateById.forEach((id, fields) -> {
+                PaymentLineItem previous = latest.get(id);
+                PaymentLineItem version = write(previous, fields);
+                if (version != previous) {
+                    onNewVersion.accept(previous, version);
+                }
+                written.put(id, version);
+            });
+            return written;
+        });
+    }
+
+    /**
+     * Writes a successor unless it would carry the same payload, like the real repository
+     */
+    private PaymentLineItem write(PaymentLineItem previous, Map<String, Object> fields) {
+        int number = previous.getVersion() + 1;
+        PaymentLineItem version = previous.cloneForNewVersion(previous.getId() + "_uid_" + number, number, null);
+        if (fields.containsKey("status")) {
+            version.setStatus((String) fields.get("status"));
+        }
+        if (fields.containsKey("amount")) {
+            version.setAmount((BigDecimal) fields.get("amount"));
+        }
+        if (VersionComparator.samePayload(previous, version)) {
+            return previous;
+        }
+        latest.put(version.getId(), version);
+        return version;
+    }
+
+    private static PaymentLineItem item(String id, int version, String status) {
+        return PaymentLineItem.builder().id(id).version(version).uid(id + "_uid_" + version).jobUid("job_uid_1")
+            .timelogUid("tl_uid_1").amount(new BigDecimal("10.00")).status(status).current(true).build();
+    }
+}